@@ -20,15 +20,11 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.StringUtils;
-import org.json.JSONException;
 import org.json.JSONObject;
 import org.openqa.selenium.Alert;
 import org.openqa.selenium.By;
-import org.openqa.selenium.Cookie;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.NoAlertPresentException;
 import org.openqa.selenium.NoSuchElementException;
@@ -39,14 +35,32 @@ import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.FluentWait;
 import org.openqa.selenium.support.ui.Select;
-import org.openqa.selenium.support.ui.Wait;
+import org.openqa.selenium.support.ui.SystemClock;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Function;
+import com.partnet.automation.dialog.CapturedDialog;
+import com.partnet.automation.dialog.DialogCapture;
+import com.partnet.automation.extract.ElementData;
+import com.partnet.automation.extract.ElementProperty;
+import com.partnet.automation.extract.ElementRead;
+import com.partnet.automation.extract.ElementReader;
+import com.partnet.automation.extract.Structure;
+import com.partnet.automation.extract.StructureExtractor;
+import com.partnet.automation.extract.TableData;
+import com.partnet.automation.form.FormFiller;
+import com.partnet.automation.form.OptionSelector;
+import com.partnet.automation.form.SelectedOption;
+import com.partnet.automation.selenium.WindowRegistry;
+import com.partnet.automation.util.ScriptResource;
+import com.partnet.automation.wait.CompositeCondition;
+import com.partnet.automation.wait.ElementCondition;
+import com.partnet.automation.wait.ElementWait;
+import com.partnet.automation.wait.NavigationMarker;
+import com.partnet.automation.wait.PageReadyCondition;
+import com.partnet.automation.wait.PollingStrategy;
 
 /**
  * Represents a view of some HTML that can be interacted with via a
@@ -63,20 +77,50 @@ import com.google.common.base.Function;
 public abstract class HtmlView
 {
   private static final Logger LOG = LoggerFactory.getLogger(HtmlView.class);
-  private static final String JAVASCRIPT_AJAX_MESSAGE_ARRAY = "window.document.msgArray";
+  private static final String AJAX_CAPTURE_MAX_BYTES = "test.config.ajax.capture.max.bytes";
   protected final WebDriver webDriver;
 
-  // used for javascript alerts for headless browsers
-  private static final String ALERT_COOKIE_NAME = "alertMsg";
-  private static final String ALERT_NEW_LINE_REPLACE = "#newLine#";
-
   private static final String WAIT_FOR_PAGE_PROP = "test.config.page.load.timeout";
   
+  private PollingStrategy pollingStrategy;
+
   protected HtmlView(WebDriver webDriver)
   {
     this.webDriver = webDriver;
   }
 
+  /**
+   * Creates a wait that checks its condition according to
+   * {@link #getPollingStrategy()}. All waits of this view are created here.
+   *
+   * @param maxWaitInSeconds seconds to wait before timing out
+   * @return new wait for the current driver
+   */
+  protected WebDriverWait newWait(long maxWaitInSeconds)
+  {
+    return new WebDriverWait(webDriver, new SystemClock(), getPollingStrategy().newSleeper(), maxWaitInSeconds, WebDriverWait.DEFAULT_SLEEP_TIMEOUT);
+  }
+
+  /**
+   * @return how waits of this view poll, by default the strategy configured
+   *         for the current browser
+   * @see PollingStrategy#forBrowser(Browser)
+   */
+  protected PollingStrategy getPollingStrategy()
+  {
+    if (pollingStrategy == null) {
+      Browser browser;
+      try {
+        browser = getBrowser();
+      }
+      catch (IllegalArgumentException e) {
+        browser = null;
+      }
+      pollingStrategy = PollingStrategy.forBrowser(browser);
+    }
+    return pollingStrategy;
+  }
+
   /**
    * Get the current browser - convenience method
    * @return current {@link Browser} enum value
@@ -117,6 +161,9 @@ public abstract class HtmlView
    * href="http://code.google.com/p/selenium/issues/detail?id=2936">2936</a>
    * <p>
    * This method uses the {@link HtmlView#clickElem(WebElement)} method.
+   * <p>
+   * The document is marked before the click, see {@link NavigationMarker}, so
+   * a document that already started to unload is not taken as loaded.
    *
    * @author <a href="mailto:bbarker@part.net">bbarker</a>
    *
@@ -126,8 +173,9 @@ public abstract class HtmlView
   protected final HtmlView clickAndWait(WebElement webElement)
   {
     LOG.debug("click element {}", webElement);
+    NavigationMarker marker = NavigationMarker.plant(webDriver);
     clickElem(webElement);
-    waitForPageToLoad();
+    waitForPageToLoad(marker);
     return this;
   }
 
@@ -194,6 +242,49 @@ public abstract class HtmlView
     return elt.getAttribute("value");
   }
 
+  /**
+   * Fills many fields at once, using the strategy set by
+   * {@link FormFiller#FILL_STRATEGY}. Use this instead of
+   * {@link #setValue(WebElement, String)} per field for large forms.
+   * 
+   * @param values locator of every field to the value to set, selects by the
+   *          visible text of the option
+   * @return the fields that could not be filled, mapped to the value they
+   *         hold. Empty if every field was filled.
+   * @see FormFiller
+   */
+  protected Map<By, String> fillForm(Map<By, String> values)
+  {
+    return fillForm(values, FormFiller.getConfiguredStrategy());
+  }
+
+  /**
+   * Fills many fields at once. All values are read back with a single script,
+   * and only the fields that were not set correctly are typed into, after
+   * clicking them with {@link #clickElem(WebElement)}.
+   * 
+   * @param values locator of every field to the value to set, selects by the
+   *          visible text of the option
+   * @param strategy set the values by script or by typing
+   * @return the fields that could not be filled, mapped to the value they
+   *         hold. Empty if every field was filled.
+   * @see FormFiller
+   */
+  protected Map<By, String> fillForm(Map<By, String> values, FormFiller.Strategy strategy)
+  {
+    LOG.debug("Fill {} field(s) by {}", values.size(), strategy);
+
+    FormFiller filler = new FormFiller(webDriver) {
+
+      @Override
+      protected void click(WebElement element)
+      {
+        clickElem(element);
+      }
+    };
+    return filler.fill(values, strategy);
+  }
+
   /**
    * Selects the option in the given field based on the given visible text and
    * then waits for the page to load.
@@ -211,12 +302,11 @@ public abstract class HtmlView
    */
   protected HtmlView selectByVisibleTextAndWait(WebElement webElement, String visibleText)
   {
-    final Select select = new Select(webElement);
-
     LOG.debug("selectByVisibleTextAndWait - {}", visibleText);
-    select.selectByVisibleText(visibleText);
+    NavigationMarker marker = NavigationMarker.plant(webDriver);
+    selectByVisibleText(webElement, visibleText);
 
-    waitForPageToLoad();
+    waitForPageToLoad(marker);
 
     return this;
   }
@@ -225,6 +315,9 @@ public abstract class HtmlView
    * Helper method to select a option based on the visible text in the given
    * select element
    * <p>
+   * Uses {@link Select} unless {@link OptionSelector#SELECT_MODE} is
+   * <code>script</code>. If several options have the text, the script selects
+   * the first one, while {@link Select} leaves the last one selected.
    * 
    * @param webElement
    *          - the element for the given select/dropdown field
@@ -236,6 +329,12 @@ public abstract class HtmlView
   protected HtmlView selectByVisibleText(WebElement webElement, String visibleText)
   {
     LOG.debug("selectByVisibleText: text '{}', element '{}'", visibleText, webElement);
+
+    if (isScriptSelect()) {
+      LOG.debug("Selected: {}", new OptionSelector(webDriver).selectByVisibleText(webElement, visibleText));
+      return this;
+    }
+
     final Select select = new Select(webElement);
     select.selectByVisibleText(visibleText);
     return this;
@@ -256,11 +355,53 @@ public abstract class HtmlView
   protected HtmlView selectByValue(WebElement webElement, String value)
   {
     LOG.debug("selectByValue: text '{}', element '{}'", value, webElement);
+
+    if (isScriptSelect()) {
+      LOG.debug("Selected: {}", new OptionSelector(webDriver).selectByValue(webElement, value));
+      return this;
+    }
+
     final Select select = new Select(webElement);
     select.selectByValue(value);
     return this;
   }
 
+  /**
+   * Selects exactly the options with the given visible texts of a
+   * multi-select, with a single script.
+   * 
+   * @param webElement
+   *          - the element for the given multi-select field
+   * @param visibleTexts
+   *          - the visible texts to be selected
+   * @return The {@link HtmlView} instance that invoked this method; enables
+   *         fluent calls
+   */
+  protected HtmlView selectAllByVisibleText(WebElement webElement, List<String> visibleTexts)
+  {
+    LOG.debug("selectAllByVisibleText: texts '{}', element '{}'", visibleTexts, webElement);
+    new OptionSelector(webDriver).selectAllByVisibleText(webElement, visibleTexts);
+    return this;
+  }
+
+  /**
+   * Selects exactly the options with the given values of a multi-select, with
+   * a single script.
+   * 
+   * @param webElement
+   *          - the element for the given multi-select field
+   * @param values
+   *          - the values to be selected
+   * @return The {@link HtmlView} instance that invoked this method; enables
+   *         fluent calls
+   */
+  protected HtmlView selectAllByValue(WebElement webElement, List<String> values)
+  {
+    LOG.debug("selectAllByValue: values '{}', element '{}'", values, webElement);
+    new OptionSelector(webDriver).selectAllByValue(webElement, values);
+    return this;
+  }
+
   /**
    * Obtains the first selected option from a dropdown
    * @param webElement select option element
@@ -269,12 +410,49 @@ public abstract class HtmlView
   protected String getSelectedVisibleText(WebElement webElement)
   {
     LOG.debug("Find first selected visible text for {}", webElement);
-    Select sel = new Select(webElement);
-    String visibleText = sel.getFirstSelectedOption().getText();
+    String visibleText;
+
+    if (isScriptSelect()) {
+      List<SelectedOption> selected = new OptionSelector(webDriver).getSelected(webElement);
+      if (selected.isEmpty()) {
+        throw new NoSuchElementException("No options are selected");
+      }
+      visibleText = selected.get(0).getText();
+    }
+    else {
+      Select sel = new Select(webElement);
+      visibleText = sel.getFirstSelectedOption().getText();
+    }
     LOG.debug("VisibleText: {}", visibleText);
     return visibleText;
   }
 
+  /**
+   * Obtains the visible text of every selected option of a dropdown with a
+   * single script
+   * 
+   * @param webElement select element
+   * @return visible text of the selected options
+   */
+  protected List<String> getAllSelectedVisibleText(WebElement webElement)
+  {
+    List<String> visibleTexts = new ArrayList<>();
+
+    for (SelectedOption option : new OptionSelector(webDriver).getSelected(webElement)) {
+      visibleTexts.add(option.getText());
+    }
+    return visibleTexts;
+  }
+
+  /**
+   * @return true if the select helpers run a script instead of using
+   *         {@link Select}, see {@link OptionSelector#SELECT_MODE}
+   */
+  private boolean isScriptSelect()
+  {
+    return OptionSelector.getConfiguredMode() == OptionSelector.Mode.SCRIPT && webDriver instanceof JavascriptExecutor;
+  }
+
   /**
    * Obtains the visible text of all entries in a dropdown or select field
    * 
@@ -286,16 +464,86 @@ public abstract class HtmlView
   {
     List<String> optionsToReturn = new ArrayList<>();
 
-    Select sel = new Select(webElement);
-    List<WebElement> allOptions = sel.getOptions();
-
-    for (WebElement option : allOptions) {
-      optionsToReturn.add(option.getText());
+    for (ElementData option : readElements(webElement, By.tagName("option"), ElementRead.of(ElementProperty.TEXT, ElementProperty.DISPLAYED))) {
+      optionsToReturn.add(getVisibleText(option));
     }
     LOG.debug("Found options: {}", optionsToReturn);
     return optionsToReturn;
   }
 
+  /**
+   * @param element element read with {@link ElementProperty#TEXT} and
+   *          {@link ElementProperty#DISPLAYED}
+   * @return the text of the element, or an empty string if it is hidden, like
+   *         {@link WebElement#getText()}
+   */
+  private static String getVisibleText(ElementData element)
+  {
+    return Boolean.TRUE.equals(element.isDisplayed()) ? element.getText() : "";
+  }
+
+  /**
+   * Reads properties of all of the elements found by the locator with a
+   * single script, instead of a driver call per element and property.
+   * 
+   * @param locator locator of the elements
+   * @param read properties and attributes to read
+   * @return data of every element found, in document order
+   */
+  protected List<ElementData> readElements(By locator, ElementRead read)
+  {
+    return new ElementReader(webDriver).read(locator, read);
+  }
+
+  /**
+   * Reads properties of all of the elements found by the locator within the
+   * context element with a single script.
+   * 
+   * @param context element to search in
+   * @param locator locator of the elements, relative to the context
+   * @param read properties and attributes to read
+   * @return data of every element found, in document order
+   */
+  protected List<ElementData> readElements(WebElement context, By locator, ElementRead read)
+  {
+    return new ElementReader(webDriver).read(context, locator, read);
+  }
+
+  /**
+   * Reads properties of the given elements with a single script.
+   * 
+   * @param elements elements to read
+   * @param read properties and attributes to read
+   * @return data of the elements, in the same order
+   */
+  protected List<ElementData> readElements(List<WebElement> elements, ElementRead read)
+  {
+    return new ElementReader(webDriver).read(elements, read);
+  }
+
+  /**
+   * Reads a table, list or repeated cards into rows with a single script.
+   * 
+   * @param structure structure to read
+   * @return all of the rows of the structure
+   */
+  protected TableData extract(Structure structure)
+  {
+    return new StructureExtractor(webDriver).extract(structure);
+  }
+
+  /**
+   * Reads a large table, list or repeated cards a page of rows at a time.
+   * 
+   * @param structure structure to read
+   * @param pageSize max number of rows per page
+   * @return the pages of the structure, each read when iterated to
+   */
+  protected Iterable<TableData> extractPages(Structure structure, int pageSize)
+  {
+    return new StructureExtractor(webDriver).pages(structure, pageSize);
+  }
+
   /**
    * An expectation for checking that an element is present on the DOM of a
    * page. This does not necessarily mean that the element is visible.
@@ -306,7 +554,35 @@ public abstract class HtmlView
    */
   protected WebElement waitForPresenceOfElement(By by, int maxWaitInSeconds)
   {
-    return (new WebDriverWait(webDriver, maxWaitInSeconds)).until(ExpectedConditions.presenceOfElementLocated(by));
+    return waitForElement(ElementCondition.present(by), maxWaitInSeconds);
+  }
+
+  /**
+   * Waits for an element that meets the condition. By default the condition is
+   * watched inside the browser and the wait returns as soon as the DOM
+   * changes to meet it, see {@link ElementWait}.
+   * 
+   * @param condition condition the element must meet
+   * @param maxWaitInSeconds max seconds to wait for the element
+   * @return the first element that met the condition
+   * @throws TimeoutException if no element met the condition in time
+   */
+  protected WebElement waitForElement(ElementCondition condition, int maxWaitInSeconds)
+  {
+    return new ElementWait(webDriver, getPollingStrategy()).until(condition, maxWaitInSeconds);
+  }
+
+  /**
+   * Waits for a composite condition, which is checked with a single script per
+   * poll. On timeout the message names the sub-condition that failed.
+   * 
+   * @param condition condition to wait for
+   * @param maxWaitInSeconds max seconds to wait for the condition
+   * @throws TimeoutException if the condition was not met in time
+   */
+  protected void waitFor(CompositeCondition condition, int maxWaitInSeconds)
+  {
+    newWait(maxWaitInSeconds).until(condition.newCheck());
   }
 
   /**
@@ -321,7 +597,7 @@ public abstract class HtmlView
    */
   protected List<WebElement> waitForPresenceOfAllElements(By by, int maxWaitInSeconds)
   {
-    return (new WebDriverWait(webDriver, maxWaitInSeconds)).until(ExpectedConditions.presenceOfAllElementsLocatedBy(by));
+    return newWait(maxWaitInSeconds).until(ExpectedConditions.presenceOfAllElementsLocatedBy(by));
   }
 
   /**
@@ -339,7 +615,7 @@ public abstract class HtmlView
    */
   protected WebElement waitForElementToBeClickable(By by, int maxWaitInSeconds)
   {
-    return (new WebDriverWait(webDriver, maxWaitInSeconds)).until(ExpectedConditions.elementToBeClickable(by));
+    return newWait(maxWaitInSeconds).until(ExpectedConditions.elementToBeClickable(by));
   }
 
   /**
@@ -381,7 +657,7 @@ public abstract class HtmlView
    */
   protected WebElement waitForExpectedCondition(ExpectedCondition<WebElement> condition, int maxWaitInSeconds)
   {
-    return (new WebDriverWait(webDriver, maxWaitInSeconds)).until(condition);
+    return newWait(maxWaitInSeconds).until(condition);
   }
 
   /**
@@ -424,7 +700,7 @@ public abstract class HtmlView
    */
   protected Boolean waitForExpectedConditionBoolean(ExpectedCondition<Boolean> condition, int maxWaitInSeconds)
   {
-    return (new WebDriverWait(webDriver, maxWaitInSeconds)).until(condition);
+    return newWait(maxWaitInSeconds).until(condition);
   }
 
   /**
@@ -460,6 +736,60 @@ public abstract class HtmlView
     return clickAndHandleAlert(elm, true, false);
   }
 
+  /**
+   * Clicks element and answers the prompt that follows with the given text.
+   * Headless browsers answer the prompt in the page, see
+   * {@link DialogCapture}.
+   * 
+   * @param elm
+   *          - web element that triggers the prompt
+   * @param response
+   *          - text to answer the prompt with
+   * @return - the message of the prompt
+   */
+  protected String clickAndAnswerPrompt(WebElement elm, String response)
+  {
+    LOG.debug("answer prompt created by clicking button {} with '{}'", elm, response);
+
+    if (getBrowser().isHeadless()) {
+      for (CapturedDialog dialog : clickAndCaptureDialogs(elm, true, response)) {
+        if (dialog.getType() == CapturedDialog.Type.PROMPT) {
+          return dialog.getMessage();
+        }
+      }
+      throw new NoAlertPresentException(String.format("No prompt found for headless browser %s!", getBrowser()));
+    }
+
+    clickElem(elm);
+    Alert alert = getBrowser().isInternetExplorer() ? waitForAlertToBePresent() : webDriver.switchTo().alert();
+    String message = alert.getText();
+    alert.sendKeys(response);
+    alert.accept();
+    return message;
+  }
+
+  /**
+   * Clicks element while the alert, confirm and prompt dialogs of the page are
+   * captured in the page instead of being shown. Works with every browser,
+   * and keeps the text of the dialogs including new lines.
+   * 
+   * @param elm
+   *          - web element that triggers the dialogs
+   * @param accept
+   *          - true to accept confirms and prompts, false to dismiss them
+   * @param promptResponses
+   *          - text the prompts answer with, in order
+   * @return the dialogs opened by the click, oldest first
+   * @see DialogCapture
+   */
+  protected List<CapturedDialog> clickAndCaptureDialogs(WebElement elm, boolean accept, String... promptResponses)
+  {
+    DialogCapture capture = new DialogCapture(webDriver);
+    capture.install(accept, promptResponses);
+    clickElem(elm);
+    return capture.take();
+  }
+
   /**
    * Clicks, then handles the resulting alert.
    * <p>
@@ -477,55 +807,27 @@ public abstract class HtmlView
 
     Browser browser = getBrowser();
 
-    // headless browsers need to inject javascript before the button is clicked
-    // to handle the alert correctly
-    if (browser.isHeadless()) {
-
-      // webDriver.manage().deleteCookieNamed(ALERT_COOKIE_NAME);
-      StringBuilder alertJs = new StringBuilder();
-
-      alertJs.append("window.alert = window.confirm = function(msg){ ")
-      // .append( "var date = new Date();")
-      // .append( "date.setDate(date.getDate() + 1);")
-
-          // cookies don't like to store new lines. This becomes a problem when
-          // taking a screenshot for HTMLUNIT, and
-          // transferring the cookie to PhantomJs.
-          // This prevents newlines from being injected into the cookie. Later
-          // on, the return string containing these
-          // newline keywords will be replaced with actual newlines.
-          .append("msg = msg.replace(/(\\r\\n|\\n|\\r)/gm, '" + ALERT_NEW_LINE_REPLACE + "');").append("document.cookie = '" + ALERT_COOKIE_NAME + "=' + msg + '';").append("return %s;").append("};");
-      executeScript(String.format(alertJs.toString(), accept));
-    }
-
-    clickElem(elm);
-
+    // headless browsers need to capture the dialogs in the page before the
+    // button is clicked to handle the alert correctly
     if (browser.isHeadless()) {
-      Cookie alertCookie = webDriver.manage().getCookieNamed(ALERT_COOKIE_NAME);
+      List<CapturedDialog> dialogs = clickAndCaptureDialogs(elm, accept);
 
-      for (Cookie cook : webDriver.manage().getCookies()) {
-        System.err.print(cook.getName());
-      }
-
-      if (alertCookie != null) {
-        // replace all newline keywords, to get original message
-        alertMsg = StringUtils.trimToNull(alertCookie.getValue());
-
-        if (alertMsg != null) alertMsg = alertMsg.replaceAll(ALERT_NEW_LINE_REPLACE, "\n");
-
-        LOG.debug("Headless browser msg: {}", alertMsg);
-      }
-      else {
-        LOG.debug("Cookie where headless alert messages are stored is null!");
-      }
-
-      if (StringUtils.isBlank(alertMsg)) {
+      if (dialogs.isEmpty()) {
         if (throwIfNoAlertPresent) {
           throw new NoAlertPresentException(String.format("No alert message found for headless browser %s!", browser));
         }
+        LOG.debug("No alert is present! return...");
+        return null;
       }
+
+      if (dialogs.size() > 1) {
+        LOG.debug("Several dialogs were opened, using the first one: {}", dialogs);
+      }
+      alertMsg = dialogs.get(0).getMessage();
+      LOG.debug("Headless browser msg: {}", alertMsg);
     }
     else {
+      clickElem(elm);
 
       Alert alert;
 
@@ -612,7 +914,7 @@ public abstract class HtmlView
    */
   protected Alert waitForAlertToBePresent()
   {
-    return new WebDriverWait(webDriver, 3).until(conditionAlertPresent);
+    return newWait(3).until(conditionAlertPresent);
   }
 
   /**
@@ -628,7 +930,7 @@ public abstract class HtmlView
   {
     // checks to see if field matches the regex
     ToggleFocusCondition fieldPopulated = new ToggleFocusCondition(regex, field, null);
-    new WebDriverWait(webDriver, seconds).withMessage(String.format("Field #%s never matched the regex: '%s", field.getAttribute("id"), regex)).until(fieldPopulated);
+    newWait(seconds).withMessage(String.format("Field #%s never matched the regex: '%s", field.getAttribute("id"), regex)).until(fieldPopulated);
   }
 
   /**
@@ -640,7 +942,8 @@ public abstract class HtmlView
    */
   protected WebElement waitForDialogToAppear(By dialogContentLocator)
   {
-    return new WebDriverWait(webDriver, 30).until(new JQueryUiDialogsCondition(dialogContentLocator));
+    ElementCondition dialogLoaded = ElementCondition.visible(By.cssSelector(".ui-dialog")).containing(dialogContentLocator).notContaining(By.className("blockUI"));
+    return waitForElement(dialogLoaded, 30);
   }
 
   /**
@@ -652,7 +955,7 @@ public abstract class HtmlView
    */
   protected void waitForElementToBeClickable(WebElement elm, int maxWaitSeconds)
   {
-    WebDriverWait wait = new WebDriverWait(webDriver, maxWaitSeconds);
+    WebDriverWait wait = newWait(maxWaitSeconds);
     wait.until(ExpectedConditions.elementToBeClickable(elm));
   }
 
@@ -680,6 +983,28 @@ public abstract class HtmlView
    *          should be true.
    */
   protected void waitForPageToLoad(boolean ignoreWebDriverException)
+  {
+    waitForPageToLoad(ignoreWebDriverException, getPageReadyCondition());
+  }
+
+  /**
+   * Waits for the page to load after an action that may have navigated away
+   * from the document the marker was planted in. The readiness of the marked
+   * document is not checked while it is unloading.
+   * 
+   * @param marker marker planted before the action, or null to just wait for
+   *          the page to load
+   */
+  protected void waitForPageToLoad(NavigationMarker marker)
+  {
+    if (marker == null) {
+      waitForPageToLoad();
+      return;
+    }
+    waitForPageToLoad(true, marker.untilReady(getPageReadyCondition()));
+  }
+
+  private void waitForPageToLoad(boolean ignoreWebDriverException, ExpectedCondition<Boolean> readyCondition)
   {
     LOG.debug("Wait for page to load..");
     String stringWaitProp = System.getProperty(WAIT_FOR_PAGE_PROP, "90");
@@ -692,13 +1017,13 @@ public abstract class HtmlView
       throw new NumberFormatException(String.format("%s, could not determine %s", e.getMessage(), WAIT_FOR_PAGE_PROP));
     }
     
-    WebDriverWait wait = new WebDriverWait(webDriver, waitProp);
+    WebDriverWait wait = newWait(waitProp);
 
     if (ignoreWebDriverException) {
       wait.ignoring(WebDriverException.class);
     }
 
-    wait.until(conditionPageLoaded); // wait for the page to load
+    wait.until(readyCondition); // wait for the page to load
   }
 
   /**
@@ -806,28 +1131,27 @@ public abstract class HtmlView
       throw new IllegalArgumentException("element and locator cannot both be used to identify window");
     }
 
-    WebDriverWait wait = new WebDriverWait(webDriver, 15);
-
-    // TODO: Nov 13, 2014 (fpedroza) - this logic is flawed as it assumes only 2
-    // windows will be open at a time
-    int windowsToWaitFor = findNewWindow ? 2 : 1;
+    WindowRegistry windows = WindowRegistry.get(webDriver);
+    List<String> candidates;
 
-    // wait for the specified number of windows to be open
-    wait.until(new MultipleWindowHandlesVisibleCondition(windowsToWaitFor));
-
-    Set<String> windowHandles = webDriver.getWindowHandles();
+    if (findNewWindow) {
+      // the windows opened since the known ones, or the other known windows
+      // if a popup was reopened in one of them
+      candidates = new ArrayList<>(newWait(15).until(windows.newWindowOpened()));
+    }
+    else {
+      candidates = windows.getSearchOrder(webDriver, pageTitle);
+    }
 
-    LOG.debug("Window handles: {}", windowHandles);
+    LOG.debug("Window handles to try: {}", candidates);
 
-    // try all windows, because I don't know if the current focused window
-    // correct, or if it is a different one
-    for (String window : windowHandles) {
+    for (String window : candidates) {
 
       LOG.debug("Switch to window '{}'", window);
       webDriver.switchTo().window(window);
 
-      // wait for switched to window to load, because it still could be in the
-      // process of loading when switching to it
+      // the window could still be in the process of loading when switching to
+      // it, even a known window may have navigated since it was verified
       waitForPageToLoad();
 
       try {
@@ -849,20 +1173,20 @@ public abstract class HtmlView
       }
 
       // optionally check that the page title is correct (if one was provided)
+      String currentPageTitle = null;
       if (pageTitle != null) {
 
-        String currentPageTitle = webDriver.getTitle();
+        currentPageTitle = webDriver.getTitle();
         if (currentPageTitle.equals(pageTitle)) {
           LOG.debug("Found correct page title!");
-          return;
         }
         else {
-          LOG.debug("Found window title of '{}' but searching for '{}' - continue", pageTitle, currentPageTitle);
+          LOG.debug("Found window title of '{}' but searching for '{}' - continue", currentPageTitle, pageTitle);
           continue;
         }
       }
 
-      // no additional check need so we're done
+      windows.verified(window, currentPageTitle);
       return;
     }
 
@@ -884,32 +1208,24 @@ public abstract class HtmlView
     Map<String, String> descriptionList = new HashMap<>(termsAndDescriptions.size());
     String term = null;
 
-    for (WebElement elt : termsAndDescriptions) // the WebElement expected is
-                                                // the array of a dl's dt/dd
-                                                // WebElements
-    {
-      String tag = elt.getTagName(); // this gets the tag type. It is expecting
-                                     // either dt or dd
-      String taggedText = elt.getText().trim(); // this gets the value that is
-                                                // tagged
+    // the elements expected are the dt/dd elements of a dl, read in one call
+    for (ElementData elt : readElements(termsAndDescriptions, ElementRead.of(ElementProperty.TAG, ElementProperty.TEXT, ElementProperty.DISPLAYED))) {
+      String tag = elt.getTagName();
+      String taggedText = getVisibleText(elt);
       LOG.debug("tag({}) text({})", tag, taggedText);
 
-      if (tag.equals("dt")) { // if tag is <dt> description list term; the "key"
-                              // in the map
+      if (tag.equals("dt")) { // description list term; the "key" in the map
         term = taggedText;
       }
-      else
-        if (tag.equals("dd")) { // if tag is <dl> description list
-                                // description/definition; the "value" in the
-                                // map
-          String previousValue = descriptionList.put(term, taggedText);
-          if (previousValue != null) {
-            throw new IllegalStateException(String.format("Unexpected condition - key (%s) with multiple values (%s) and (%s)", term, previousValue, taggedText));
-          }
-        }
-        else {
-          throw new IllegalArgumentException("Unexpected tag in description list, tag is " + tag);
+      else if (tag.equals("dd")) { // description list description; the "value" in the map
+        String previousValue = descriptionList.put(term, taggedText);
+        if (previousValue != null) {
+          throw new IllegalStateException(String.format("Unexpected condition - key (%s) with multiple values (%s) and (%s)", term, previousValue, taggedText));
         }
+      }
+      else {
+        throw new IllegalArgumentException("Unexpected tag in description list, tag is " + tag);
+      }
     }
 
     return descriptionList;
@@ -978,7 +1294,7 @@ public abstract class HtmlView
   {
     // checks to see if field matches the regex
     ToggleFocusCondition fieldPopulated = new ToggleFocusCondition(regex, field, triggerElm);
-    new WebDriverWait(webDriver, seconds).withMessage(String.format("Field #%s never matched the regex: '%s", field.getAttribute("id"), regex)).until(fieldPopulated);
+    newWait(seconds).withMessage(String.format("Field #%s never matched the regex: '%s", field.getAttribute("id"), regex)).until(fieldPopulated);
   }
 
   // TODO: Nov 4, 2014 (fpedroza) - need more/better javadoc
@@ -1034,19 +1350,24 @@ public abstract class HtmlView
   /**
    * This injects a javascript ajax listener into the current page. If the page
    * is refreshed or changed, this listener will need to be injected again.
+   * <p>
+   * JSON object responses of jQuery ajax requests are kept in the page,
+   * indexed by their top level keys, until they are taken by
+   * {@link #waitForAjaxResponse(String)}. At most
+   * <code>test.config.ajax.capture.max.bytes</code> (default 1MB) of responses
+   * are kept; the oldest are dropped first.
    */
   protected void injectAjaxListener()
   {
-    executeScript(JAVASCRIPT_AJAX_MESSAGE_ARRAY + " = new Array();" + "$( document ).ajaxSuccess(function( event, xhr, settings ) {" + "var msg = xhr.responseText;" + JAVASCRIPT_AJAX_MESSAGE_ARRAY + ".push(msg);" + "console.log(msg);" + "});");
+    executeScript(ScriptResource.load("ajax-capture.js"), "install", Integer.getInteger(AJAX_CAPTURE_MAX_BYTES, 1024 * 1024));
   }
 
   /**
-   * If multiple requests will happen on the same page, the ajax array will need
-   * to be reset to accurately obtain the expected values.
+   * Drops all of the responses captured so far.
    */
   protected void resetAjaxListenerList()
   {
-    executeScript(JAVASCRIPT_AJAX_MESSAGE_ARRAY + " = new Array();");
+    executeScript(ScriptResource.load("ajax-capture.js"), "reset");
   }
 
   /**
@@ -1059,18 +1380,9 @@ public abstract class HtmlView
    */
   protected WebElement waitForElementToAppear(final By locator)
   {
-    Wait<WebDriver> wait = new FluentWait<WebDriver>(webDriver).withTimeout(30, TimeUnit.SECONDS).pollingEvery(5, TimeUnit.SECONDS).ignoring(NoSuchElementException.class);
-
     WebElement element = null;
     try {
-      element = wait.until(new Function<WebDriver, WebElement>() {
-
-        @Override
-        public WebElement apply(WebDriver driver)
-        {
-          return driver.findElement(locator);
-        }
-      });
+      element = waitForElement(ElementCondition.present(locator), 30);
     }
     catch (TimeoutException e) {
       try {
@@ -1085,7 +1397,6 @@ public abstract class HtmlView
         // + e.getMessage(), correctErrorOutput);
         throw renamedErrorOutput;
       }
-      e.addSuppressed(e);
       throw new NoSuchElementException("Timeout reached when searching for element!", e);
     }
 
@@ -1093,42 +1404,34 @@ public abstract class HtmlView
   }
 
   /**
-   * Waits for a json response with the desired key
+   * Waits for a json response with the desired key. The key is looked up in
+   * the page and only the matching response is transferred. Every response is
+   * only returned once, so calling this again waits for the next response with
+   * the key.
    * 
    * @param key of json response to look for
    * @return {@link JSONObject} of the ajax response
+   * @throws IllegalStateException if {@link #injectAjaxListener()} was not
+   *           called on the current page
    */
   protected JSONObject waitForAjaxResponse(String key)
   {
-    WebDriverWait wait = new WebDriverWait(webDriver, 90);
-    wait.pollingEvery(1, TimeUnit.SECONDS);
-    return wait.until(new AjaxResponseOccursCondition(key));
+    return newWait(90).until(new AjaxResponseOccursCondition(key));
   }
 
   /**
-   * Exposed object to wait for page to load. Typically, use the
-   * waitForPageToLoad method instead of this one.
+   * Condition used by {@link #waitForPageToLoad(boolean)}, and so by
+   * {@link #clickAndWait(WebElement)}. Checks document.readyState by default,
+   * and optionally jQuery, in flight requests and blockUI overlays, in a
+   * single script.
+   *
+   * @return a new condition for a single wait
+   * @see PageReadyCondition#PAGE_READY_CHECKS
    */
-  private ExpectedCondition<Boolean> conditionPageLoaded = new ExpectedCondition<Boolean>() {
-
-    @Override
-    public Boolean apply(WebDriver driver)
-    {
-      // Set the state to something to be changed later
-      String state = "pre-check";
-
-      state = (String) executeScript(driver, "return document.readyState");
-      return (state == null) ? false : (state.equals("complete"));
-    }
-
-    // Used when the timeout exception is thrown.
-    // Example: Timed out after x seconds waiting for toString()
-    @Override
-    public String toString()
-    {
-      return "the page to load";
-    }
-  };
+  protected ExpectedCondition<Boolean> getPageReadyCondition()
+  {
+    return PageReadyCondition.getConfigured();
+  }
 
   /**
    * Waits for an alert dialog to appear.<br>
@@ -1174,111 +1477,25 @@ public abstract class HtmlView
     @Override
     public JSONObject apply(WebDriver driver)
     {
-      List<JSONObject> response = getResponses(driver);
+      Map<?, ?> result = (Map<?, ?>) executeScript(driver, ScriptResource.load("ajax-capture.js"), "take", key);
 
-      for (JSONObject obj : response) {
-        if (obj.has(key)) {
-          return obj;
-        }
+      if (result.get("error") != null) {
+        throw new IllegalStateException((String) result.get("error"));
       }
 
-      return null;
-    }
-
-    /**
-     * Obtains the ajax response
-     * 
-     * Note: {@link HtmlView#injectAjaxListener()} will need to be called so the
-     * listener is injected into the page.
-     * 
-     * @return a list of all of the responses obtained by the listener from the
-     *         time it was injected until the time this was called
-     */
-    private List<JSONObject> getResponses(WebDriver driver)
-    {
-      List<?> allResponses = (List<?>) executeScript(driver, String.format("return %s;", JAVASCRIPT_AJAX_MESSAGE_ARRAY));
-      List<JSONObject> listOfJson = new ArrayList<>();
-
-      StringBuilder sb = new StringBuilder();
-
-      if (allResponses != null) {
-
-        sb.append("Ajax response(s):");
-
-        for (Object o : allResponses) {
-          String response = (String) o;
-          sb.append("\n").append(response);
-          try {
-            listOfJson.add(new JSONObject(response));
-          }
-          catch (JSONException e) {
-            LOG.error("Could not create new JSON Object", e);
-          }
-        }
-
-        LOG.debug(sb.toString());
-      }
-      return listOfJson;
-    }
-
-    @Override
-    public String toString()
-    {
-      return String.format("Ajax request with json key '%s' was never found", key);
-    }
-  }
-
-  /**
-   * ExpectedCondition to wait for any current visible jquery dialogs to load.
-   * Assumes blockUI is used when dialogs are loading.
-   */
-  private class JQueryUiDialogsCondition
-      implements ExpectedCondition<WebElement>
-  {
-
-    private final By dialogContentLocator;
-
-    private WebElement dialogScope;
-
-    public JQueryUiDialogsCondition(By dialogContentLocator)
-    {
-      this.dialogContentLocator = dialogContentLocator;
-    }
-
-    @Override
-    public WebElement apply(WebDriver driver)
-    {
-      List<WebElement> allDialogs = driver.findElements(By.cssSelector(".ui-dialog"));
-
-      for (WebElement singleDialog : allDialogs) {
-        List<WebElement> dlaOrContractContact = singleDialog.findElements(dialogContentLocator);
-        if (dlaOrContractContact.size() > 0 && singleDialog.isDisplayed()) {
-          dialogScope = singleDialog;
-          break;
-        }
+      String response = (String) result.get("response");
+      if (response == null) {
+        return null;
       }
 
-      if (dialogScope != null) {
-
-        int numberOfBlocks = dialogScope.findElements(By.className("blockUI")).size();
-
-        if (numberOfBlocks == 0) {
-          LOG.debug("Dialog loaded!");
-          return dialogScope;
-        }
-        else {
-          LOG.debug("Dialog loading...");
-          return null;
-        }
-      }
-      LOG.debug("Dialog not yet present");
-      return null;
+      LOG.debug("Ajax response with key '{}': {}", key, response);
+      return new JSONObject(response);
     }
 
     @Override
     public String toString()
     {
-      return "JQueryUiDialogsCondition";
+      return String.format("Ajax request with json key '%s' was never found", key);
     }
   }
 
@@ -1330,42 +1547,6 @@ public abstract class HtmlView
     }
   }
 
-  /**
-   * Expected condition to wait for multiple window handles. Returns whether or
-   * not the specified number of window handles is currently present.
-   */
-  private class MultipleWindowHandlesVisibleCondition
-      implements ExpectedCondition<Boolean>
-  {
-
-    private final int windowsToWaitFor;
-
-    public MultipleWindowHandlesVisibleCondition(int windowsToWaitFor)
-    {
-      if (windowsToWaitFor < 1) {
-        throw new IllegalArgumentException(String.format("windowsToWaitFor(%d) must be > 1", windowsToWaitFor));
-      }
-      this.windowsToWaitFor = windowsToWaitFor;
-    }
-
-    @Override
-    public Boolean apply(WebDriver driver)
-    {
-      if (driver.getWindowHandles().size() >= windowsToWaitFor) {
-        return true;
-      }
-      return false;
-    }
-
-    // Used when the timeout exception is thrown.
-    // Example: Timed out after x seconds waiting for toString()
-    @Override
-    public String toString()
-    {
-      return String.format("MultipleWindowHandlesVisibleCondition - windowsToWaitFor:%d", windowsToWaitFor);
-    }
-  }
-
   /**
    * Helper method to wrap the click functionality. Useful when a extra step needs to be performed to ensure
    * a reliable click. For example, when dealing with a
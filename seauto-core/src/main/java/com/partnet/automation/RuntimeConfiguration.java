@@ -20,6 +20,7 @@ import java.io.File;
 
 import javax.enterprise.inject.Alternative;
 
+import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -84,15 +85,27 @@ public class RuntimeConfiguration
     return SystemPropsUtil.getRequiredProperty(URL_SYSTEM_PROPERTY_NAME);
   }
 
+  /**
+   * @return the url of the site under test, or null if it is not set
+   */
+  public String getOptionalUrl()
+  {
+    return StringUtils.trimToNull(System.getProperty(URL_SYSTEM_PROPERTY_NAME));
+  }
+
   public String getStoriesDirectory()
   {
     StringBuilder sb = new StringBuilder();
     return System.getProperty(STORIES_DIRECTORY_SYSTEM_PROPERTY_NAME, sb.append(System.getProperty("user.dir")).append(File.separator).append("target").append(File.separator).append("test-classes").append(File.separator).toString());
   }
 
+  /**
+   * @return the Firefox profile directory to use, or null to let the
+   *         FirefoxDriver create an anonymous profile
+   */
   public String getFirefoxProfileDirectory()
   {
-    return getProperty(FIREFOX_PROFILE_DIRECTORY_SYSTEM_PROPERTY_NAME);
+    return StringUtils.trimToNull(System.getProperty(FIREFOX_PROFILE_DIRECTORY_SYSTEM_PROPERTY_NAME));
   }
 
   public String getFirefoxBinaryPath()
@@ -136,9 +149,4 @@ public class RuntimeConfiguration
     return System.getProperty(AUTOMATION_CONFIG_FILENAME, AUTOMATION_DEFAULT_CONFIG_FILENAME);
   }
 
-  private String getProperty(String property)
-  {
-    return SystemPropsUtil.getRequiredProperty(property);
-  }
-
 }
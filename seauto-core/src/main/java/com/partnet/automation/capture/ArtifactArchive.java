@@ -0,0 +1,276 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.capture;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append only store for test artifacts. Instead of one file per screenshot or
+ * page source, artifacts are appended to memory mapped segment files, and an
+ * index records the test id, step, type, segment, offset and length of each
+ * artifact, along with the path the artifact would have been written to.
+ * <p>
+ * Use {@link ArtifactArchiveReader} to read artifacts back, or to extract
+ * them into the usual file layout so reports can link to them.
+ * <p>
+ * Segments are {@link #SEGMENT_SIZE_MB} large (default 64, at most 1024),
+ * larger artifacts get a segment of their own. Several JVMs, like forked
+ * surefire runs, may append to the same archive; each takes the next free
+ * segment. The archive is closed when the JVM shuts down.
+ */
+public final class ArtifactArchive
+{
+
+  private static final Logger LOG = LoggerFactory.getLogger(ArtifactArchive.class);
+
+  public static final String SEGMENT_SIZE_MB = "test.config.artifact.archive.segment.mb";
+
+  static final int MAX_SEGMENT_SIZE_MB = 1024;
+
+  static final String INDEX_FILE = "artifacts.idx";
+
+  static final String SEGMENT_FILE = "artifacts-%04d.seg";
+
+  static final char SEPARATOR = '\t';
+
+  private static final Map<String, ArtifactArchive> archives = new ConcurrentHashMap<>();
+
+  private final File directory;
+
+  private final Path baseDir = Paths.get(System.getProperty("user.dir")).toAbsolutePath();
+
+  private final FileChannel index;
+
+  private final long segmentSize;
+
+  private FileChannel segmentChannel;
+
+  private MappedByteBuffer segment;
+
+  private int segmentNumber = -1;
+
+  private boolean closed = false;
+
+  /**
+   * Get the archive stored in the given directory, creating it if needed.
+   * Archives are shared across the JVM.
+   *
+   * @param directory directory of the archive
+   * @return the archive
+   */
+  public static ArtifactArchive getInstance(File directory)
+  {
+    String key = directory.getAbsolutePath();
+    ArtifactArchive archive = archives.get(key);
+
+    if (archive == null) {
+      synchronized (archives) {
+        archive = archives.get(key);
+        if (archive == null) {
+          archive = new ArtifactArchive(directory);
+          archives.put(key, archive);
+        }
+      }
+    }
+    return archive;
+  }
+
+  private ArtifactArchive(File directory)
+  {
+    this.directory = directory;
+    this.segmentSize = (long) getSegmentSizeMb() << 20;
+
+    try {
+      Files.createDirectories(directory.toPath());
+      index = FileChannel.open(new File(directory, INDEX_FILE).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+      // never overwrite the segments of an earlier run in the same directory
+      while (new File(directory, String.format(SEGMENT_FILE, segmentNumber + 1)).exists()) {
+        segmentNumber++;
+      }
+    }
+    catch (IOException e) {
+      throw new IllegalStateException(String.format("Unable to open artifact archive '%s'", directory), e);
+    }
+
+    LOG.info("Archiving artifacts in {}", directory);
+
+    Runtime.getRuntime().addShutdownHook(new Thread("seauto-artifact-archive-close") {
+
+      @Override
+      public void run()
+      {
+        close();
+      }
+    });
+  }
+
+  /**
+   * Appends an artifact to the archive.
+   *
+   * @param testId test the artifact belongs to
+   * @param step step of the test, or null
+   * @param path path the artifact would be written to without the archive,
+   *          used to extract it again
+   * @param content the artifact
+   */
+  public synchronized void append(String testId, String step, Path path, byte[] content)
+  {
+    if (closed) {
+      throw new IllegalStateException(String.format("Artifact archive '%s' is closed", directory));
+    }
+
+    try {
+      if (segment == null || segment.remaining() < content.length) {
+        nextSegment(content.length);
+      }
+
+      int offset = segment.position();
+      segment.put(content);
+
+      String line = StringUtils.join(new Object[] { clean(testId), clean(step), getType(path), segmentNumber, offset, content.length, clean(relativize(path)) }, SEPARATOR) + "\n";
+      ByteBuffer entry = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+      while (entry.hasRemaining()) {
+        index.write(entry);
+      }
+    }
+    catch (IOException e) {
+      throw new IllegalStateException(String.format("Unable to append '%s' to artifact archive '%s'", path, directory), e);
+    }
+  }
+
+  /**
+   * @return the directory of the archive
+   */
+  public File getDirectory()
+  {
+    return directory;
+  }
+
+  /**
+   * Trims the current segment to the bytes used and closes the archive.
+   */
+  public synchronized void close()
+  {
+    if (closed) {
+      return;
+    }
+    closed = true;
+
+    try {
+      closeSegment();
+      index.close();
+    }
+    catch (IOException e) {
+      LOG.warn("Unable to close artifact archive '{}'", directory, e);
+    }
+  }
+
+  private void nextSegment(int minimumSize)
+      throws IOException
+  {
+    closeSegment();
+
+    long size = Math.max(segmentSize, minimumSize);
+    File file;
+
+    while (true) {
+      segmentNumber++;
+      file = new File(directory, String.format(SEGMENT_FILE, segmentNumber));
+
+      try {
+        segmentChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        break;
+      }
+      catch (FileAlreadyExistsException e) {
+        // another JVM appending to the same archive took this segment
+        LOG.debug("Artifact segment {} is taken, trying the next one", file);
+      }
+    }
+
+    segment = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    LOG.debug("Started artifact segment {}", file);
+  }
+
+  private void closeSegment()
+      throws IOException
+  {
+    if (segmentChannel == null) {
+      return;
+    }
+
+    int used = segment.position();
+    segment.force();
+    segment = null;
+
+    try {
+      segmentChannel.truncate(used);
+    }
+    catch (IOException e) {
+      // some platforms do not allow truncating a mapped file, the index
+      // still knows where every artifact is
+      LOG.debug("Unable to trim artifact segment", e);
+    }
+
+    segmentChannel.close();
+    segmentChannel = null;
+  }
+
+  private static int getSegmentSizeMb()
+  {
+    int sizeMb = Integer.getInteger(SEGMENT_SIZE_MB, 64);
+
+    // a mapped segment can not be larger than 2GB
+    if (sizeMb < 1 || sizeMb > MAX_SEGMENT_SIZE_MB) {
+      throw new IllegalArgumentException(String.format("%s must be between 1 and %d, but was %d", SEGMENT_SIZE_MB, MAX_SEGMENT_SIZE_MB, sizeMb));
+    }
+    return sizeMb;
+  }
+
+  private String relativize(Path path)
+  {
+    Path absolute = path.toAbsolutePath().normalize();
+    return absolute.startsWith(baseDir) ? baseDir.relativize(absolute).toString() : absolute.toString();
+  }
+
+  private static String getType(Path path)
+  {
+    String extension = StringUtils.substringAfterLast(path.getFileName().toString(), ".");
+    return StringUtils.isBlank(extension) ? "bin" : extension.toLowerCase();
+  }
+
+  private static String clean(String value)
+  {
+    return value == null ? "" : value.replace(SEPARATOR, ' ').replace('\n', ' ').replace('\r', ' ');
+  }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.capture;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the artifacts of an {@link ArtifactArchive}.
+ * <p>
+ * {@link #extract(File)} writes every artifact back to the path it would have
+ * had without the archive, so HTML reports linking to screenshots work again.
+ * It can also be run from the command line:
+ * 
+ * <pre>
+ * java com.partnet.automation.capture.ArtifactArchiveReader &lt;archive dir&gt; [&lt;output dir&gt;]
+ * </pre>
+ */
+public class ArtifactArchiveReader
+{
+
+  private static final Logger LOG = LoggerFactory.getLogger(ArtifactArchiveReader.class);
+
+  private final File directory;
+
+  private final List<Entry> entries;
+
+  /**
+   * @param directory directory of the archive
+   * @throws IOException if the index can not be read
+   */
+  public ArtifactArchiveReader(File directory)
+      throws IOException
+  {
+    this.directory = directory;
+
+    List<Entry> entries = new ArrayList<>();
+    for (String line : Files.readAllLines(new File(directory, ArtifactArchive.INDEX_FILE).toPath(), StandardCharsets.UTF_8)) {
+      if (StringUtils.isNotBlank(line)) {
+        entries.add(new Entry(StringUtils.splitPreserveAllTokens(line, ArtifactArchive.SEPARATOR)));
+      }
+    }
+    this.entries = Collections.unmodifiableList(entries);
+  }
+
+  /**
+   * @return every artifact in the archive, in the order they were added
+   */
+  public List<Entry> getEntries()
+  {
+    return entries;
+  }
+
+  /**
+   * @param testId id of the test
+   * @return the artifacts of the given test
+   */
+  public List<Entry> getEntries(String testId)
+  {
+    List<Entry> found = new ArrayList<>();
+    for (Entry entry : entries) {
+      if (entry.getTestId().equals(testId)) {
+        found.add(entry);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * @param entry artifact to read
+   * @return the content of the artifact
+   * @throws IOException if the segment can not be read
+   */
+  public byte[] read(Entry entry)
+      throws IOException
+  {
+    File segment = new File(directory, String.format(ArtifactArchive.SEGMENT_FILE, entry.getSegment()));
+
+    try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer content = ByteBuffer.allocate(entry.getLength());
+      long position = entry.getOffset();
+
+      while (content.hasRemaining()) {
+        int read = channel.read(content, position);
+        if (read < 0) {
+          throw new IOException(String.format("Artifact segment '%s' ends before '%s'", segment, entry.getPath()));
+        }
+        position += read;
+      }
+      return content.array();
+    }
+  }
+
+  /**
+   * Writes every artifact to its original path, resolved against the given
+   * directory. Later artifacts with the same path replace earlier ones.
+   *
+   * @param outputDirectory directory to resolve the artifact paths against,
+   *          usually the project directory
+   * @return the number of artifacts extracted
+   * @throws IOException if an artifact can not be written
+   */
+  public int extract(File outputDirectory)
+      throws IOException
+  {
+    for (Entry entry : entries) {
+      Path target = outputDirectory.toPath().resolve(entry.getPath());
+      Files.createDirectories(target.toAbsolutePath().getParent());
+      Files.write(target, read(entry));
+      LOG.debug("Extracted {}", target);
+    }
+    return entries.size();
+  }
+
+  public static void main(String[] args)
+      throws IOException
+  {
+    if (args.length < 1) {
+      System.err.println("Usage: ArtifactArchiveReader <archive dir> [<output dir>]");
+      System.exit(1);
+    }
+
+    File output = new File(args.length > 1 ? args[1] : System.getProperty("user.dir"));
+    int extracted = new ArtifactArchiveReader(new File(args[0])).extract(output);
+    System.out.println(String.format("Extracted %d artifact(s) to %s", extracted, output.getAbsolutePath()));
+  }
+
+  /**
+   * An artifact in the archive
+   */
+  public static class Entry
+  {
+
+    private final String testId;
+
+    private final String step;
+
+    private final String type;
+
+    private final int segment;
+
+    private final long offset;
+
+    private final int length;
+
+    private final String path;
+
+    private Entry(String[] fields)
+    {
+      if (fields.length != 7) {
+        throw new IllegalArgumentException(String.format("Invalid artifact index entry: %s", StringUtils.join(fields, ArtifactArchive.SEPARATOR)));
+      }
+
+      testId = fields[0];
+      step = fields[1];
+      type = fields[2];
+      segment = Integer.parseInt(fields[3]);
+      offset = Long.parseLong(fields[4]);
+      length = Integer.parseInt(fields[5]);
+      path = fields[6];
+    }
+
+    public String getTestId()
+    {
+      return testId;
+    }
+
+    public String getStep()
+    {
+      return step;
+    }
+
+    /**
+     * @return type of the artifact, from its file extension (png, html, ...)
+     */
+    public String getType()
+    {
+      return type;
+    }
+
+    public int getSegment()
+    {
+      return segment;
+    }
+
+    public long getOffset()
+    {
+      return offset;
+    }
+
+    public int getLength()
+    {
+      return length;
+    }
+
+    /**
+     * @return path of the artifact without the archive, relative to the
+     *         project directory when it was inside of it
+     */
+    public String getPath()
+    {
+      return path;
+    }
+
+    @Override
+    public String toString()
+    {
+      return Paths.get(path).getFileName().toString();
+    }
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.capture;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.partnet.automation.RuntimeConfiguration;
+import com.partnet.automation.selenium.DriverProvider;
+import com.partnet.automation.selenium.LifecycleDriverProvider;
+
+/**
+ * Captures test artifacts according to the {@link CapturePolicy}.
+ * <p>
+ * Call {@link #step(String)} after meaningful steps of a test; with the
+ * <code>rolling(N)</code> policy the last N steps of the calling thread are
+ * kept in memory. The framework integrations call
+ * {@link #finish(String, boolean, File)} once a test is over, which saves the
+ * artifacts the policy asks for and clears the buffer.
+ * <p>
+ * Steps are captured as screenshots, or as page source for drivers that can
+ * not take screenshots themselves, like HtmlUnit. Set {@link #CAPTURE_HTML}
+ * to true to also save the page source next to every screenshot the policy
+ * asks for, when the driver provider is a {@link LifecycleDriverProvider}.
+ */
+public class ArtifactCapture
+{
+
+  private static final Logger LOG = LoggerFactory.getLogger(ArtifactCapture.class);
+
+  public static final String CAPTURE_HTML = "test.config.capture.html";
+
+  // buffers are per thread, so any instance on the thread sees the same steps
+  private static final ThreadLocal<Deque<Artifact>> steps = new ThreadLocal<Deque<Artifact>>() {
+
+    @Override
+    protected Deque<Artifact> initialValue()
+    {
+      return new ArrayDeque<>();
+    }
+  };
+
+  private final DriverProvider driverProvider;
+
+  private final CapturePolicy policy;
+
+  public ArtifactCapture(DriverProvider driverProvider)
+  {
+    this(driverProvider, CapturePolicy.getConfigured());
+  }
+
+  public ArtifactCapture(DriverProvider driverProvider, CapturePolicy policy)
+  {
+    this.driverProvider = driverProvider;
+    this.policy = policy;
+  }
+
+  /**
+   * Records the current state of the browser as a step of the running test.
+   * Does nothing unless the policy is <code>rolling(N)</code>.
+   *
+   * @param name short description of the step
+   */
+  public void step(String name)
+  {
+    if (policy.getMode() != CapturePolicy.Mode.ROLLING) {
+      return;
+    }
+
+    Artifact artifact = capture(name);
+    if (artifact == null) {
+      return;
+    }
+
+    Deque<Artifact> buffer = steps.get();
+    buffer.addLast(artifact);
+
+    while (buffer.size() > policy.getBufferSize()) {
+      buffer.removeFirst();
+    }
+  }
+
+  /**
+   * Saves the artifacts of a finished test, based on the policy, and clears
+   * the steps recorded for the calling thread.
+   *
+   * @param testId unique name of the test, used for the file names
+   * @param failed true if the test failed
+   * @param directory where to save the artifacts
+   */
+  public void finish(String testId, boolean failed, File directory)
+  {
+    Deque<Artifact> buffer = steps.get();
+
+    try {
+      if (policy.getMode() == CapturePolicy.Mode.ROLLING && failed) {
+        int index = 1;
+        for (Artifact artifact : buffer) {
+          String fileName = String.format("%s-step%02d-%s.%s", testId, index++, artifact.name, artifact.extension);
+          ArtifactStore.save(testId, artifact.name, new File(directory, fileName).toPath(), artifact.content);
+        }
+      }
+
+      if (policy.shouldCapture(failed) && driverProvider.get() != null) {
+        String path = new File(directory, testId + ".png").getPath();
+        LOG.debug("Screenshot saved to: {}", path);
+        driverProvider.saveScreenshotAs(path);
+
+        if (Boolean.getBoolean(CAPTURE_HTML) && driverProvider instanceof LifecycleDriverProvider) {
+          ((LifecycleDriverProvider) driverProvider).saveHtml(new File(directory, testId + ".html").getPath(), RuntimeConfiguration.getInstance().getOptionalUrl());
+        }
+      }
+    }
+    finally {
+      buffer.clear();
+    }
+  }
+
+  /**
+   * @return the policy used by this capture
+   */
+  public CapturePolicy getPolicy()
+  {
+    return policy;
+  }
+
+  private Artifact capture(String name)
+  {
+    WebDriver driver = driverProvider.get();
+
+    if (driver == null) {
+      return null;
+    }
+
+    String safeName = name.replaceAll("[^A-Za-z0-9._-]+", "_");
+
+    try {
+      if (driver instanceof TakesScreenshot && !(driver instanceof HtmlUnitDriver)) {
+        return new Artifact(safeName, "png", ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES));
+      }
+      return new Artifact(safeName, "html", driver.getPageSource().getBytes(StandardCharsets.UTF_8));
+    }
+    catch (WebDriverException e) {
+      LOG.debug("Unable to capture step '{}'", name, e);
+      return null;
+    }
+  }
+
+  private static class Artifact
+  {
+
+    private final String name;
+
+    private final String extension;
+
+    private final byte[] content;
+
+    public Artifact(String name, String extension, byte[] content)
+    {
+      this.name = name;
+      this.extension = extension;
+      this.content = content;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.capture;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.partnet.automation.util.AsyncFileWriter;
+
+/**
+ * Saves test artifacts either as loose files, written in the background by
+ * the {@link AsyncFileWriter}, or into the {@link ArtifactArchive} when
+ * {@link #ARCHIVE_DIR} is set.
+ */
+public final class ArtifactStore
+{
+
+  public static final String ARCHIVE_DIR = "test.config.artifact.archive.dir";
+
+  private ArtifactStore()
+  {
+    // do nothing, only allow static access
+  }
+
+  /**
+   * @return true if artifacts are appended to an {@link ArtifactArchive}
+   */
+  public static boolean isArchiving()
+  {
+    return getArchiveDir() != null;
+  }
+
+  /**
+   * Save an artifact, using its file name as the test id.
+   *
+   * @param path where the artifact belongs
+   * @param content the artifact
+   */
+  public static void save(Path path, byte[] content)
+  {
+    save(StringUtils.substringBeforeLast(path.getFileName().toString(), "."), null, path, content);
+  }
+
+  /**
+   * Save an artifact of a test.
+   *
+   * @param testId test the artifact belongs to
+   * @param step step of the test, or null
+   * @param path where the artifact belongs
+   * @param content the artifact
+   */
+  public static void save(String testId, String step, Path path, byte[] content)
+  {
+    String archiveDir = getArchiveDir();
+
+    if (archiveDir != null) {
+      ArtifactArchive.getInstance(new File(archiveDir)).append(testId, step, path, content);
+      return;
+    }
+
+    AsyncFileWriter.getInstance().write(path, content);
+  }
+
+  private static String getArchiveDir()
+  {
+    return StringUtils.trimToNull(System.getProperty(ARCHIVE_DIR));
+  }
+}
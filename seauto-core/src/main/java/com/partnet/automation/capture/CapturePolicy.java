@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.capture;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * When artifacts (screenshots, page sources) are captured for a test. Set with
+ * {@link #CAPTURE_POLICY}:
+ * <ul>
+ * <li><code>never</code> - nothing is captured</li>
+ * <li><code>on-failure</code> (default) - a screenshot is saved when a test
+ * fails</li>
+ * <li><code>always</code> - a screenshot is saved after every test</li>
+ * <li><code>rolling(N)</code> - the last N steps are kept in memory and saved,
+ * with a final screenshot, only when a test fails</li>
+ * </ul>
+ */
+public final class CapturePolicy
+{
+
+  public static final String CAPTURE_POLICY = "test.config.capture.policy";
+
+  private static final Pattern ROLLING = Pattern.compile("rolling\\s*\\(\\s*(\\d+)\\s*\\)");
+
+  public enum Mode
+  {
+    NEVER, ON_FAILURE, ALWAYS, ROLLING
+  }
+
+  private final Mode mode;
+
+  private final int bufferSize;
+
+  private CapturePolicy(Mode mode, int bufferSize)
+  {
+    this.mode = mode;
+    this.bufferSize = bufferSize;
+  }
+
+  /**
+   * @return the policy set by {@link #CAPTURE_POLICY}
+   */
+  public static CapturePolicy getConfigured()
+  {
+    return parse(System.getProperty(CAPTURE_POLICY, "on-failure"));
+  }
+
+  /**
+   * @param policy e.g. <code>on-failure</code> or <code>rolling(5)</code>
+   * @return the parsed policy
+   */
+  public static CapturePolicy parse(String policy)
+  {
+    String normalized = StringUtils.trimToEmpty(policy).toLowerCase();
+    Matcher rolling = ROLLING.matcher(normalized);
+
+    if (rolling.matches()) {
+      int size = Integer.parseInt(rolling.group(1));
+      if (size < 1) {
+        throw new IllegalArgumentException(String.format("Rolling capture needs at least one step, was '%s'", policy));
+      }
+      return new CapturePolicy(Mode.ROLLING, size);
+    }
+
+    switch (normalized) {
+      case "never":
+        return new CapturePolicy(Mode.NEVER, 0);
+      case "on-failure":
+        return new CapturePolicy(Mode.ON_FAILURE, 0);
+      case "always":
+        return new CapturePolicy(Mode.ALWAYS, 0);
+      default:
+        throw new IllegalArgumentException(String.format("Unknown %s '%s', expected never, on-failure, always or rolling(N)", CAPTURE_POLICY, policy));
+    }
+  }
+
+  public Mode getMode()
+  {
+    return mode;
+  }
+
+  /**
+   * @return number of steps kept by the rolling mode, 0 for the other modes
+   */
+  public int getBufferSize()
+  {
+    return bufferSize;
+  }
+
+  /**
+   * @param failed true if the test failed
+   * @return true if the final screenshot of the test should be saved
+   */
+  public boolean shouldCapture(boolean failed)
+  {
+    return mode == Mode.ALWAYS || (failed && mode != Mode.NEVER);
+  }
+
+  @Override
+  public String toString()
+  {
+    return mode == Mode.ROLLING ? String.format("rolling(%d)", bufferSize) : mode.name().toLowerCase().replace('_', '-');
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.dialog;
+
+import java.util.Map;
+
+/**
+ * An alert, confirm or prompt captured by a {@link DialogCapture}.
+ */
+public final class CapturedDialog
+{
+
+  public enum Type
+  {
+    ALERT, CONFIRM, PROMPT
+  }
+
+  private final Type type;
+
+  private final String message;
+
+  private final boolean accepted;
+
+  private final String response;
+
+  CapturedDialog(Map<?, ?> dialog)
+  {
+    this.type = Type.valueOf(String.valueOf(dialog.get("type")).toUpperCase());
+    this.message = String.valueOf(dialog.get("message"));
+    this.accepted = Boolean.TRUE.equals(dialog.get("accepted"));
+    this.response = dialog.get("response") == null ? null : dialog.get("response").toString();
+  }
+
+  public Type getType()
+  {
+    return type;
+  }
+
+  /**
+   * @return message of the dialog, new lines included
+   */
+  public String getMessage()
+  {
+    return message;
+  }
+
+  /**
+   * @return true if the dialog was accepted, alerts always are
+   */
+  public boolean isAccepted()
+  {
+    return accepted;
+  }
+
+  /**
+   * @return the text a prompt answered with, null for a dismissed prompt and
+   *         other dialogs
+   */
+  public String getResponse()
+  {
+    return response;
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format("%s '%s' (%s)", type, message, accepted ? "accepted" : "dismissed");
+  }
+}
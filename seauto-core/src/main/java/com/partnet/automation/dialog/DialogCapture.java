@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.dialog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import com.partnet.automation.util.ScriptResource;
+
+/**
+ * Captures the alert, confirm and prompt dialogs of a page instead of letting
+ * the browser show them. Needed for headless browsers, which can not handle
+ * dialogs through the driver, but works with every browser that runs scripts.
+ * <p>
+ * {@link #install(boolean, String...)} replaces the dialog functions of the
+ * current document. Installing again in the same document only changes how
+ * the dialogs are answered. Dialogs opened by a document loaded afterwards
+ * are not captured until it is installed in again.
+ * <p>
+ * Captured dialogs are kept in <code>sessionStorage</code>, so a dialog
+ * answered right before a same origin navigation, e.g. a confirm on a link,
+ * can still be taken from the next document. Pages without storage keep them
+ * in an in page queue, which is lost when the page navigates.
+ */
+public class DialogCapture
+{
+
+  private final WebDriver driver;
+
+  public DialogCapture(WebDriver driver)
+  {
+    this.driver = driver;
+  }
+
+  /**
+   * Captures the dialogs of the current document.
+   *
+   * @param accept true to accept confirms and prompts, false to dismiss them
+   * @param promptResponses text the next prompts answer with, in order.
+   *          Prompts without a response answer with their default value.
+   */
+  public void install(boolean accept, String... promptResponses)
+  {
+    ((JavascriptExecutor) driver).executeScript(ScriptResource.load("dialog-capture.js"), "install", accept, Arrays.asList(promptResponses));
+  }
+
+  /**
+   * Removes the captured dialogs from the storage and the in page queue with
+   * a single script.
+   *
+   * @return the dialogs captured since the last call, oldest first
+   */
+  public List<CapturedDialog> take()
+  {
+    Object result = ((JavascriptExecutor) driver).executeScript(ScriptResource.load("dialog-capture.js"), "take");
+    List<CapturedDialog> dialogs = new ArrayList<>();
+
+    // the document was replaced since the install and nothing was stored
+    if (result == null) {
+      return dialogs;
+    }
+
+    for (Object dialog : (List<?>) result) {
+      dialogs.add(new CapturedDialog((Map<?, ?>) dialog));
+    }
+    return dialogs;
+  }
+}
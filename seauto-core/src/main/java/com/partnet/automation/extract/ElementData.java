@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.extract;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openqa.selenium.WebElement;
+
+/**
+ * Properties of a single element read by an {@link ElementReader}. Properties
+ * that were not part of the {@link ElementRead} are null.
+ */
+public final class ElementData
+{
+
+  private final WebElement element;
+
+  private final String text;
+
+  private final String value;
+
+  private final String tagName;
+
+  private final Boolean displayed;
+
+  private final Map<String, String> attributes;
+
+  ElementData(Map<?, ?> data)
+  {
+    this.element = (WebElement) data.get("element");
+    this.text = (String) data.get("text");
+    this.value = (String) data.get("value");
+    this.tagName = (String) data.get("tag");
+    this.displayed = (Boolean) data.get("displayed");
+
+    Map<String, String> attributeValues = new HashMap<>();
+    Map<?, ?> scriptAttributes = (Map<?, ?>) data.get("attributes");
+
+    if (scriptAttributes != null) {
+      for (Map.Entry<?, ?> entry : scriptAttributes.entrySet()) {
+        attributeValues.put((String) entry.getKey(), entry.getValue() == null ? null : entry.getValue().toString());
+      }
+    }
+    this.attributes = Collections.unmodifiableMap(attributeValues);
+  }
+
+  /**
+   * @return the element the data was read from
+   */
+  public WebElement getElement()
+  {
+    return element;
+  }
+
+  public String getText()
+  {
+    return text;
+  }
+
+  public String getValue()
+  {
+    return value;
+  }
+
+  public String getTagName()
+  {
+    return tagName;
+  }
+
+  public Boolean isDisplayed()
+  {
+    return displayed;
+  }
+
+  /**
+   * @param name name of an attribute that was read
+   * @return value of the attribute, null if the element does not have it
+   */
+  public String getAttribute(String name)
+  {
+    return attributes.get(name);
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format("<%s> text: '%s', value: '%s', displayed: %s, attributes: %s", tagName, text, value, displayed, attributes);
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.extract;
+
+/**
+ * Properties an {@link ElementReader} can read from every element.
+ */
+public enum ElementProperty
+{
+  /**
+   * Rendered text of the element, trimmed. Read as <code>innerText</code>,
+   * or <code>textContent</code> with collapsed white space where the browser
+   * has no <code>innerText</code>; unlike {@link org.openqa.selenium.WebElement#getText()}
+   * the text of hidden elements is not blanked.
+   */
+  TEXT,
+  /** The value property, e.g. of inputs and options; null if there is none */
+  VALUE,
+  /** Lower case tag name */
+  TAG,
+  /** Whether the element is drawn on the page */
+  DISPLAYED
+}
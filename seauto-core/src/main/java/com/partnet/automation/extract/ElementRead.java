@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.extract;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Describes what an {@link ElementReader} reads from every element, e.g.
+ * <pre>
+ * ElementRead.of(ElementProperty.TEXT).withAttributes("href");
+ * </pre>
+ */
+public final class ElementRead
+{
+
+  private final Set<ElementProperty> properties;
+
+  private final List<String> attributes;
+
+  private ElementRead(Set<ElementProperty> properties, List<String> attributes)
+  {
+    this.properties = properties;
+    this.attributes = attributes;
+  }
+
+  /**
+   * @param properties properties to read
+   * @return read of the given properties
+   */
+  public static ElementRead of(ElementProperty... properties)
+  {
+    Set<ElementProperty> set = EnumSet.noneOf(ElementProperty.class);
+    set.addAll(Arrays.asList(properties));
+    return new ElementRead(Collections.unmodifiableSet(set), Collections.<String> emptyList());
+  }
+
+  /**
+   * @param names attributes to read as well
+   * @return new read with the attributes added
+   */
+  public ElementRead withAttributes(String... names)
+  {
+    List<String> all = new ArrayList<>(attributes);
+    all.addAll(Arrays.asList(names));
+    return new ElementRead(properties, Collections.unmodifiableList(all));
+  }
+
+  public Set<ElementProperty> getProperties()
+  {
+    return properties;
+  }
+
+  public List<String> getAttributes()
+  {
+    return attributes;
+  }
+
+  Map<String, Object> toScript()
+  {
+    List<String> names = new ArrayList<>();
+    for (ElementProperty property : properties) {
+      names.add(property.name());
+    }
+
+    Map<String, Object> spec = new HashMap<>();
+    spec.put("properties", names);
+    spec.put("attributes", attributes);
+    return spec;
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.extract;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import com.partnet.automation.util.ScriptResource;
+import com.partnet.automation.wait.ScriptLocator;
+
+/**
+ * Reads properties of many elements with a single script, instead of one
+ * driver call per element and property.
+ * <p>
+ * Elements are either given, or found by a locator in the browser. Locators
+ * that {@link ScriptLocator} can not translate are found through the driver
+ * first, which costs one more call.
+ */
+public class ElementReader
+{
+
+  private final WebDriver driver;
+
+  public ElementReader(WebDriver driver)
+  {
+    this.driver = driver;
+  }
+
+  /**
+   * @param locator locator of the elements, searched in the whole page
+   * @param read what to read
+   * @return data of every element found, in document order
+   */
+  public List<ElementData> read(By locator, ElementRead read)
+  {
+    return read(null, locator, read);
+  }
+
+  /**
+   * @param context element to search in, null for the whole page
+   * @param locator locator of the elements, relative to the context
+   * @param read what to read
+   * @return data of every element found, in document order
+   */
+  public List<ElementData> read(WebElement context, By locator, ElementRead read)
+  {
+    Map<String, String> scriptLocator = ScriptLocator.toScript(locator);
+
+    if (scriptLocator == null) {
+      SearchContext searchContext = (context == null) ? driver : context;
+      return read(searchContext.findElements(locator), read);
+    }
+
+    return toData(execute(read, Collections.<WebElement> emptyList(), context, scriptLocator));
+  }
+
+  /**
+   * @param elements elements to read
+   * @param read what to read
+   * @return data of the elements, in the same order
+   */
+  public List<ElementData> read(List<WebElement> elements, ElementRead read)
+  {
+    if (elements.isEmpty()) {
+      return new ArrayList<>();
+    }
+    return toData(execute(read, elements, null, Collections.<String, String> emptyMap()));
+  }
+
+  private Object execute(ElementRead read, List<WebElement> elements, WebElement context, Map<String, String> locator)
+  {
+    // drivers do not accept null arguments
+    Object scriptContext = (context == null) ? Boolean.FALSE : context;
+    return ((JavascriptExecutor) driver).executeScript(ScriptResource.load("read-elements.js"), read.toScript(), elements, scriptContext, locator);
+  }
+
+  private static List<ElementData> toData(Object result)
+  {
+    List<ElementData> data = new ArrayList<>();
+
+    for (Object element : (List<?>) result) {
+      data.add(new ElementData((Map<?, ?>) element));
+    }
+    return data;
+  }
+}
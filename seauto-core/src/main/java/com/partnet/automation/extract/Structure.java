@@ -0,0 +1,174 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.extract;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.openqa.selenium.WebElement;
+
+/**
+ * Describes a structure on the page that a {@link StructureExtractor} reads
+ * into {@link TableData}:
+ * <ul>
+ * <li>{@link #table(WebElement)} - headers come from the thead, or from a
+ * first row of only th cells, otherwise they are named <code>column1</code>,
+ * <code>column2</code>, etc.. Cells spanning several columns repeat their
+ * text in each column; row spans are not expanded.</li>
+ * <li>{@link #descriptionList(WebElement)} - one row per dd, with the columns
+ * <code>term</code> and <code>description</code></li>
+ * <li>{@link #list(WebElement)} - one row per li of a ul/ol, with the column
+ * <code>text</code></li>
+ * <li>{@link #cards(WebElement, String)} - one row per repeated card, with a
+ * column per {@link #field(String, String)}</li>
+ * </ul>
+ * {@link #withAttributes(String...)} adds a column
+ * <code>&lt;column&gt;@&lt;attribute&gt;</code> for every column and
+ * attribute, read from the cell or its first descendant with the attribute,
+ * e.g. <code>Name@href</code> for links in a table.
+ * <p>
+ * Structures are immutable, {@link #field(String, String)} and
+ * {@link #withAttributes(String...)} return a new structure.
+ */
+public final class Structure
+{
+
+  private final String kind;
+
+  private final WebElement root;
+
+  private final String cardSelector;
+
+  private final List<List<String>> fields;
+
+  private final List<String> attributes;
+
+  private Structure(String kind, WebElement root, String cardSelector)
+  {
+    this(kind, Objects.requireNonNull(root, "root cannot be null"), cardSelector, Collections.<List<String>> emptyList(), Collections.<String> emptyList());
+  }
+
+  private Structure(String kind, WebElement root, String cardSelector, List<List<String>> fields, List<String> attributes)
+  {
+    this.kind = kind;
+    this.root = root;
+    this.cardSelector = cardSelector;
+    this.fields = fields;
+    this.attributes = attributes;
+  }
+
+  /**
+   * @param table a table element
+   * @return structure of the table rows
+   */
+  public static Structure table(WebElement table)
+  {
+    return new Structure("table", table, null);
+  }
+
+  /**
+   * @param dl a dl element
+   * @return structure of the term and description pairs
+   */
+  public static Structure descriptionList(WebElement dl)
+  {
+    return new Structure("dl", dl, null);
+  }
+
+  /**
+   * @param list a ul or ol element
+   * @return structure of the list items
+   */
+  public static Structure list(WebElement list)
+  {
+    return new Structure("list", list, null);
+  }
+
+  /**
+   * @param container element holding the cards
+   * @param cardSelector CSS selector of every card, relative to the container
+   * @return structure of the cards, add the columns with
+   *         {@link #field(String, String)}
+   */
+  public static Structure cards(WebElement container, String cardSelector)
+  {
+    return new Structure("cards", container, Objects.requireNonNull(cardSelector, "cardSelector cannot be null"));
+  }
+
+  /**
+   * Adds a column to a cards structure.
+   *
+   * @param name name of the column
+   * @param selector CSS selector of the field, relative to the card. The text
+   *          of the first match is used, or of the card itself if null.
+   * @return new structure with the column added
+   */
+  public Structure field(String name, String selector)
+  {
+    if (cardSelector == null) {
+      throw new IllegalStateException(String.format("Fields can only be added to cards, not a %s", kind));
+    }
+    List<List<String>> all = new ArrayList<>(fields);
+    // drivers do not accept null script arguments, the script treats blank as the card itself
+    all.add(Arrays.asList(Objects.requireNonNull(name, "name cannot be null"), selector == null ? "" : selector));
+    return new Structure(kind, root, cardSelector, Collections.unmodifiableList(all), attributes);
+  }
+
+  /**
+   * @param names attributes to read for every column
+   * @return new structure with the attributes added
+   */
+  public Structure withAttributes(String... names)
+  {
+    List<String> all = new ArrayList<>(attributes);
+    all.addAll(Arrays.asList(names));
+    return new Structure(kind, root, cardSelector, fields, Collections.unmodifiableList(all));
+  }
+
+  WebElement getRoot()
+  {
+    return root;
+  }
+
+  Map<String, Object> toScript()
+  {
+    if (cardSelector != null && fields.isEmpty()) {
+      throw new IllegalStateException("Cards need at least one field");
+    }
+
+    Map<String, Object> spec = new HashMap<>();
+    spec.put("kind", kind);
+    spec.put("attributes", attributes);
+
+    if (cardSelector != null) {
+      spec.put("card", cardSelector);
+      spec.put("fields", fields);
+    }
+    return spec;
+  }
+
+  @Override
+  public String toString()
+  {
+    return cardSelector == null ? kind : String.format("cards '%s'", cardSelector);
+  }
+}
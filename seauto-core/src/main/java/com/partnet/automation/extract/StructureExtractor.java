@@ -0,0 +1,151 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.extract;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import com.partnet.automation.util.ScriptResource;
+
+/**
+ * Reads tables, description lists, lists and repeated cards into
+ * {@link TableData} with a single script per call, instead of a driver call
+ * per cell.
+ * <p>
+ * Very large structures can be read a page at a time with
+ * {@link #extract(Structure, int, int)} or {@link #pages(Structure, int)},
+ * so only one page of rows is transferred and held at a time.
+ *
+ * @see Structure
+ */
+public class StructureExtractor
+{
+
+  private final WebDriver driver;
+
+  public StructureExtractor(WebDriver driver)
+  {
+    this.driver = driver;
+  }
+
+  /**
+   * @param structure structure to read
+   * @return all of the rows of the structure
+   */
+  public TableData extract(Structure structure)
+  {
+    return toTable(execute(structure, 0, -1, -1), 0);
+  }
+
+  /**
+   * @param structure structure to read
+   * @param offset index of the first row to read
+   * @param limit max number of rows to read
+   * @return the rows of the page
+   */
+  public TableData extract(Structure structure, int offset, int limit)
+  {
+    if (offset < 0 || limit < 1) {
+      throw new IllegalArgumentException(String.format("Invalid page: offset %d must not be negative and limit %d must be at least 1", offset, limit));
+    }
+    return toTable(execute(structure, offset, limit, -1), offset);
+  }
+
+  /**
+   * Reads the structure a page at a time. Every page is read when the
+   * iteration gets to it, and only the rows of the page are read by the
+   * script.
+   *
+   * @param structure structure to read
+   * @param pageSize max number of rows per page
+   * @return the pages of the structure
+   */
+  public Iterable<TableData> pages(final Structure structure, final int pageSize)
+  {
+    if (pageSize < 1) {
+      throw new IllegalArgumentException(String.format("Page size must be at least 1, was %d", pageSize));
+    }
+
+    return new Iterable<TableData>() {
+
+      @Override
+      public Iterator<TableData> iterator()
+      {
+        return new Iterator<TableData>() {
+
+          private int offset = 0;
+
+          // unknown until the first page is read
+          private int totalRows = -1;
+
+          private int columns = -1;
+
+          @Override
+          public boolean hasNext()
+          {
+            return totalRows < 0 || offset < totalRows;
+          }
+
+          @Override
+          public TableData next()
+          {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            // later pages reuse the column count of the first one, so the
+            // script does not need to look at every row again
+            Map<String, Object> result = execute(structure, offset, pageSize, columns);
+            TableData page = toTable(result, offset);
+            totalRows = page.getTotalRows();
+            columns = ((Number) result.get("columns")).intValue();
+            offset += pageSize;
+            return page;
+          }
+
+          @Override
+          public void remove()
+          {
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> execute(Structure structure, int offset, int limit, int columns)
+  {
+    return (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(ScriptResource.load("extract-structure.js"), structure.toScript(), structure.getRoot(), offset, limit, columns);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static TableData toTable(Map<String, Object> result, int offset)
+  {
+    List<String> headers = new ArrayList<>();
+    for (Object header : (List<?>) result.get("headers")) {
+      headers.add(header.toString());
+    }
+
+    return new TableData(headers, (List<List<?>>) result.get("rows"), offset, ((Number) result.get("total")).intValue());
+  }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.extract;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Rows read by a {@link StructureExtractor}, or a page of them.
+ * <p>
+ * The rows are kept as the lists of cell values the browser returned. The
+ * {@link #asMaps()} and {@link #getColumn(String)} views are created on
+ * access, so a large table does not cost a map per row unless it is used
+ * that way. Missing cells are null.
+ */
+public final class TableData
+{
+
+  private final List<String> headers;
+
+  private final List<? extends List<?>> rows;
+
+  private final Map<String, Integer> headerIndex = new HashMap<>();
+
+  private final int offset;
+
+  private final int totalRows;
+
+  TableData(List<String> headers, List<? extends List<?>> rows, int offset, int totalRows)
+  {
+    this.headers = Collections.unmodifiableList(headers);
+    this.rows = rows;
+    this.offset = offset;
+    this.totalRows = totalRows;
+
+    // with duplicate headers the first column wins
+    for (int i = headers.size() - 1; i >= 0; i--) {
+      headerIndex.put(headers.get(i), i);
+    }
+  }
+
+  public List<String> getHeaders()
+  {
+    return headers;
+  }
+
+  /**
+   * @return number of rows held by this data
+   */
+  public int size()
+  {
+    return rows.size();
+  }
+
+  /**
+   * @return index of the first row held, within the whole structure
+   */
+  public int getOffset()
+  {
+    return offset;
+  }
+
+  /**
+   * @return number of rows in the whole structure, which is more than
+   *         {@link #size()} for a page
+   */
+  public int getTotalRows()
+  {
+    return totalRows;
+  }
+
+  /**
+   * @param row index of the row within this data
+   * @param column index of the column
+   * @return value of the cell
+   */
+  public String get(int row, int column)
+  {
+    List<?> cells = rows.get(row);
+    Object value = column < cells.size() ? cells.get(column) : null;
+    // HtmlUnit returns script strings as CharSequences other than String
+    return value == null ? null : value.toString();
+  }
+
+  /**
+   * @param row index of the row within this data
+   * @param header header of the column
+   * @return value of the cell
+   * @throws IllegalArgumentException if there is no column with the header
+   */
+  public String get(int row, String header)
+  {
+    return get(row, indexOf(header));
+  }
+
+  /**
+   * @param header header of the column
+   * @return the values of the column, top to bottom
+   * @throws IllegalArgumentException if there is no column with the header
+   */
+  public List<String> getColumn(String header)
+  {
+    final int column = indexOf(header);
+
+    return new AbstractList<String>() {
+
+      @Override
+      public String get(int row)
+      {
+        return TableData.this.get(row, column);
+      }
+
+      @Override
+      public int size()
+      {
+        return rows.size();
+      }
+    };
+  }
+
+  /**
+   * @return the rows as maps of header to cell value
+   */
+  public List<Map<String, String>> asMaps()
+  {
+    return new AbstractList<Map<String, String>>() {
+
+      @Override
+      public Map<String, String> get(int row)
+      {
+        return new RowMap(row);
+      }
+
+      @Override
+      public int size()
+      {
+        return rows.size();
+      }
+    };
+  }
+
+  private int indexOf(String header)
+  {
+    Integer column = headerIndex.get(header);
+
+    if (column == null) {
+      throw new IllegalArgumentException(String.format("No column '%s', the columns are %s", header, headers));
+    }
+    return column;
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format("%s rows %d-%d of %d", headers, offset, offset + rows.size(), totalRows);
+  }
+
+  /**
+   * Read only map view of a single row
+   */
+  private class RowMap
+      extends AbstractMap<String, String>
+  {
+
+    private final int row;
+
+    public RowMap(int row)
+    {
+      this.row = row;
+    }
+
+    @Override
+    public String get(Object key)
+    {
+      Integer column = headerIndex.get(key);
+      return column == null ? null : TableData.this.get(row, column);
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+      return headerIndex.containsKey(key);
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet()
+    {
+      return new AbstractSet<Map.Entry<String, String>>() {
+
+        @Override
+        public Iterator<Map.Entry<String, String>> iterator()
+        {
+          return new Iterator<Map.Entry<String, String>>() {
+
+            private int column = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+              // skip the columns hidden by an earlier column with the same header
+              while (column < headers.size() && headerIndex.get(headers.get(column)) != column) {
+                column++;
+              }
+              return column < headers.size();
+            }
+
+            @Override
+            public Map.Entry<String, String> next()
+            {
+              if (!hasNext()) {
+                throw new NoSuchElementException();
+              }
+              String header = headers.get(column);
+              String value = TableData.this.get(row, column++);
+              return new AbstractMap.SimpleImmutableEntry<>(header, value);
+            }
+
+            @Override
+            public void remove()
+            {
+              throw new UnsupportedOperationException();
+            }
+          };
+        }
+
+        @Override
+        public int size()
+        {
+          return headerIndex.size();
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.form;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.partnet.automation.util.ScriptResource;
+import com.partnet.automation.wait.ScriptLocator;
+
+/**
+ * Fills many form fields at once, instead of reading, clicking, clearing,
+ * typing and reading back every field on its own.
+ * <p>
+ * With the {@link Strategy#SCRIPT} strategy all text fields and single selects
+ * are set by one script, which fires the <code>input</code>,
+ * <code>change</code> and <code>blur</code> events a user would cause. Selects
+ * get the first enabled option with the visible text. With
+ * {@link Strategy#NATIVE} every field is typed into with <code>sendKeys</code>.
+ * Either way all of the fields are read back with one script, selects by the
+ * visible text of the selected option, and only the fields that do not hold
+ * the expected value are typed into (again).
+ * <p>
+ * Fields the script can not set, like checkboxes, multi-selects or values
+ * longer than the field's maxlength, always end up being typed into. Override
+ * {@link #click(WebElement)} to change how a field is clicked before typing.
+ */
+public class FormFiller
+{
+
+  private static final Logger LOG = LoggerFactory.getLogger(FormFiller.class);
+
+  /**
+   * Default strategy, <code>script</code> or <code>native</code>
+   */
+  public static final String FILL_STRATEGY = "test.config.form.fill.strategy";
+
+  public enum Strategy
+  {
+    NATIVE, SCRIPT
+  }
+
+  private final WebDriver driver;
+
+  public FormFiller(WebDriver driver)
+  {
+    this.driver = driver;
+  }
+
+  /**
+   * @return the strategy set by {@link #FILL_STRATEGY}, script by default
+   */
+  public static Strategy getConfiguredStrategy()
+  {
+    String strategy = StringUtils.trimToNull(System.getProperty(FILL_STRATEGY));
+
+    if (strategy == null) {
+      return Strategy.SCRIPT;
+    }
+
+    try {
+      return Strategy.valueOf(strategy.toUpperCase());
+    }
+    catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(String.format("Unknown %s '%s', expected script or native", FILL_STRATEGY, strategy), e);
+    }
+  }
+
+  /**
+   * Sets the value of every field.
+   *
+   * @param values locator of every field to the value to set, filled in
+   *          iteration order. A null value clears the field.
+   * @param strategy how to set the values
+   * @return the fields that still do not hold the value set, mapped to the
+   *         value they hold. Empty if every field was filled.
+   * @throws NoSuchElementException if a field can not be found
+   */
+  public Map<By, String> fill(Map<By, String> values, Strategy strategy)
+  {
+    List<By> locators = new ArrayList<>(values.keySet());
+    List<String> expected = new ArrayList<>();
+    List<Object> fields = new ArrayList<>();
+
+    for (By locator : locators) {
+      String value = values.get(locator);
+      expected.add(value == null ? "" : value);
+
+      Map<String, String> scriptLocator = ScriptLocator.toScript(locator);
+      fields.add(scriptLocator == null ? driver.findElement(locator) : scriptLocator);
+    }
+
+    List<Map<?, ?>> fieldStates;
+
+    if (strategy == Strategy.SCRIPT) {
+      fieldStates = execute(locators, fields, expected);
+    }
+    else {
+      fieldStates = execute(locators, fields, Collections.<String> emptyList());
+      List<Object> elements = new ArrayList<>();
+      for (int i = 0; i < fieldStates.size(); i++) {
+        type(fieldStates.get(i), expected.get(i));
+        elements.add(fieldStates.get(i).get("element"));
+      }
+      fieldStates = execute(locators, elements, Collections.<String> emptyList());
+    }
+
+    // type into the fields that did not end up with the expected value
+    List<By> retryLocators = new ArrayList<>();
+    List<Object> retryElements = new ArrayList<>();
+    List<String> retryValues = new ArrayList<>();
+
+    for (int i = 0; i < locators.size(); i++) {
+      Object actual = fieldStates.get(i).get("value");
+
+      if (!expected.get(i).equals(actual == null ? null : actual.toString())) {
+        LOG.debug("Field {} was '{}' instead of '{}', type the value", locators.get(i), actual, expected.get(i));
+        type(fieldStates.get(i), expected.get(i));
+        retryLocators.add(locators.get(i));
+        retryElements.add(fieldStates.get(i).get("element"));
+        retryValues.add(expected.get(i));
+      }
+    }
+
+    Map<By, String> unfilled = new LinkedHashMap<>();
+
+    if (retryLocators.isEmpty()) {
+      return unfilled;
+    }
+
+    List<Map<?, ?>> retryStates = execute(retryLocators, retryElements, Collections.<String> emptyList());
+
+    for (int i = 0; i < retryLocators.size(); i++) {
+      Object actual = retryStates.get(i).get("value");
+      String actualValue = actual == null ? null : actual.toString();
+
+      if (!retryValues.get(i).equals(actualValue)) {
+        LOG.warn("Field {} was not set to '{}' but actually '{}'", retryLocators.get(i), retryValues.get(i), actualValue);
+        unfilled.put(retryLocators.get(i), actualValue);
+      }
+    }
+    return unfilled;
+  }
+
+  private void type(Map<?, ?> fieldState, String value)
+  {
+    WebElement element = (WebElement) fieldState.get("element");
+
+    // click first, as suggested in
+    // http://stackoverflow.com/questions/20936403/sendkeys-are-not-working-in-selenium-webdriver
+    click(element);
+    // only text fields can be cleared, typing picks the option of a select
+    if (Boolean.TRUE.equals(fieldState.get("text"))) {
+      element.clear();
+    }
+    element.sendKeys(value);
+  }
+
+  /**
+   * Clicks a field before it is typed into.
+   *
+   * @param element field to click
+   */
+  protected void click(WebElement element)
+  {
+    element.click();
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Map<?, ?>> execute(List<By> locators, List<Object> fields, List<String> values)
+  {
+    List<Map<?, ?>> states = (List<Map<?, ?>>) ((JavascriptExecutor) driver).executeScript(ScriptResource.load("fill-form.js"), fields, values);
+
+    for (int i = 0; i < states.size(); i++) {
+      if (Boolean.TRUE.equals(states.get(i).get("missing"))) {
+        throw new NoSuchElementException(String.format("Unable to find form field %s", locators.get(i)));
+      }
+    }
+    return states;
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.form;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+import org.openqa.selenium.ElementNotVisibleException;
+import org.openqa.selenium.InvalidElementStateException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.Select;
+import org.openqa.selenium.support.ui.UnexpectedTagNameException;
+
+import com.partnet.automation.util.ScriptResource;
+
+/**
+ * Selects and reads the options of a select with a single script, where
+ * {@link Select} reads every option over the wire. The script fires the
+ * <code>input</code> and <code>change</code> events when the selection
+ * changes, and returns the options selected afterwards.
+ * <p>
+ * Options are matched by their visible text with white space normalized, or
+ * by their value. A single select ends up with the first matching option,
+ * where {@link Select} leaves the last one selected, and a multi-select with
+ * all of them. Like a user, disabled options are skipped and the options of a
+ * disabled or hidden select can not be selected.
+ * <p>
+ * The script only fires <code>input</code> and <code>change</code>, no focus,
+ * click or blur events, so the HtmlView select helpers use it only when
+ * {@link #SELECT_MODE} is <code>script</code>.
+ */
+public class OptionSelector
+{
+
+  /**
+   * Mode of the HtmlView select helpers, <code>native</code> for
+   * {@link Select} (default) or <code>script</code>
+   */
+  public static final String SELECT_MODE = "test.config.select.mode";
+
+  public enum Mode
+  {
+    NATIVE, SCRIPT
+  }
+
+  private final WebDriver driver;
+
+  public OptionSelector(WebDriver driver)
+  {
+    this.driver = driver;
+  }
+
+  /**
+   * @return the mode set by {@link #SELECT_MODE}, native by default
+   */
+  public static Mode getConfiguredMode()
+  {
+    String mode = StringUtils.trimToNull(System.getProperty(SELECT_MODE));
+
+    if (mode == null) {
+      return Mode.NATIVE;
+    }
+
+    try {
+      return Mode.valueOf(mode.toUpperCase());
+    }
+    catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(String.format("Unknown %s '%s', expected script or native", SELECT_MODE, mode), e);
+    }
+  }
+
+  /**
+   * Adds the options with the visible text to the selection.
+   *
+   * @param select select element
+   * @param text visible text of the option
+   * @return the selected options afterwards
+   * @throws NoSuchElementException if no option has the text
+   * @throws InvalidElementStateException if only disabled options have it,
+   *           or the select is disabled
+   * @throws ElementNotVisibleException if the select is not displayed
+   */
+  public List<SelectedOption> selectByVisibleText(WebElement select, String text)
+  {
+    return execute(select, "text", Arrays.asList(text), false);
+  }
+
+  /**
+   * Adds the options with the value to the selection.
+   *
+   * @param select select element
+   * @param value value of the option
+   * @return the selected options afterwards
+   * @throws NoSuchElementException if no option has the value
+   * @throws InvalidElementStateException if only disabled options have it,
+   *           or the select is disabled
+   * @throws ElementNotVisibleException if the select is not displayed
+   */
+  public List<SelectedOption> selectByValue(WebElement select, String value)
+  {
+    return execute(select, "value", Arrays.asList(value), false);
+  }
+
+  /**
+   * Selects exactly the options with the visible texts of a multi-select.
+   *
+   * @param select multi-select element
+   * @param texts visible texts of the options
+   * @return the selected options afterwards
+   * @throws NoSuchElementException if no option has one of the texts, the
+   *           selection is not changed then
+   * @throws InvalidElementStateException if only disabled options have one
+   *           of them, or the select is disabled
+   * @throws ElementNotVisibleException if the select is not displayed
+   * @throws IllegalArgumentException if several are given for a single select
+   */
+  public List<SelectedOption> selectAllByVisibleText(WebElement select, List<String> texts)
+  {
+    return execute(select, "text", texts, true);
+  }
+
+  /**
+   * Selects exactly the options with the values of a multi-select.
+   *
+   * @param select multi-select element
+   * @param values values of the options
+   * @return the selected options afterwards
+   * @throws NoSuchElementException if no option has one of the values, the
+   *           selection is not changed then
+   * @throws InvalidElementStateException if only disabled options have one
+   *           of them, or the select is disabled
+   * @throws ElementNotVisibleException if the select is not displayed
+   * @throws IllegalArgumentException if several are given for a single select
+   */
+  public List<SelectedOption> selectAllByValue(WebElement select, List<String> values)
+  {
+    return execute(select, "value", values, true);
+  }
+
+  /**
+   * @param select select element
+   * @return the selected options
+   */
+  public List<SelectedOption> getSelected(WebElement select)
+  {
+    return execute(select, "none", Collections.<String> emptyList(), false);
+  }
+
+  private List<SelectedOption> execute(WebElement select, String match, List<String> keys, boolean replace)
+  {
+    Map<?, ?> result = (Map<?, ?>) ((JavascriptExecutor) driver).executeScript(ScriptResource.load("select-options.js"), select, match, keys, replace);
+
+    if (result.containsKey("tag")) {
+      throw new UnexpectedTagNameException("select", String.valueOf(result.get("tag")));
+    }
+    if (result.containsKey("single")) {
+      throw new IllegalArgumentException(String.format("Only a multi-select can select several options: %s", keys));
+    }
+    if (result.containsKey("hidden")) {
+      throw new ElementNotVisibleException("You may not select an option of a select that is not displayed");
+    }
+    if (result.containsKey("disabledSelect")) {
+      throw new InvalidElementStateException("You may not select an option of a disabled select");
+    }
+    if (result.containsKey("missing")) {
+      throw new NoSuchElementException(String.format("Cannot locate option with %s: %s", match, result.get("missing")));
+    }
+    if (result.containsKey("disabled")) {
+      throw new InvalidElementStateException(String.format("You may not select a disabled option with %s: %s", match, result.get("disabled")));
+    }
+
+    List<SelectedOption> selected = new ArrayList<>();
+    for (Object option : (List<?>) result.get("selected")) {
+      selected.add(new SelectedOption((Map<?, ?>) option));
+    }
+    return selected;
+  }
+}
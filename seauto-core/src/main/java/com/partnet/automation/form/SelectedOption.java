@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.form;
+
+import java.util.Map;
+
+/**
+ * An option of a select, as read by an {@link OptionSelector}.
+ */
+public final class SelectedOption
+{
+
+  private final String text;
+
+  private final String value;
+
+  private final int index;
+
+  SelectedOption(Map<?, ?> option)
+  {
+    this.text = String.valueOf(option.get("text"));
+    this.value = String.valueOf(option.get("value"));
+    this.index = ((Number) option.get("index")).intValue();
+  }
+
+  /**
+   * @return visible text of the option, with white space normalized
+   */
+  public String getText()
+  {
+    return text;
+  }
+
+  public String getValue()
+  {
+    return value;
+  }
+
+  /**
+   * @return index of the option within the select
+   */
+  public int getIndex()
+  {
+    return index;
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format("%s (%s)", text, value);
+  }
+}
@@ -20,12 +20,14 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchWindowException;
 import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.partnet.automation.HtmlView;
+import com.partnet.automation.selenium.WindowRegistry;
 
 /**
  * Provides functionality that should be accessible anywhere within a given
@@ -54,10 +56,31 @@ public abstract class Site
   /**
    * Used after closing dialogs or other popup windows for switching focus to
    * the primary window.
+   * <p>
+   * Switches straight to the primary window remembered by the
+   * {@link WindowRegistry}, and only searches all windows for the
+   * {@link #getPrimaryWindowSelector()} if that window is gone or no longer
+   * shows the selector. Without a selector the remembered window is trusted.
    */
   public void switchToPrimaryWindow()
   {
-    switchToOpenWindow(getPrimaryWindowSelector(), null);
+    WindowRegistry windows = WindowRegistry.get(webDriver);
+    By selector = getPrimaryWindowSelector();
+
+    try {
+      webDriver.switchTo().window(windows.getPrimaryHandle());
+
+      if (selector == null || !webDriver.findElements(selector).isEmpty()) {
+        return;
+      }
+      LOG.debug("Primary window no longer shows {}, search all windows", selector);
+    }
+    catch (NoSuchWindowException e) {
+      LOG.debug("Primary window was closed, search all windows");
+    }
+
+    switchToOpenWindow(selector, null);
+    windows.setPrimaryHandle(webDriver.getWindowHandle());
   }
 
   /**
@@ -69,7 +92,7 @@ public abstract class Site
   }
 
   /**
-   * Open/navigate-to a given url.
+   * Open/navigate-to a given url, and wait for the page to be ready.
    * 
    * @param url
    *          - the url to go to
@@ -77,6 +100,8 @@ public abstract class Site
   public void open(final String url)
   {
     LOG.info("Attempting to go to url: {}", url);
+    // the window the site is opened in is the primary window
+    WindowRegistry.get(webDriver).setPrimaryHandle(webDriver.getWindowHandle());
     try {
       this.webDriver.navigate().to(url);
     }
@@ -99,7 +124,10 @@ public abstract class Site
         .append("*****************************************************************\n");
 
       LOG.error(sb.toString());
+      return;
     }
+
+    waitForPageToLoad();
   }
 
   /**
@@ -16,17 +16,46 @@
 
 package com.partnet.automation.selenium;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
 
 import io.appium.java_client.android.AndroidDriver;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
-import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
@@ -44,21 +73,31 @@ import org.openqa.selenium.remote.CapabilityType;
 import org.openqa.selenium.remote.DesiredCapabilities;
 import org.openqa.selenium.remote.LocalFileDetector;
 import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.service.DriverService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.gargoylesoftware.htmlunit.BrowserVersion;
 import com.partnet.automation.Browser;
 import com.partnet.automation.RuntimeConfiguration;
+import com.partnet.automation.capture.ArtifactStore;
 import com.partnet.automation.download.OperatingSystem;
 import com.partnet.automation.download.StandaloneDriverDownloadAssistant;
+import com.partnet.automation.selenium.remote.BackoffRetryStrategy;
+import com.partnet.automation.selenium.remote.LinearRetryStrategy;
+import com.partnet.automation.selenium.remote.RemoteEndpoint;
+import com.partnet.automation.selenium.remote.RemoteEndpointBalancer;
+import com.partnet.automation.selenium.remote.RemoteSessionCircuitBreaker;
+import com.partnet.automation.selenium.remote.RemoteSessionFactory;
+import com.partnet.automation.selenium.remote.SessionAcquisitionStrategy;
+import com.partnet.automation.util.RelativeUrlRewriter;
 
 /**
  * Delegating implementation that provides {@link WebDriver} instances specified
  * by various means.
  */
 public abstract class AbstractConfigurableDriverProvider
-    implements DriverProvider
+    implements LifecycleDriverProvider
 {
 
   // too bad we can't inject the runConfig into abstract classes...
@@ -66,19 +105,62 @@ public abstract class AbstractConfigurableDriverProvider
 
   private ThreadLocal<WebDriver> delegate = new ThreadLocal<WebDriver>();
 
+  private ThreadLocal<PrelaunchedDriver> prelaunched = new ThreadLocal<PrelaunchedDriver>();
+
+  private static ExecutorService prelaunchExecutor;
+
+  private static volatile boolean prelaunchShutdown = false;
+
+  private static final int PRELAUNCH_SHUTDOWN_WAIT_SECONDS = 10;
+
+  // shared by every thread, so an outage is detected across the whole run
+  private static RemoteSessionCircuitBreaker circuitBreaker;
+
+  private static final Map<Thread, RetainedDriver> retainedDrivers = new ConcurrentHashMap<>();
+
+  static {
+    // quit the drivers kept alive by soft resets
+    Runtime.getRuntime().addShutdownHook(new Thread("seauto-driver-soft-reset-shutdown") {
+
+      @Override
+      public void run()
+      {
+        for (RetainedDriver retained : retainedDrivers.values()) {
+          retained.release();
+        }
+        retainedDrivers.clear();
+      }
+    });
+  }
+
+  private static final Set<Future<WebDriver>> unclaimedPrelaunches = Collections.newSetFromMap(new ConcurrentHashMap<Future<WebDriver>, Boolean>());
+
   private static final Logger LOG = LoggerFactory.getLogger(AbstractConfigurableDriverProvider.class);
 
   // TODO: Feb 4, 2015 (bbarker) - Fix proxy setting here
   protected final String USE_PROXY_BY_DEFAULT = "test.config.default.useProxy";
   protected final String BROWSER_SYSTEM_PROPERTY_NAME = "test.config.browser";
   protected final String SELENIUM_REMOTE_URL = "test.config.selenium.url";
+  protected final String SELENIUM_REMOTE_URL_POLICY = "test.config.selenium.url.policy";
+  protected final String SELENIUM_REMOTE_URL_MAX_FAILURES = "test.config.selenium.url.max.failures";
+  protected final String SELENIUM_REMOTE_URL_COOLDOWN_SECONDS = "test.config.selenium.url.cooldown.seconds";
   protected final String REMOTE_WEBDRIVER_RETRY_ATTEMPTS = "remote.webdriver.retry.attempts";
   protected final String REMOTE_WEBDRIVER_RETRY_PAUSE_MILLIS = "remote.webdriver.retry.pause.millis";
+  protected final String REMOTE_WEBDRIVER_RETRY_STRATEGY = "remote.webdriver.retry.strategy";
+  protected final String REMOTE_WEBDRIVER_RETRY_MAX_PAUSE_MILLIS = "remote.webdriver.retry.max.pause.millis";
+  protected final String REMOTE_WEBDRIVER_RETRY_DEADLINE_SECONDS = "remote.webdriver.retry.deadline.seconds";
+  protected final String REMOTE_WEBDRIVER_PARALLEL_REQUESTS = "remote.webdriver.parallel.requests";
+  protected final String REMOTE_WEBDRIVER_CIRCUIT_BREAKER_THRESHOLD = "remote.webdriver.circuit.breaker.threshold";
+  protected final String REMOTE_WEBDRIVER_CIRCUIT_BREAKER_PROBE_SECONDS = "remote.webdriver.circuit.breaker.probe.seconds";
   protected final String PAGE_LOAD_TIMEOUT_SECONDS = "test.config.page.load.timeout";
   protected final String PHANTOM_JS_BIN_PROP = "test.config.driver.phantomjs.bin";
   protected final String CHROME_DRIVER_BIN_PROP = "test.config.driver.chrome.bin";
+  protected final String DRIVER_SERVICE_SCOPE = "test.config.driver.service.scope";
   protected final String IE_DRIVER_BIN_PROP = "test.config.driver.ie.bin";
   protected final String ALLOW_SCREENSHOTS = "test.config.driver.screenshots.allow";
+  protected final String ASYNC_SCREENSHOTS = "test.config.driver.screenshots.async";
+  protected final String GZIP_HTML = "test.config.driver.html.gzip";
+  protected final String HTMLUNIT_SCREENSHOT_SOURCE = "test.config.driver.screenshot.htmlunit.source";
   protected final String DRIVER_BIN_PATH_APPEND = ".path";
   protected final String WINDOWS_APPEND = ".windows";
   protected final String MAC_APPEND = ".mac";
@@ -90,6 +172,11 @@ public abstract class AbstractConfigurableDriverProvider
   protected final String ANDROID_DEVICE_NAME = "test.config.android.device.name";
   protected final String ANDROID_APK_PATH = "test.config.android.apk.path";
   protected final String ANDROID_BROWSER_NAME = "android";
+  protected final String LOOKAHEAD = "test.config.driver.lookahead";
+  protected final String END_STRATEGY = "test.config.driver.end.strategy";
+  protected final String SOFT_RESET_MAX_FAILURES = "test.config.driver.soft.reset.max.failures";
+
+  private static final String BLANK_PAGE = "about:blank";
 
 
   /**
@@ -190,10 +277,22 @@ public abstract class AbstractConfigurableDriverProvider
   @Override
   public void end()
   {
-    // suggestion to close web driver before quitting to prevent socket lock on
-    // 7054
-    // https://code.google.com/p/selenium/issues/detail?id=7272
-    // https://code.google.com/p/selenium/issues/detail?id=4790
+    end(false);
+  }
+
+  /**
+   * Ends the web driver for the calling thread. With the {@link #END_STRATEGY}
+   * set to <code>soft</code> the browser session is reset with
+   * {@link #resetSession(WebDriver)} and the browser is kept alive for the next
+   * {@link #launch(Browser)} on the same thread. The browser is quit once
+   * {@link #SOFT_RESET_MAX_FAILURES} failed tests have used it, or the reset
+   * did not succeed.
+   *
+   * @param failed true if the test that used the driver failed
+   */
+  @Override
+  public void end(boolean failed)
+  {
     WebDriver driver = this.get();
 
     if (driver == null) {
@@ -201,14 +300,190 @@ public abstract class AbstractConfigurableDriverProvider
       return;
     }
 
+    this.set(null);
+
+    if (useSoftReset() && !Browser.getBrowser(driver).isAndroid()) {
+      if (retainWebDriver(driver, failed)) {
+        LOG.debug("Soft reset driver, keeping it for the next test");
+        return;
+      }
+      LOG.debug("Stopping driver");
+      releaseWebDriver(driver, false);
+      return;
+    }
+
     LOG.debug("Stopping driver");
+    releaseWebDriver(driver, true);
+  }
+
+  /**
+   * Obtains the {@link WebDriver} that will be handed to the calling thread by
+   * {@link #launch(Browser)}. The default implementation starts a new driver
+   * via {@link #getWebDriver(Browser)}.
+   *
+   * @param browser browser to obtain
+   * @return the driver for the calling thread
+   */
+  protected WebDriver acquireWebDriver(Browser browser)
+  {
+    return getWebDriver(browser);
+  }
+
+  /**
+   * Called once the calling thread is finished with the given driver. The
+   * default implementation quits the driver.
+   *
+   * @param driver driver that is no longer in use by the calling thread
+   * @param reusable false if the driver is known to be in a state that should
+   *          not be handed to another test
+   * @see #quitWebDriver(WebDriver)
+   */
+  protected void releaseWebDriver(WebDriver driver, boolean reusable)
+  {
+    quitWebDriver(driver);
+  }
+
+  /**
+   * Closes and quits the given driver.
+   *
+   * @param driver driver to quit
+   */
+  protected void quitWebDriver(WebDriver driver)
+  {
+    // suggestion to close web driver before quitting to prevent socket lock on
+    // 7054
+    // https://code.google.com/p/selenium/issues/detail?id=7272
+    // https://code.google.com/p/selenium/issues/detail?id=4790
+
+    RemoteEndpointBalancer.release(driver);
+
     //closing android browser is not supported
     if(!Browser.getBrowser(driver).isAndroid()) {
       driver.close();
     }
 
-    this.get().quit();
-    this.set(null);
+    driver.quit();
+  }
+
+  /**
+   * Resets the browser session so the browser can be used by another test:
+   * extra windows are closed, cookies, localStorage and sessionStorage are
+   * cleared and the remaining window is navigated to a blank page.
+   *
+   * @param driver driver to reset
+   * @return true if the session was reset, false if the driver should be
+   *         discarded
+   */
+  protected boolean resetSession(WebDriver driver)
+  {
+    try {
+      Set<String> handles = driver.getWindowHandles();
+      String primary = handles.iterator().next();
+
+      for (String handle : handles) {
+        if (!handle.equals(primary)) {
+          driver.switchTo().window(handle);
+          driver.close();
+        }
+      }
+      driver.switchTo().window(primary);
+
+      driver.manage().deleteAllCookies();
+
+      // storage is per origin, so it has to be cleared before leaving the page
+      if (driver instanceof JavascriptExecutor) {
+        try {
+          ((JavascriptExecutor) driver).executeScript("try { window.localStorage.clear(); } catch (e) {}" + "try { window.sessionStorage.clear(); } catch (e) {}");
+        }
+        catch (WebDriverException e) {
+          LOG.debug("Unable to clear web storage", e);
+        }
+      }
+
+      driver.get(BLANK_PAGE);
+      return true;
+    }
+    catch (WebDriverException e) {
+      LOG.warn("Unable to reset driver session", e);
+      return false;
+    }
+  }
+
+  private boolean useSoftReset()
+  {
+    return "soft".equalsIgnoreCase(System.getProperty(END_STRATEGY, "quit"));
+  }
+
+  /**
+   * Keeps the given driver for the next launch on the calling thread, if it
+   * has not failed too often and the session can be reset.
+   *
+   * @return true if the driver was retained
+   */
+  private boolean retainWebDriver(WebDriver driver, boolean failed)
+  {
+    reapRetainedWebDrivers();
+
+    RetainedDriver retained = retainedDrivers.get(Thread.currentThread());
+    if (retained == null || retained.driver != driver) {
+      retained = new RetainedDriver(this, driver, Browser.getBrowser(driver));
+    }
+
+    if (failed) {
+      retained.failures++;
+    }
+
+    if (retained.failures >= Integer.getInteger(SOFT_RESET_MAX_FAILURES, 1)) {
+      LOG.debug("Driver has been used by {} failed test(s), it will not be kept", retained.failures);
+      retainedDrivers.remove(Thread.currentThread());
+      return false;
+    }
+
+    if (!resetSession(driver)) {
+      retainedDrivers.remove(Thread.currentThread());
+      return false;
+    }
+
+    retainedDrivers.put(Thread.currentThread(), retained);
+    return true;
+  }
+
+  /**
+   * Obtain the driver kept by a soft reset on the calling thread, if it is for
+   * the given browser. A kept driver for any other browser is released.
+   *
+   * @param browser browser wanted
+   * @return the kept driver, or null if there is not one
+   */
+  private WebDriver takeRetainedWebDriver(Browser browser)
+  {
+    RetainedDriver retained = retainedDrivers.get(Thread.currentThread());
+
+    if (retained == null) {
+      return null;
+    }
+
+    if (retained.browser != browser || !useSoftReset()) {
+      LOG.debug("Kept '{}' driver is not needed, stopping it", retained.browser);
+      retainedDrivers.remove(Thread.currentThread());
+      releaseWebDriver(retained.driver, true);
+      return null;
+    }
+
+    LOG.debug("Using '{}' driver kept by a soft reset", browser);
+    return retained.driver;
+  }
+
+  /**
+   * Quits the drivers kept for threads that are no longer running.
+   */
+  private static void reapRetainedWebDrivers()
+  {
+    for (Map.Entry<Thread, RetainedDriver> entry : retainedDrivers.entrySet()) {
+      if (!entry.getKey().isAlive() && retainedDrivers.remove(entry.getKey(), entry.getValue())) {
+        entry.getValue().release();
+      }
+    }
   }
 
   /**
@@ -222,7 +497,9 @@ public abstract class AbstractConfigurableDriverProvider
 
   /**
    * Initialize this {@link DriverProvider} for the current running thread. If
-   * no value (null) is specified, the default browser is used.
+   * no value (null) is specified, the default browser is used. A driver started
+   * ahead of time by {@link #prelaunch(Browser)} is used when it matches the
+   * browser to launch.
    * 
    * @param browser
    *          - The browser to use, unless a higher priority browser as defined
@@ -231,6 +508,143 @@ public abstract class AbstractConfigurableDriverProvider
    * @see #getDefaultBrowser()
    */
   public void launch(Browser browser)
+  {
+    Browser browserToUse = resolveBrowser(browser);
+
+    end();
+
+    WebDriver driver = takeRetainedWebDriver(browserToUse);
+
+    if (driver == null) {
+      driver = takePrelaunchedWebDriver(browserToUse);
+    }
+
+    this.set(driver != null ? driver : acquireWebDriver(browserToUse));
+  }
+
+  /**
+   * When {@link #LOOKAHEAD} is enabled, starts the driver for the given
+   * browser on a background thread so the next call to {@link #launch(Browser)}
+   * on the calling thread can use it without waiting for the browser to
+   * start. A previously pre-launched driver for a different browser is
+   * discarded.
+   *
+   * @param browser browser the calling thread will launch next, or null for the
+   *          default browser
+   */
+  @Override
+  public void prelaunch(Browser browser)
+  {
+    if (!Boolean.getBoolean(LOOKAHEAD)) {
+      return;
+    }
+
+    final Browser browserToUse = resolveBrowser(browser);
+    PrelaunchedDriver pending = this.prelaunched.get();
+
+    if (pending != null) {
+      if (pending.browser == browserToUse) {
+        return;
+      }
+      discardPrelaunchedWebDriver(pending);
+    }
+
+    LOG.debug("Pre-launch '{}' for the next test", browserToUse);
+    Future<WebDriver> future = getPrelaunchExecutor().submit(new Callable<WebDriver>() {
+
+      @Override
+      public WebDriver call()
+      {
+        WebDriver driver = acquireWebDriver(browserToUse);
+
+        // the shutdown hook could not quit a driver that was still starting
+        if (prelaunchShutdown) {
+          releaseWebDriver(driver, false);
+          return null;
+        }
+        return driver;
+      }
+    });
+
+    unclaimedPrelaunches.add(future);
+    this.prelaunched.set(new PrelaunchedDriver(browserToUse, future));
+  }
+
+  /**
+   * Obtain the driver pre-launched for the calling thread, if it is for the
+   * given browser. A pre-launched driver for any other browser is discarded.
+   *
+   * @param browser browser wanted
+   * @return the pre-launched driver, or null if there is not a usable one
+   */
+  private WebDriver takePrelaunchedWebDriver(Browser browser)
+  {
+    PrelaunchedDriver pending = this.prelaunched.get();
+
+    if (pending == null) {
+      return null;
+    }
+
+    this.prelaunched.remove();
+
+    if (pending.browser != browser) {
+      LOG.debug("Pre-launched '{}' does not match '{}', discarding it", pending.browser, browser);
+      discardPrelaunchedWebDriver(pending);
+      return null;
+    }
+
+    try {
+      WebDriver driver = pending.future.get();
+      LOG.debug("Using pre-launched '{}' driver", browser);
+      return driver;
+    }
+    catch (ExecutionException e) {
+      LOG.warn("Pre-launching '{}' failed, launching it again", browser, e.getCause());
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      discardPrelaunchedWebDriver(pending);
+    }
+    finally {
+      unclaimedPrelaunches.remove(pending.future);
+    }
+    return null;
+  }
+
+  /**
+   * Releases a pre-launched driver that will not be used, once it has started.
+   */
+  private void discardPrelaunchedWebDriver(final PrelaunchedDriver pending)
+  {
+    getPrelaunchExecutor().submit(new Runnable() {
+
+      @Override
+      public void run()
+      {
+        try {
+          WebDriver driver = pending.future.get();
+          if (driver != null) {
+            releaseWebDriver(driver, true);
+          }
+        }
+        catch (InterruptedException | ExecutionException e) {
+          LOG.debug("Discarded pre-launch of '{}' did not start", pending.browser, e);
+        }
+        finally {
+          unclaimedPrelaunches.remove(pending.future);
+        }
+      }
+    });
+  }
+
+  /**
+   * Determine the browser to use, unless a higher priority browser as defined
+   * by {@link #getBrowserFromProperty()} is set.
+   *
+   * @param browser the requested browser, or null for the default browser
+   * @return the browser to launch
+   */
+  protected Browser resolveBrowser(Browser browser)
   {
     // system property value takes priority
     Browser browserFromProp = getBrowserFromProperty();
@@ -247,10 +661,112 @@ public abstract class AbstractConfigurableDriverProvider
       LOG.debug("Using specified browser: '{}'", browserFromProp.name());
     }
 
-    Objects.requireNonNull(browserFromProp, "browser to use cannot be null");
+    return Objects.requireNonNull(browserFromProp, "browser to use cannot be null");
+  }
 
-    end();
-    this.set(getWebDriver(browserFromProp));
+  private static synchronized ExecutorService getPrelaunchExecutor()
+  {
+    if (prelaunchExecutor == null) {
+      prelaunchExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r)
+        {
+          Thread thread = new Thread(r, "seauto-driver-prelaunch-" + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+
+      // quit any drivers that were pre-launched but never used
+      Runtime.getRuntime().addShutdownHook(new Thread("seauto-driver-prelaunch-shutdown") {
+
+        @Override
+        public void run()
+        {
+          prelaunchShutdown = true;
+          prelaunchExecutor.shutdown();
+
+          try {
+            // drivers still starting quit themselves once started
+            prelaunchExecutor.awaitTermination(PRELAUNCH_SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
+          }
+          catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+
+          for (Future<WebDriver> future : unclaimedPrelaunches) {
+            if (!future.isDone()) {
+              future.cancel(true);
+            }
+            else if (!future.isCancelled()) {
+              try {
+                WebDriver driver = future.get();
+                if (driver != null) {
+                  RemoteEndpointBalancer.release(driver);
+                  driver.quit();
+                }
+              }
+              catch (InterruptedException | ExecutionException | WebDriverException e) {
+                LOG.debug("Unable to quit pre-launched driver", e);
+              }
+            }
+          }
+        }
+      });
+    }
+    return prelaunchExecutor;
+  }
+
+  /**
+   * A driver kept alive by a soft reset for the next test on the same thread
+   */
+  private static class RetainedDriver
+  {
+
+    private final AbstractConfigurableDriverProvider provider;
+
+    private final WebDriver driver;
+
+    private final Browser browser;
+
+    private int failures = 0;
+
+    public RetainedDriver(AbstractConfigurableDriverProvider provider, WebDriver driver, Browser browser)
+    {
+      this.provider = provider;
+      this.driver = driver;
+      this.browser = browser;
+    }
+
+    private void release()
+    {
+      try {
+        provider.releaseWebDriver(driver, false);
+      }
+      catch (WebDriverException e) {
+        LOG.debug("Unable to stop kept driver", e);
+      }
+    }
+  }
+
+  /**
+   * A driver being started in the background for the next test
+   */
+  private static class PrelaunchedDriver
+  {
+
+    private final Browser browser;
+
+    private final Future<WebDriver> future;
+
+    public PrelaunchedDriver(Browser browser, Future<WebDriver> future)
+    {
+      this.browser = browser;
+      this.future = future;
+    }
   }
 
   /**
@@ -259,6 +775,10 @@ public abstract class AbstractConfigurableDriverProvider
    * There is also the option of replacing all of the relative paths with a
    * given base url of the site so the page can be rendered when opened with a
    * browser.
+   * <p>
+   * The page is written in the character set reported by the browser, falling
+   * back to UTF-8. Set {@link #GZIP_HTML} to true to gzip the file, which
+   * appends <code>.gz</code> to the path.
    * 
    * @param htmlPath
    *          - path and filename of where to save the html file to.
@@ -266,49 +786,103 @@ public abstract class AbstractConfigurableDriverProvider
    *          - replace relative path of html with this base url. If it is null
    *          or blank, it will skip replacing the relative paths.
    */
+  @Override
   public void saveHtml(String htmlPath, String baseUrl)
   {
-    if (StringUtils.isNotBlank(baseUrl) && !baseUrl.endsWith("/")) {
-      baseUrl += "/";
-    }
+    WebDriver driver = this.get();
+    boolean gzip = Boolean.getBoolean(GZIP_HTML);
+    Path path = Paths.get(gzip && !htmlPath.endsWith(".gz") ? htmlPath + ".gz" : htmlPath);
 
-    LOG.debug("Write html to: {}", htmlPath);
+    LOG.debug("Write html to: {}", path);
 
-    String pageSource = this.get().getPageSource();
-
-    if (StringUtils.isNotBlank(baseUrl)) {
-      pageSource = pageSource.replaceAll("=(\\s)?\"/", "=\"" + baseUrl);
-    }
+    String pageSource = driver.getPageSource();
+    Charset charset = getPageCharset(driver);
 
     try {
+      if (ArtifactStore.isArchiving()) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(pageSource.length());
+        writeHtml(pageSource, baseUrl, charset, gzip, out);
+        ArtifactStore.save(path, out.toByteArray());
+        return;
+      }
+
+      if (path.getParent() != null) {
+        Files.createDirectories(path.getParent());
+      }
+
       // write to file, replacing relative path with something that it will find
       // and render
-      FileUtils.write(new File(htmlPath), pageSource, "iso-8859-1");
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+          OutputStream out = Channels.newOutputStream(channel)) {
+        writeHtml(pageSource, baseUrl, charset, gzip, out);
+      }
     }
     catch (IOException e) {
-      LOG.error("Error writing html to '{}'!", htmlPath, e);
+      LOG.error("Error writing html to '{}'!", path, e);
+    }
+  }
+
+  private static void writeHtml(String pageSource, String baseUrl, Charset charset, boolean gzip, OutputStream out)
+      throws IOException
+  {
+    CharsetEncoder encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    try (OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, encoder))) {
+      RelativeUrlRewriter.write(pageSource, baseUrl, writer);
     }
   }
 
   /**
-   * Screenshooter for HTMLUnit. It saves the html source to disk following the
-   * same pattern as the screenshot path. The HTMLUnit session is transfered to
-   * PhantomJs, which takes the screenshot, and is destroyed. The original
-   * driver is not destroyed
+   * @param driver driver to ask for the character set of the current page
+   * @return the character set of the current page, or UTF-8 if it is unknown
+   */
+  protected Charset getPageCharset(WebDriver driver)
+  {
+    if (driver instanceof JavascriptExecutor) {
+      try {
+        Object name = ((JavascriptExecutor) driver).executeScript("return document.characterSet || document.charset || document.inputEncoding;");
+        if (name instanceof String && Charset.isSupported((String) name)) {
+          return Charset.forName((String) name);
+        }
+      }
+      catch (WebDriverException | IllegalArgumentException e) {
+        LOG.debug("Unable to read the page character set", e);
+      }
+    }
+    return StandardCharsets.UTF_8;
+  }
+
+  /**
+   * Screenshooter for HTMLUnit. The page is rendered by one of the long lived
+   * {@link ScreenshotRenderer} browsers (PhantomJs by default), which are
+   * shared by all threads. The original driver is not destroyed.
+   * <p>
+   * By default the renderer loads the current url with the session cookies.
+   * Set {@link #HTMLUNIT_SCREENSHOT_SOURCE} to <code>page</code> to render the
+   * page source of the HTMLUnit driver instead, which keeps changes made to
+   * the page by Javascript.
    * 
-   * Note: Javascript events, current page changes, etc.. are not saved and are
-   * not captured in the screenshots taken.
+   * Note: with the default url source Javascript events, current page changes,
+   * etc.. are not saved and are not captured in the screenshots taken.
+   * <p>
+   * Skipped if test.config.driver.screenshots.allow is set to false.
    * 
    * @param path
    *          - where to save the file. This assumes a png file will be
    *          generated
    * @param baseUrl
-   *          - used to transfer the cookies to the phantomjs driver properly.
+   *          - used to transfer the cookies to the renderer properly.
    * 
-   * @see #getPhantomJsWebDriver()
+   * @see #getScreenshotRenderer()
    */
   public void saveScreenshotForHtmlUnit(String path, String baseUrl)
   {
+    if (!Boolean.valueOf(System.getProperty(ALLOW_SCREENSHOTS, "true"))) {
+      LOG.debug("Skipping screenshot");
+      return;
+    }
+
     final WebDriver driver = this.get();
 
     if (!(driver instanceof HtmlUnitDriver)) {
@@ -317,31 +891,38 @@ public abstract class AbstractConfigurableDriverProvider
       return;
     }
 
-    PhantomJSDriver phantomJs = (PhantomJSDriver) getPhantomJsWebDriver();
+    ScreenshotJob job;
 
-    try {
-      phantomJs.get(baseUrl);
+    if ("page".equalsIgnoreCase(System.getProperty(HTMLUNIT_SCREENSHOT_SOURCE, "url"))) {
+      job = ScreenshotJob.forPageSource(driver.getPageSource(), baseUrl);
+    }
+    else {
       String url = driver.getCurrentUrl();
       LOG.debug("Url: {}", url);
+      job = ScreenshotJob.forUrl(url, baseUrl, driver.manage().getCookies());
+    }
 
-      for (Cookie cookie : driver.manage().getCookies()) {
-        LOG.debug("Cookie: {}", cookie.toString());
-        phantomJs.manage().addCookie(cookie);
-      }
-
-      phantomJs.get(url);
+    writeScreenshot(path, ScreenshotRenderer.getInstance().render(job, getScreenshotRenderer()));
+    LOG.debug("HTML Screenshot taken: {}", path);
+  }
 
-      // set current thread to phantomjs, and take screenshot in the default way
-      this.set(phantomJs);
-      LOG.debug("HTML Screenshot taken: {}", this.saveScreenshotAs(path));
-    }
-    finally {
-      // set back original driver for this thread
-      this.set(driver);
+  /**
+   * Starts the browsers used by the {@link ScreenshotRenderer} to take
+   * screenshots for HTMLUnit. The default implementation uses
+   * {@link #getPhantomJsWebDriver()}.
+   *
+   * @return factory for a browser that implements {@link TakesScreenshot}
+   */
+  protected Callable<WebDriver> getScreenshotRenderer()
+  {
+    return new Callable<WebDriver>() {
 
-      phantomJs.close();
-      phantomJs.quit();
-    }
+      @Override
+      public WebDriver call()
+      {
+        return getPhantomJsWebDriver();
+      }
+    };
   }
 
   /**
@@ -368,20 +949,38 @@ public abstract class AbstractConfigurableDriverProvider
     }
 
     if (driver instanceof TakesScreenshot) {
-      File dstFile = new File(path);
-      File srcFile = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
-      try {
-        FileUtils.copyFile(srcFile, dstFile);
-      }
-      catch (IOException e) {
-        throw new RuntimeException("Can't save screenshot!", e);
-      }
+      writeScreenshot(path, ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES));
       return true;
     }
     return false;
 
   }
 
+  /**
+   * Writes the screenshot to the given path. Unless
+   * {@link #ASYNC_SCREENSHOTS} is set to false, the file is saved by the
+   * {@link ArtifactStore} in the background, or into the artifact archive, so
+   * the test does not wait on the disk.
+   *
+   * @param path where to save the screenshot
+   * @param png screenshot as PNG bytes
+   */
+  protected void writeScreenshot(String path, byte[] png)
+  {
+    if (Boolean.valueOf(System.getProperty(ASYNC_SCREENSHOTS, "true")) || ArtifactStore.isArchiving()) {
+      ArtifactStore.save(Paths.get(path), png);
+      return;
+    }
+
+    try {
+      FileUtils.writeByteArrayToFile(new File(path), png);
+    }
+    catch (IOException e) {
+      throw new RuntimeException("Can't save screenshot!", e);
+    }
+  }
+
+
   /**
    * This returns the value stored in the browser property, not the browser for
    * the current thread.
@@ -423,7 +1022,8 @@ public abstract class AbstractConfigurableDriverProvider
   }
 
   /**
-   * Get the value of the remote URL to connect to.
+   * Get the value of the remote URL to connect to. If a list of urls is
+   * configured, the first one is returned.
    *
    * @return null if the system property {@link #SELENIUM_REMOTE_URL} is blank, otherwise returns the {@link URL}
    * @see #SELENIUM_REMOTE_URL
@@ -431,15 +1031,55 @@ public abstract class AbstractConfigurableDriverProvider
    */
   protected URL getRemoteSeleniumUrl()
   {
-    URL url;
-    String stringUrl = getRemoteSeleniumUrlString();
-    try {
-      url = new URL(stringUrl);
-    } catch (MalformedURLException e) {
-      LOG.error("invalid url: {}", stringUrl, e);
-      throw new IllegalStateException(String.format("The url '%s' is malformed!", stringUrl), e);
+    return getRemoteSeleniumUrls().get(0);
+  }
+
+  /**
+   * Parses the comma separated list of urls in {@link #SELENIUM_REMOTE_URL}
+   *
+   * @return every remote Selenium url configured
+   */
+  protected List<URL> getRemoteSeleniumUrls()
+  {
+    List<URL> urls = new ArrayList<>();
+    String urlList = StringUtils.defaultString(getRemoteSeleniumUrlString());
+
+    for (String stringUrl : urlList.split(",")) {
+      stringUrl = StringUtils.trimToNull(stringUrl);
+
+      if (stringUrl == null) {
+        continue;
+      }
+
+      try {
+        urls.add(new URL(stringUrl));
+      } catch (MalformedURLException e) {
+        LOG.error("invalid url: {}", stringUrl, e);
+        throw new IllegalStateException(String.format("The url '%s' is malformed!", stringUrl), e);
+      }
+    }
+
+    if (urls.isEmpty()) {
+      throw new IllegalStateException(String.format("No urls are set in the property '%s'!", SELENIUM_REMOTE_URL));
     }
-    return url;
+    return urls;
+  }
+
+  /**
+   * Get the balancer that chooses which of the {@link #SELENIUM_REMOTE_URL}
+   * endpoints the next remote session is requested from. The policy is set by
+   * {@link #SELENIUM_REMOTE_URL_POLICY}: <code>round-robin</code> (default),
+   * <code>least-sessions</code> or <code>latency</code>.
+   *
+   * @return the JVM wide {@link RemoteEndpointBalancer} for the configured
+   *         endpoints
+   */
+  protected RemoteEndpointBalancer getRemoteEndpointBalancer()
+  {
+    return RemoteEndpointBalancer.getInstance(getRemoteSeleniumUrls(),
+        RemoteEndpointBalancer.Policy.fromName(System.getProperty(SELENIUM_REMOTE_URL_POLICY, "round-robin")),
+        Integer.getInteger(SELENIUM_REMOTE_URL_MAX_FAILURES, 3),
+        TimeUnit.SECONDS.toMillis(Integer.getInteger(SELENIUM_REMOTE_URL_COOLDOWN_SECONDS, 60)));
   }
 
   /**
@@ -466,42 +1106,71 @@ public abstract class AbstractConfigurableDriverProvider
    * @return {@link WebDriver} instance of the remote web driver
    *
    */
-  protected WebDriver initRemoteWebDriver(DesiredCapabilities capabilities)
+  protected WebDriver initRemoteWebDriver(final DesiredCapabilities capabilities)
   {
-    URL remoteUrl = getRemoteSeleniumUrl();
-    LOG.debug("Remote Selenium URL: {}", remoteUrl.toString());
-    WebDriver driver = null;
-    boolean isAndroid = false;
-    int tries = 1;
+    final boolean isAndroid = capabilities.getCapability(CapabilityType.BROWSER_NAME).equals(ANDROID_BROWSER_NAME);
 
-    if(capabilities.getCapability(CapabilityType.BROWSER_NAME).equals(ANDROID_BROWSER_NAME)) {
-      isAndroid = true;
-    }
+    final RemoteEndpointBalancer balancer = getRemoteEndpointBalancer();
+    final RemoteSessionCircuitBreaker circuitBreaker = getCircuitBreaker();
 
-    while (driver == null) {
-      LOG.debug("Try {} {}", tries, capabilities.toString());
+    LOG.debug("Requesting remote session {}", capabilities.toString());
+    WebDriver driver = getSessionAcquisitionStrategy().acquire(new RemoteSessionFactory() {
 
-      try {
+      @Override
+      public WebDriver create()
+      {
+        if (circuitBreaker != null) {
+          circuitBreaker.beforeRequest();
+        }
 
-        if(isAndroid) {
-          driver = new AndroidDriver(remoteUrl, capabilities);
+        RemoteEndpoint endpoint = null;
+        long start = System.nanoTime();
+        WebDriver session = null;
+
+        // record the outcome whatever is thrown, so a probe never leaves the
+        // circuit breaker half open
+        try {
+          endpoint = balancer.select();
+          LOG.debug("Remote Selenium URL: {}", endpoint.getUrl());
+          start = System.nanoTime();
+
+          if(isAndroid) {
+            session = new AndroidDriver(endpoint.getUrl(), capabilities);
+          }
+          else {
+            session = new RemoteWebDriver(endpoint.getUrl(), capabilities);
+          }
         }
-        else {
-          driver = new RemoteWebDriver(remoteUrl, capabilities);
+        finally {
+          if (circuitBreaker != null) {
+            if (session == null) {
+              circuitBreaker.failed();
+            }
+            else {
+              circuitBreaker.succeeded();
+            }
+          }
+
+          if (endpoint != null) {
+            if (session == null) {
+              balancer.failed(endpoint);
+            }
+            else {
+              balancer.succeeded(endpoint, session, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+          }
         }
 
-      } catch (WebDriverException e) {
-        LOG.error("Remote WebDriver was unable to start! " + e.getMessage(), e);
-
-        if (tries >= Integer.getInteger(REMOTE_WEBDRIVER_RETRY_ATTEMPTS, 10)) {
-          throw e;
-        }
+        return session;
+      }
 
-        sleep(Integer.getInteger(REMOTE_WEBDRIVER_RETRY_PAUSE_MILLIS, 5000) * tries);
-        tries++;
-        driver = null;
+      @Override
+      public void discard(WebDriver session)
+      {
+        RemoteEndpointBalancer.release(session);
+        session.quit();
       }
-    }
+    });
 
     if(!isAndroid) {
       // allow screenshots to be taken
@@ -514,18 +1183,61 @@ public abstract class AbstractConfigurableDriverProvider
     return driver;
   }
 
+  /**
+   * Get the circuit breaker shared by every thread requesting remote sessions.
+   * It is only used if {@link #REMOTE_WEBDRIVER_CIRCUIT_BREAKER_THRESHOLD} is
+   * set, and opens after that many consecutive failed session requests.
+   * While open, a probe request is let through every
+   * {@link #REMOTE_WEBDRIVER_CIRCUIT_BREAKER_PROBE_SECONDS}.
+   *
+   * @return the JVM wide {@link RemoteSessionCircuitBreaker}, or null if it is
+   *         disabled
+   */
+  protected RemoteSessionCircuitBreaker getCircuitBreaker()
+  {
+    int threshold = Integer.getInteger(REMOTE_WEBDRIVER_CIRCUIT_BREAKER_THRESHOLD, 0);
+
+    if (threshold < 1) {
+      return null;
+    }
+
+    synchronized (AbstractConfigurableDriverProvider.class) {
+      if (circuitBreaker == null) {
+        circuitBreaker = new RemoteSessionCircuitBreaker(threshold,
+            TimeUnit.SECONDS.toMillis(Integer.getInteger(REMOTE_WEBDRIVER_CIRCUIT_BREAKER_PROBE_SECONDS, 30)));
+      }
+      return circuitBreaker;
+    }
+  }
 
   /**
-   * Simple Thread sleep method that catches InterruptException.
-   * @param millis time (in milliseconds) to sleep
+   * Determines how remote sessions are requested, based on
+   * {@link #REMOTE_WEBDRIVER_RETRY_STRATEGY}: <code>linear</code> (default)
+   * or <code>backoff</code>.
+   *
+   * @return the {@link SessionAcquisitionStrategy} used by
+   *         {@link #initRemoteWebDriver(DesiredCapabilities)}
    */
-  private void sleep(int millis)
+  protected SessionAcquisitionStrategy getSessionAcquisitionStrategy()
   {
-    try {
-      Thread.sleep(millis);
-    } catch (InterruptedException e) {
-      LOG.error("Exception occurred sleeping", e);
+    int attempts = Integer.getInteger(REMOTE_WEBDRIVER_RETRY_ATTEMPTS, 10);
+    // both strategies share the default, so switching does not change the first retry delay
+    int pauseMillis = Integer.getInteger(REMOTE_WEBDRIVER_RETRY_PAUSE_MILLIS, 5000);
+    String strategy = System.getProperty(REMOTE_WEBDRIVER_RETRY_STRATEGY, "linear");
+
+    if ("backoff".equalsIgnoreCase(strategy)) {
+      return new BackoffRetryStrategy(attempts,
+          pauseMillis,
+          Integer.getInteger(REMOTE_WEBDRIVER_RETRY_MAX_PAUSE_MILLIS, 30000),
+          TimeUnit.SECONDS.toMillis(Integer.getInteger(REMOTE_WEBDRIVER_RETRY_DEADLINE_SECONDS, 300)),
+          Integer.getInteger(REMOTE_WEBDRIVER_PARALLEL_REQUESTS, 1));
     }
+
+    if (!"linear".equalsIgnoreCase(strategy)) {
+      throw new IllegalArgumentException(String.format("Unknown %s '%s', expected linear or backoff", REMOTE_WEBDRIVER_RETRY_STRATEGY, strategy));
+    }
+
+    return new LinearRetryStrategy(attempts, pauseMillis);
   }
 
   private boolean doesFileExist(final String path)
@@ -619,6 +1331,37 @@ public abstract class AbstractConfigurableDriverProvider
     return driver;
   }
 
+  /**
+   * Get the url of the long lived driver service for the given name, based on
+   * {@link #DRIVER_SERVICE_SCOPE}: <code>none</code> (default) starts a new
+   * driver server for every session, <code>jvm</code> shares one driver server
+   * with the whole JVM and <code>thread</code> starts one per thread.
+   * <p>
+   * PhantomJS shares cookies between all sessions in one process, so prefer
+   * the <code>thread</code> scope when running PhantomJS tests in parallel.
+   *
+   * @param name unique name for the service
+   * @param factory creates the service if it is not running
+   * @return the url to create the session against, or null if sessions should
+   *         start their own driver server
+   * @see DriverServiceRegistry
+   */
+  protected URL getDriverServiceUrl(String name, Callable<DriverService> factory)
+  {
+    String scope = System.getProperty(DRIVER_SERVICE_SCOPE, "none").trim().toLowerCase();
+
+    switch (scope) {
+      case "none":
+        return null;
+      case "jvm":
+        return DriverServiceRegistry.getInstance().getServiceUrl(name, false, factory);
+      case "thread":
+        return DriverServiceRegistry.getInstance().getServiceUrl(name, true, factory);
+      default:
+        throw new IllegalArgumentException(String.format("Unknown %s '%s', expected none, jvm or thread", DRIVER_SERVICE_SCOPE, scope));
+    }
+  }
+
   /**
    * Default implementation throws UnsupportedOperationException
    * @return WebDriver instance
@@ -627,11 +1370,23 @@ public abstract class AbstractConfigurableDriverProvider
   {
     String pathToBin = getOsSpecificBinaryPathFromProp(PHANTOM_JS_BIN_PROP, "phantomjs");
 
-    DesiredCapabilities capabilities = getPhantomJsCapabilities();
+    final DesiredCapabilities capabilities = getPhantomJsCapabilities();
     capabilities.setCapability(PhantomJSDriverService.PHANTOMJS_EXECUTABLE_PATH_PROPERTY, pathToBin);
 
-    return new PhantomJSDriver(capabilities);
+    URL serviceUrl = getDriverServiceUrl("phantomjs:" + pathToBin, new Callable<DriverService>() {
 
+      @Override
+      public DriverService call()
+      {
+        return PhantomJSDriverService.createDefaultService(capabilities);
+      }
+    });
+
+    if (serviceUrl != null) {
+      return new RemoteWebDriver(serviceUrl, capabilities);
+    }
+
+    return new PhantomJSDriver(capabilities);
   }
 
   /**
@@ -720,6 +1475,13 @@ public abstract class AbstractConfigurableDriverProvider
     final DesiredCapabilities capabilities = getFirefoxCapabilities();
     capabilities.setCapability(FirefoxDriver.BINARY, fb);
 
+    String profileDirectory = runConfig.getFirefoxProfileDirectory();
+
+    if (profileDirectory != null) {
+      LOG.debug("Using Firefox profile template from: {}", profileDirectory);
+      capabilities.setCapability(FirefoxDriver.PROFILE, FirefoxProfileTemplate.getProfile(new File(profileDirectory)));
+    }
+
     return new FirefoxDriver(capabilities);
   }
 
@@ -744,11 +1506,23 @@ public abstract class AbstractConfigurableDriverProvider
 
   protected WebDriver getChromeWebDriver()
   {
-    String pathToDriverBin = getOsSpecificBinaryPathFromProp(CHROME_DRIVER_BIN_PROP, "chromedriver");
-
-    System.setProperty(ChromeDriverService.CHROME_DRIVER_EXE_PROPERTY, pathToDriverBin);
+    final String pathToDriverBin = getOsSpecificBinaryPathFromProp(CHROME_DRIVER_BIN_PROP, "chromedriver");
     DesiredCapabilities capabilities = DesiredCapabilities.chrome();
 
+    URL serviceUrl = getDriverServiceUrl("chrome:" + pathToDriverBin, new Callable<DriverService>() {
+
+      @Override
+      public DriverService call()
+      {
+        return new ChromeDriverService.Builder().usingDriverExecutable(new File(pathToDriverBin)).usingAnyFreePort().build();
+      }
+    });
+
+    if (serviceUrl != null) {
+      return new RemoteWebDriver(serviceUrl, capabilities);
+    }
+
+    System.setProperty(ChromeDriverService.CHROME_DRIVER_EXE_PROPERTY, pathToDriverBin);
     return new ChromeDriver(capabilities);
   }
 
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.partnet.automation.Browser;
+import com.partnet.automation.selenium.remote.RemoteEndpointBalancer;
+
+/**
+ * JVM wide pool of already started {@link WebDriver} instances, keyed by
+ * {@link Browser}.
+ * <p>
+ * Drivers are leased to a thread for the duration of a test and given back
+ * afterwards. A driver is only kept for another lease if it has been used
+ * fewer than {@link #POOL_MAX_USES} times, is younger than
+ * {@link #POOL_MAX_AGE_SECONDS} and there is room in the idle queue for its
+ * browser (see {@link #POOL_SIZE}). All other drivers are quit.
+ * <p>
+ * The pool is shared by every {@link PooledDriverProvider}, so drivers survive
+ * across test classes even when each class gets its own provider instance.
+ *
+ * @see PooledDriverProvider
+ */
+public final class DriverPool
+{
+
+  private static final Logger LOG = LoggerFactory.getLogger(DriverPool.class);
+
+  /**
+   * Number of idle drivers to keep per browser. May be overridden per browser
+   * by appending the lower case browser name, e.g.
+   * <code>test.config.driver.pool.size.firefox</code>
+   */
+  public static final String POOL_SIZE = "test.config.driver.pool.size";
+
+  public static final String POOL_MAX_USES = "test.config.driver.pool.max.uses";
+
+  public static final String POOL_MAX_AGE_SECONDS = "test.config.driver.pool.max.age.seconds";
+
+  private static final DriverPool instance = new DriverPool();
+
+  private final Map<Browser, LinkedBlockingDeque<PooledDriver>> idleDrivers = new ConcurrentHashMap<>();
+
+  private final Map<WebDriver, PooledDriver> leasedDrivers = new ConcurrentHashMap<>();
+
+  public static DriverPool getInstance()
+  {
+    return DriverPool.instance;
+  }
+
+  private DriverPool()
+  {
+    Runtime.getRuntime().addShutdownHook(new Thread("seauto-driver-pool-shutdown") {
+
+      @Override
+      public void run()
+      {
+        shutdown();
+      }
+    });
+  }
+
+  /**
+   * Lease an idle driver for the given browser.
+   *
+   * @param browser browser of the driver wanted
+   * @return an already started driver, or null if there are no usable idle
+   *         drivers for the browser
+   */
+  public WebDriver lease(Browser browser)
+  {
+    Objects.requireNonNull(browser, "browser cannot be null");
+
+    PooledDriver pooled;
+    while ((pooled = getIdleDrivers(browser).pollFirst()) != null) {
+
+      if (pooled.isExpired() || !pooled.isResponding()) {
+        LOG.debug("Discard idle {} driver: {}", browser, pooled);
+        quit(pooled.driver);
+        continue;
+      }
+
+      pooled.uses++;
+      leasedDrivers.put(pooled.driver, pooled);
+      LOG.debug("Leased idle {} driver: {}", browser, pooled);
+      return pooled.driver;
+    }
+
+    return null;
+  }
+
+  /**
+   * Registers a newly started driver with the pool as leased, so it can be
+   * given back with {@link #release(WebDriver, boolean)} later.
+   *
+   * @param driver newly started driver
+   * @param browser browser of the driver
+   */
+  public void register(WebDriver driver, Browser browser)
+  {
+    Objects.requireNonNull(driver, "driver cannot be null");
+    Objects.requireNonNull(browser, "browser cannot be null");
+
+    PooledDriver pooled = new PooledDriver(driver, browser);
+    pooled.uses++;
+    leasedDrivers.put(driver, pooled);
+  }
+
+  /**
+   * Adds a newly started driver directly to the idle drivers of the given
+   * browser. Used to warm up the pool ahead of the first lease.
+   *
+   * @param driver newly started driver
+   * @param browser browser of the driver
+   */
+  public void offer(WebDriver driver, Browser browser)
+  {
+    Objects.requireNonNull(driver, "driver cannot be null");
+    Objects.requireNonNull(browser, "browser cannot be null");
+
+    returnToIdle(new PooledDriver(driver, browser));
+  }
+
+  /**
+   * Gives a leased driver back to the pool. The driver is quit if it can not
+   * be reused, or if the pool for its browser is full.
+   *
+   * @param driver driver that was leased
+   * @param reusable false if the driver is known to be in a bad state
+   */
+  public void release(WebDriver driver, boolean reusable)
+  {
+    PooledDriver pooled = leasedDrivers.remove(driver);
+
+    if (pooled == null) {
+      LOG.warn("Driver was not leased from the pool, quitting it: {}", driver);
+      quit(driver);
+      return;
+    }
+
+    if (!reusable || pooled.isExpired() || pooled.uses >= getMaxUses()) {
+      LOG.debug("Retire {} driver: {}", pooled.browser, pooled);
+      quit(driver);
+      return;
+    }
+
+    returnToIdle(pooled);
+  }
+
+  /**
+   * @param browser browser to check
+   * @return the number of idle drivers currently pooled for the browser
+   */
+  public int getIdleCount(Browser browser)
+  {
+    return getIdleDrivers(browser).size();
+  }
+
+  /**
+   * Quits all of the idle and leased drivers.
+   */
+  public void shutdown()
+  {
+    List<PooledDriver> toQuit = new ArrayList<>(leasedDrivers.values());
+    leasedDrivers.clear();
+
+    for (LinkedBlockingDeque<PooledDriver> idle : idleDrivers.values()) {
+      idle.drainTo(toQuit);
+    }
+
+    if (!toQuit.isEmpty()) {
+      LOG.info("Shutting down {} pooled driver(s)", toQuit.size());
+    }
+
+    for (PooledDriver pooled : toQuit) {
+      quit(pooled.driver);
+    }
+  }
+
+  /**
+   * @param browser browser to get the size for
+   * @return the max number of idle drivers kept for the given browser
+   */
+  public int getPoolSize(Browser browser)
+  {
+    return Integer.getInteger(POOL_SIZE + "." + browser.name().toLowerCase(), Integer.getInteger(POOL_SIZE, 1));
+  }
+
+  private void returnToIdle(PooledDriver pooled)
+  {
+    LinkedBlockingDeque<PooledDriver> idle = getIdleDrivers(pooled.browser);
+
+    // synchronize so concurrent releases don't grow the pool past its size
+    synchronized (idle) {
+      if (idle.size() < getPoolSize(pooled.browser)) {
+        idle.offerFirst(pooled);
+        LOG.debug("Returned {} driver to the pool: {}", pooled.browser, pooled);
+        return;
+      }
+    }
+
+    LOG.debug("Pool for {} is full, quit driver: {}", pooled.browser, pooled);
+    quit(pooled.driver);
+  }
+
+  private int getMaxUses()
+  {
+    return Integer.getInteger(POOL_MAX_USES, 50);
+  }
+
+  private LinkedBlockingDeque<PooledDriver> getIdleDrivers(Browser browser)
+  {
+    LinkedBlockingDeque<PooledDriver> idle = idleDrivers.get(browser);
+
+    if (idle == null) {
+      synchronized (idleDrivers) {
+        idle = idleDrivers.get(browser);
+        if (idle == null) {
+          idle = new LinkedBlockingDeque<>();
+          idleDrivers.put(browser, idle);
+        }
+      }
+    }
+    return idle;
+  }
+
+  private static void quit(WebDriver driver)
+  {
+    try {
+      RemoteEndpointBalancer.release(driver);
+      driver.quit();
+    }
+    catch (WebDriverException e) {
+      LOG.debug("Unable to quit driver {}", driver, e);
+    }
+  }
+
+  /**
+   * Book keeping for a driver owned by the pool
+   */
+  private static class PooledDriver
+  {
+
+    private final WebDriver driver;
+
+    private final Browser browser;
+
+    private final long created = System.nanoTime();
+
+    private int uses = 0;
+
+    public PooledDriver(WebDriver driver, Browser browser)
+    {
+      this.driver = driver;
+      this.browser = browser;
+    }
+
+    private boolean isExpired()
+    {
+      long maxAge = TimeUnit.SECONDS.toNanos(Integer.getInteger(POOL_MAX_AGE_SECONDS, 1800));
+      return System.nanoTime() - created > maxAge;
+    }
+
+    /**
+     * Idle remote sessions can be timed out by the grid, make sure the session
+     * is still alive before leasing it out.
+     */
+    private boolean isResponding()
+    {
+      try {
+        driver.getWindowHandle();
+        return true;
+      }
+      catch (WebDriverException e) {
+        return false;
+      }
+    }
+
+    @Override
+    public String toString()
+    {
+      return String.format("%s (uses: %d, age: %ds)", driver.getClass().getSimpleName(), uses, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - created));
+    }
+  }
+}
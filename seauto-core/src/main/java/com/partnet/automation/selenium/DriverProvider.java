@@ -50,10 +50,12 @@ public interface DriverProvider
   void end();
 
   /**
-   * Takes screenshot of the driver for the calling thread
+   * Takes screenshot of the driver for the calling thread. The file may be
+   * written in the background, see
+   * {@link com.partnet.automation.util.AsyncFileWriter#flush()}
    * 
    * @param path location where the screenshot should be saved at
-   * @return true if the save was successful, false otherwise.
+   * @return true if the screenshot was taken, false otherwise.
    */
   boolean saveScreenshotAs(String path);
 
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openqa.selenium.remote.service.DriverService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps driver server processes (chromedriver, phantomjs, ...) running so
+ * sessions can be created against them instead of starting a new process for
+ * every session.
+ * <p>
+ * A service is either shared by the whole JVM, or owned by a single thread.
+ * Services owned by a thread are stopped once the thread is no longer alive,
+ * and every service is stopped when the JVM shuts down.
+ */
+public final class DriverServiceRegistry
+{
+
+  private static final Logger LOG = LoggerFactory.getLogger(DriverServiceRegistry.class);
+
+  private static final DriverServiceRegistry instance = new DriverServiceRegistry();
+
+  private final Map<String, DriverService> jvmServices = new ConcurrentHashMap<>();
+
+  private final Map<Thread, Map<String, DriverService>> threadServices = new ConcurrentHashMap<>();
+
+  public static DriverServiceRegistry getInstance()
+  {
+    return DriverServiceRegistry.instance;
+  }
+
+  private DriverServiceRegistry()
+  {
+    Runtime.getRuntime().addShutdownHook(new Thread("seauto-driver-service-shutdown") {
+
+      @Override
+      public void run()
+      {
+        shutdown();
+      }
+    });
+  }
+
+  /**
+   * Get the url of a running service, starting the service if needed.
+   *
+   * @param name unique name of the service, e.g. the driver binary path
+   * @param perThread true if the calling thread gets its own service, false to
+   *          share the service with the whole JVM
+   * @param factory creates the service if there is not a running one
+   * @return the url to create sessions against
+   */
+  public URL getServiceUrl(String name, boolean perThread, Callable<? extends DriverService> factory)
+  {
+    Map<String, DriverService> services;
+
+    if (perThread) {
+      reapThreadServices();
+      services = threadServices.get(Thread.currentThread());
+
+      if (services == null) {
+        services = new ConcurrentHashMap<>();
+        threadServices.put(Thread.currentThread(), services);
+      }
+    }
+    else {
+      services = jvmServices;
+    }
+
+    // only the JVM wide services are shared between threads
+    synchronized (services) {
+      DriverService service = services.get(name);
+
+      if (service == null || !service.isRunning()) {
+        service = startService(name, factory);
+        services.put(name, service);
+      }
+      return service.getUrl();
+    }
+  }
+
+  /**
+   * Stops every service.
+   */
+  public void shutdown()
+  {
+    List<DriverService> toStop = new ArrayList<>(jvmServices.values());
+    jvmServices.clear();
+
+    for (Map<String, DriverService> services : threadServices.values()) {
+      toStop.addAll(services.values());
+    }
+    threadServices.clear();
+
+    for (DriverService service : toStop) {
+      stop(service);
+    }
+  }
+
+  private DriverService startService(String name, Callable<? extends DriverService> factory)
+  {
+    LOG.debug("Starting driver service {}", name);
+
+    try {
+      DriverService service = factory.call();
+      service.start();
+      LOG.debug("Driver service {} running on {}", name, service.getUrl());
+      return service;
+    }
+    catch (IOException e) {
+      throw new IllegalStateException(String.format("Unable to start driver service '%s'", name), e);
+    }
+    catch (Exception e) {
+      throw new IllegalStateException(String.format("Unable to create driver service '%s'", name), e);
+    }
+  }
+
+  /**
+   * Stops the services of threads that are no longer running.
+   */
+  private void reapThreadServices()
+  {
+    for (Map.Entry<Thread, Map<String, DriverService>> entry : threadServices.entrySet()) {
+      if (!entry.getKey().isAlive() && threadServices.remove(entry.getKey()) != null) {
+        for (DriverService service : entry.getValue().values()) {
+          stop(service);
+        }
+      }
+    }
+  }
+
+  private static void stop(DriverService service)
+  {
+    try {
+      service.stop();
+    }
+    catch (RuntimeException e) {
+      LOG.debug("Unable to stop driver service {}", service.getUrl(), e);
+    }
+  }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.firefox.FirefoxProfile;
+import org.openqa.selenium.firefox.internal.ClasspathExtension;
+import org.openqa.selenium.firefox.internal.Extension;
+import org.openqa.selenium.firefox.internal.FileExtension;
+import org.openqa.selenium.io.TemporaryFilesystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches a Firefox profile laid out on disk, with the WebDriver extension
+ * installed and the preferences written, so every session only needs a quick
+ * clone of it.
+ * <p>
+ * Clones hard link the installed extensions, which are never written to by
+ * Firefox, and copy the remaining files. When <code>/dev/shm</code> is
+ * available the template and its clones are kept there. Clones are deleted
+ * when their driver quits, everything else when the JVM exits.
+ */
+public final class FirefoxProfileTemplate
+{
+
+  private static final Logger LOG = LoggerFactory.getLogger(FirefoxProfileTemplate.class);
+
+  private static final String SHARED_MEMORY_DIR = "/dev/shm";
+
+  private static final String EXTENSIONS_DIR = "extensions";
+
+  private static final Map<String, FirefoxProfileTemplate> templates = new ConcurrentHashMap<>();
+
+  private static File rootDir;
+
+  private static TemporaryFilesystem clonesFs;
+
+  private final File templateDir;
+
+  /**
+   * Get a profile that lays itself out on disk as a clone of the template for
+   * the given profile directory. The template is prepared on the first call
+   * for each directory.
+   *
+   * @param profileDirectory directory of the Firefox profile to use
+   * @return a profile to hand to the FirefoxDriver
+   */
+  public static FirefoxProfile getProfile(File profileDirectory)
+  {
+    String key = profileDirectory.getAbsolutePath();
+    FirefoxProfileTemplate template = templates.get(key);
+
+    if (template == null) {
+      synchronized (templates) {
+        template = templates.get(key);
+        if (template == null) {
+          template = new FirefoxProfileTemplate(profileDirectory);
+          templates.put(key, template);
+        }
+      }
+    }
+    return template.new ClonedFirefoxProfile();
+  }
+
+  private FirefoxProfileTemplate(File profileDirectory)
+  {
+    LOG.info("Preparing Firefox profile template from {}", profileDirectory);
+
+    FirefoxProfile profile = new FirefoxProfile(profileDirectory);
+    profile.addExtension("webdriver", getWebDriverExtension());
+    File laidOut = profile.layoutOnDisk();
+
+    templateDir = new File(getRootDir(), "template-" + templates.size());
+
+    try {
+      FileUtils.moveDirectory(laidOut, templateDir);
+    }
+    catch (IOException e) {
+      throw new IllegalStateException(String.format("Unable to prepare Firefox profile template from '%s'", profileDirectory), e);
+    }
+  }
+
+  /**
+   * Same extension the FirefoxDriver installs, including the
+   * <code>webdriver.firefox.driver</code> override.
+   */
+  private static Extension getWebDriverExtension()
+  {
+    String customExtension = StringUtils.trimToNull(System.getProperty("webdriver.firefox.driver"));
+
+    if (customExtension != null) {
+      return new FileExtension(new File(customExtension));
+    }
+    return new ClasspathExtension(FirefoxProfile.class, "/" + FirefoxProfile.class.getPackage().getName().replace(".", "/") + "/webdriver.xpi");
+  }
+
+  private File newClone()
+  {
+    final Path source = templateDir.toPath();
+    final Path target = getClonesFs().createTempDir("profile", "seauto").toPath();
+
+    try {
+      Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+            throws IOException
+        {
+          Files.createDirectories(target.resolve(source.relativize(dir)));
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+            throws IOException
+        {
+          Path relative = source.relativize(file);
+          Path copy = target.resolve(relative);
+
+          if (relative.startsWith(EXTENSIONS_DIR)) {
+            try {
+              Files.createLink(copy, file);
+              return FileVisitResult.CONTINUE;
+            }
+            catch (IOException | UnsupportedOperationException e) {
+              LOG.debug("Unable to hard link {}, copying it instead", file, e);
+            }
+          }
+
+          Files.copy(file, copy);
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    }
+    catch (IOException e) {
+      throw new WebDriverException(String.format("Unable to clone Firefox profile template '%s'", templateDir), e);
+    }
+
+    return target.toFile();
+  }
+
+  private static synchronized File getRootDir()
+  {
+    if (rootDir != null) {
+      return rootDir;
+    }
+
+    File sharedMemory = new File(SHARED_MEMORY_DIR);
+    File parent = sharedMemory.isDirectory() && sharedMemory.canWrite() ? sharedMemory : FileUtils.getTempDirectory();
+
+    try {
+      rootDir = Files.createTempDirectory(parent.toPath(), "seauto-firefox-profiles").toFile();
+    }
+    catch (IOException e) {
+      throw new IllegalStateException(String.format("Unable to create Firefox profile directory in '%s'", parent), e);
+    }
+
+    LOG.debug("Firefox profile templates stored in {}", rootDir);
+
+    Runtime.getRuntime().addShutdownHook(new Thread("seauto-firefox-profile-cleanup") {
+
+      @Override
+      public void run()
+      {
+        FileUtils.deleteQuietly(rootDir);
+      }
+    });
+    return rootDir;
+  }
+
+  private static synchronized TemporaryFilesystem getClonesFs()
+  {
+    if (clonesFs == null) {
+      File clonesDir = new File(getRootDir(), "clones");
+
+      if (!clonesDir.mkdirs()) {
+        throw new IllegalStateException(String.format("Unable to create Firefox profile clone directory '%s'", clonesDir));
+      }
+      clonesFs = TemporaryFilesystem.getTmpFsBasedOn(clonesDir);
+    }
+    return clonesFs;
+  }
+
+  /**
+   * Profile that lays itself out as a clone of the template. Only the
+   * preferences set on this profile, like the WebDriver port, are written
+   * for each session.
+   */
+  private class ClonedFirefoxProfile
+      extends FirefoxProfile
+  {
+
+    @Override
+    public File layoutOnDisk()
+    {
+      File clone = newClone();
+      updateUserPrefs(new File(clone, "user.js"));
+      return clone;
+    }
+
+    @Override
+    public boolean containsWebDriverExtension()
+    {
+      // already installed in the template
+      return true;
+    }
+
+    @Override
+    public void clean(File profileDir)
+    {
+      getClonesFs().deleteTempDir(profileDir);
+    }
+  }
+}
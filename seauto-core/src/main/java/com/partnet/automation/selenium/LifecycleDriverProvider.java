@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium;
+
+import com.partnet.automation.Browser;
+
+/**
+ * {@link DriverProvider} that also takes part in the test lifecycle. The test
+ * runners check for this interface, so existing {@link DriverProvider}
+ * implementations keep working without it.
+ *
+ * @see AbstractConfigurableDriverProvider
+ */
+public interface LifecycleDriverProvider
+    extends DriverProvider
+{
+
+  /**
+   * Hint that the calling thread will launch the specified web driver next.
+   * Implementations may use this to start the driver ahead of time.
+   *
+   * @param browser what browser will be launched next, null for the default
+   */
+  void prelaunch(Browser browser);
+
+  /**
+   * Ends the web driver for calling thread
+   *
+   * @param failed true if the test that used the web driver failed
+   */
+  void end(boolean failed);
+
+  /**
+   * Saves the page source of the driver for the calling thread.
+   *
+   * @param htmlPath location where the html should be saved at
+   * @param baseUrl root relative urls of the page are rewritten against this
+   *          url, null or blank to keep them as they are
+   */
+  void saveHtml(String htmlPath, String baseUrl);
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.enterprise.inject.Alternative;
+
+import org.apache.commons.lang.StringUtils;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.partnet.automation.Browser;
+
+/**
+ * {@link DriverProvider} that leases already started drivers from the
+ * {@link DriverPool} instead of starting and quitting a browser for every
+ * test. Between leases the browser session is reset with
+ * {@link #resetSession(WebDriver)}.
+ * <p>
+ * Set {@link #POOL_PREWARM} to a comma separated list of browsers to start the
+ * pooled drivers in the background as soon as the provider is created.
+ * <p>
+ * Android drivers are never pooled.
+ *
+ * @see DriverPool
+ */
+@Alternative
+public class PooledDriverProvider
+    extends AbstractConfigurableDriverProvider
+{
+
+  private static final Logger LOG = LoggerFactory.getLogger(PooledDriverProvider.class);
+
+  protected final String POOL_PREWARM = "test.config.driver.pool.prewarm";
+
+  // browsers are only prewarmed once per JVM, no matter how many providers are created
+  private static final Set<Browser> prewarmedBrowsers = Collections.newSetFromMap(new ConcurrentHashMap<Browser, Boolean>());
+
+  private final DriverPool pool = DriverPool.getInstance();
+
+  public PooledDriverProvider()
+  {
+    prewarm();
+  }
+
+  @Override
+  protected WebDriver getWebDriver(Browser browser)
+  {
+    return super.getDefaultWebDriver(browser);
+  }
+
+  @Override
+  protected WebDriver acquireWebDriver(Browser browser)
+  {
+    if (browser.isAndroid()) {
+      return super.acquireWebDriver(browser);
+    }
+
+    WebDriver driver = pool.lease(browser);
+
+    if (driver == null) {
+      LOG.debug("No idle {} driver available, starting a new one", browser);
+      driver = getWebDriver(browser);
+      pool.register(driver, browser);
+    }
+
+    return driver;
+  }
+
+  @Override
+  protected void releaseWebDriver(WebDriver driver, boolean reusable)
+  {
+    if (Browser.getBrowser(driver).isAndroid()) {
+      super.releaseWebDriver(driver, reusable);
+      return;
+    }
+
+    pool.release(driver, reusable && resetSession(driver));
+  }
+
+  /**
+   * Starts the drivers listed in {@link #POOL_PREWARM} in the background, so
+   * the first tests do not wait on a cold browser start.
+   */
+  private void prewarm()
+  {
+    String browsers = StringUtils.trimToNull(System.getProperty(POOL_PREWARM));
+
+    if (browsers == null) {
+      return;
+    }
+
+    for (String name : browsers.split(",")) {
+      final Browser browser = Browser.valueOfByName(name.trim().toUpperCase());
+
+      if (browser == null || browser.isAndroid() || !prewarmedBrowsers.add(browser)) {
+        continue;
+      }
+
+      int toStart = pool.getPoolSize(browser) - pool.getIdleCount(browser);
+
+      for (int i = 0; i < toStart; i++) {
+        Thread starter = new Thread("seauto-driver-pool-prewarm-" + browser.name().toLowerCase()) {
+
+          @Override
+          public void run()
+          {
+            try {
+              pool.offer(getWebDriver(browser), browser);
+            }
+            catch (RuntimeException e) {
+              LOG.warn("Unable to prewarm {} driver", browser, e);
+            }
+          }
+        };
+        starter.setDaemon(true);
+        starter.start();
+      }
+    }
+  }
+}
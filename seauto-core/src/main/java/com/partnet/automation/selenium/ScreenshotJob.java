@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import org.openqa.selenium.Cookie;
+
+/**
+ * Describes a page for the {@link ScreenshotRenderer} to render. The page is
+ * either loaded from its url with the session cookies, or rebuilt from its
+ * page source.
+ */
+public final class ScreenshotJob
+{
+
+  private final String url;
+
+  private final String pageSource;
+
+  private final String baseUrl;
+
+  private final Set<Cookie> cookies;
+
+  private ScreenshotJob(String url, String pageSource, String baseUrl, Set<Cookie> cookies)
+  {
+    this.url = url;
+    this.pageSource = pageSource;
+    this.baseUrl = Objects.requireNonNull(baseUrl, "baseUrl cannot be null");
+    this.cookies = Collections.unmodifiableSet(new LinkedHashSet<>(cookies));
+  }
+
+  /**
+   * Render the page by loading the url again with the given cookies.
+   *
+   * @param url url of the page
+   * @param baseUrl url of the site, loaded first so the cookies can be set
+   * @param cookies cookies of the session
+   * @return the job
+   */
+  public static ScreenshotJob forUrl(String url, String baseUrl, Set<Cookie> cookies)
+  {
+    return new ScreenshotJob(Objects.requireNonNull(url, "url cannot be null"), null, baseUrl, cookies);
+  }
+
+  /**
+   * Render the page from its source, as it currently is in the browser.
+   * Relative links of the page are resolved against the base url.
+   *
+   * @param pageSource html of the page
+   * @param baseUrl url of the site
+   * @return the job
+   */
+  public static ScreenshotJob forPageSource(String pageSource, String baseUrl)
+  {
+    return new ScreenshotJob(null, Objects.requireNonNull(pageSource, "pageSource cannot be null"), baseUrl, Collections.<Cookie> emptySet());
+  }
+
+  /**
+   * @return the url of the page, or null if the page is rendered from source
+   */
+  public String getUrl()
+  {
+    return url;
+  }
+
+  /**
+   * @return the source of the page, or null if the page is loaded from its url
+   */
+  public String getPageSource()
+  {
+    return pageSource;
+  }
+
+  public String getBaseUrl()
+  {
+    return baseUrl;
+  }
+
+  public Set<Cookie> getCookies()
+  {
+    return cookies;
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+
+import org.apache.commons.lang.StringEscapeUtils;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JVM wide pool of long lived browsers that render {@link ScreenshotJob}s for
+ * drivers that can not take screenshots themselves, like HtmlUnit.
+ * <p>
+ * At most {@link #RENDERERS} browsers are started (default 1). They are
+ * shared by every thread and quit when the JVM shuts down.
+ */
+public final class ScreenshotRenderer
+{
+
+  private static final Logger LOG = LoggerFactory.getLogger(ScreenshotRenderer.class);
+
+  public static final String RENDERERS = "test.config.driver.screenshot.renderers";
+
+  private static final String BLANK_PAGE = "about:blank";
+
+  private static final String WRITE_PAGE_SCRIPT = "document.open(); document.write(arguments[0]); document.close();";
+
+  private static final ScreenshotRenderer instance = new ScreenshotRenderer();
+
+  private final LinkedBlockingDeque<WebDriver> idleRenderers = new LinkedBlockingDeque<>();
+
+  private final Semaphore permits = new Semaphore(Math.max(1, Integer.getInteger(RENDERERS, 1)), true);
+
+  public static ScreenshotRenderer getInstance()
+  {
+    return ScreenshotRenderer.instance;
+  }
+
+  private ScreenshotRenderer()
+  {
+    Runtime.getRuntime().addShutdownHook(new Thread("seauto-screenshot-renderer-shutdown") {
+
+      @Override
+      public void run()
+      {
+        WebDriver renderer;
+        while ((renderer = idleRenderers.pollFirst()) != null) {
+          quit(renderer);
+        }
+      }
+    });
+  }
+
+  /**
+   * Render the given job. Waits for a renderer if they are all busy.
+   *
+   * @param job page to render
+   * @param rendererFactory starts a new renderer if one is needed, the
+   *          renderer must implement {@link TakesScreenshot}
+   * @return the screenshot as PNG bytes
+   */
+  public byte[] render(ScreenshotJob job, Callable<WebDriver> rendererFactory)
+  {
+    try {
+      permits.acquire();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new WebDriverException("Interrupted while waiting for a screenshot renderer", e);
+    }
+
+    WebDriver renderer = null;
+    boolean reusable = false;
+
+    try {
+      renderer = idleRenderers.pollFirst();
+
+      if (renderer == null) {
+        LOG.debug("Starting screenshot renderer");
+        renderer = rendererFactory.call();
+      }
+
+      byte[] screenshot = render(renderer, job);
+      reusable = reset(renderer);
+      return screenshot;
+    }
+    catch (WebDriverException e) {
+      throw e;
+    }
+    catch (Exception e) {
+      throw new WebDriverException("Unable to start screenshot renderer", e);
+    }
+    finally {
+      if (renderer != null) {
+        if (reusable) {
+          idleRenderers.offerFirst(renderer);
+        }
+        else {
+          quit(renderer);
+        }
+      }
+      permits.release();
+    }
+  }
+
+  private byte[] render(WebDriver renderer, ScreenshotJob job)
+  {
+    renderer.get(job.getBaseUrl());
+
+    if (job.getPageSource() != null) {
+      ((JavascriptExecutor) renderer).executeScript(WRITE_PAGE_SCRIPT, withBase(job.getPageSource(), job.getBaseUrl()));
+    }
+    else {
+      for (Cookie cookie : job.getCookies()) {
+        LOG.debug("Cookie: {}", cookie.toString());
+        renderer.manage().addCookie(cookie);
+      }
+      renderer.get(job.getUrl());
+    }
+
+    return ((TakesScreenshot) renderer).getScreenshotAs(OutputType.BYTES);
+  }
+
+  /**
+   * Adds a base element to the page, so relative links are resolved against
+   * the site instead of the blank renderer page.
+   */
+  private static String withBase(String pageSource, String baseUrl)
+  {
+    String base = String.format("<base href=\"%s\">", StringEscapeUtils.escapeHtml(baseUrl));
+    int head = pageSource.toLowerCase().indexOf("<head");
+
+    if (head < 0) {
+      return base + pageSource;
+    }
+
+    int headEnd = pageSource.indexOf('>', head);
+    return pageSource.substring(0, headEnd + 1) + base + pageSource.substring(headEnd + 1);
+  }
+
+  /**
+   * @return true if the renderer is clean and can render the next job
+   */
+  private static boolean reset(WebDriver renderer)
+  {
+    try {
+      renderer.manage().deleteAllCookies();
+      renderer.get(BLANK_PAGE);
+      return true;
+    }
+    catch (WebDriverException e) {
+      LOG.debug("Unable to reset screenshot renderer", e);
+      return false;
+    }
+  }
+
+  private static void quit(WebDriver renderer)
+  {
+    try {
+      renderer.quit();
+    }
+    catch (WebDriverException e) {
+      LOG.debug("Unable to quit screenshot renderer", e);
+    }
+  }
+}
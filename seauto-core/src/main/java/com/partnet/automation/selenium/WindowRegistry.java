@@ -0,0 +1,213 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+/**
+ * Keeps track of the windows of a driver, so a newly opened window can be
+ * told from the known ones by the window handles alone, without switching
+ * into every window.
+ * <p>
+ * The registry of a driver is created the first time it is asked for. The
+ * window the driver is focused on then becomes the primary window, and the
+ * only known window. Windows become known once they are switched to with
+ * {@link #verified(String, String)}, which also records their title.
+ * <p>
+ * Registries do not keep their driver alive, so they are dropped together with
+ * the driver.
+ */
+public final class WindowRegistry
+{
+
+  private static final Map<WebDriver, WindowRegistry> registries = Collections.synchronizedMap(new WeakHashMap<WebDriver, WindowRegistry>());
+
+  // known window handles to their last verified title, in the order they became known
+  private final Map<String, String> knownWindows = new LinkedHashMap<>();
+
+  private String primaryHandle;
+
+  private WindowRegistry(String primaryHandle)
+  {
+    this.primaryHandle = primaryHandle;
+    knownWindows.put(primaryHandle, null);
+  }
+
+  /**
+   * @param driver driver to get the registry for
+   * @return the registry of the driver, created if it has none yet
+   */
+  public static WindowRegistry get(WebDriver driver)
+  {
+    synchronized (registries) {
+      WindowRegistry registry = registries.get(driver);
+
+      if (registry == null) {
+        registry = new WindowRegistry(driver.getWindowHandle());
+        registries.put(driver, registry);
+      }
+      return registry;
+    }
+  }
+
+  /**
+   * @return handle of the primary window
+   */
+  public synchronized String getPrimaryHandle()
+  {
+    return primaryHandle;
+  }
+
+  public synchronized void setPrimaryHandle(String primaryHandle)
+  {
+    this.primaryHandle = Objects.requireNonNull(primaryHandle, "primaryHandle cannot be null");
+    if (!knownWindows.containsKey(primaryHandle)) {
+      knownWindows.put(primaryHandle, null);
+    }
+  }
+
+  /**
+   * Records a window as known, after it was switched to and found to be the
+   * window looked for.
+   *
+   * @param handle handle of the window
+   * @param title title of the window, or null if it was not read
+   */
+  public synchronized void verified(String handle, String title)
+  {
+    if (title != null || !knownWindows.containsKey(handle)) {
+      knownWindows.put(handle, title);
+    }
+  }
+
+  /**
+   * @param handle handle of a window
+   * @return true if the window is the primary window or was verified
+   */
+  public synchronized boolean isKnown(String handle)
+  {
+    return knownWindows.containsKey(handle);
+  }
+
+  /**
+   * @param handle handle of a window
+   * @return the title the window had when last verified, or null if unknown
+   */
+  public synchronized String getTitle(String handle)
+  {
+    return knownWindows.get(handle);
+  }
+
+  /**
+   * Gets the open windows that are not known yet, with a single driver call.
+   * Windows that were closed are forgotten.
+   *
+   * @param driver driver of this registry
+   * @return handles of the unknown windows
+   */
+  public Set<String> getNewHandles(WebDriver driver)
+  {
+    Set<String> handles = driver.getWindowHandles();
+
+    synchronized (this) {
+      knownWindows.keySet().retainAll(handles);
+
+      Set<String> newHandles = new LinkedHashSet<>(handles);
+      newHandles.removeAll(knownWindows.keySet());
+      return newHandles;
+    }
+  }
+
+  /**
+   * Orders the open windows by how likely they are the one looked for: known
+   * windows last verified with the title first, then the other known windows,
+   * then the unknown ones.
+   *
+   * @param driver driver of this registry
+   * @param title title of the window looked for, or null
+   * @return handles of all open windows
+   */
+  public List<String> getSearchOrder(WebDriver driver, String title)
+  {
+    Set<String> newHandles = getNewHandles(driver);
+    List<String> order = new ArrayList<>();
+
+    synchronized (this) {
+      for (Map.Entry<String, String> known : knownWindows.entrySet()) {
+        if (title != null && title.equals(known.getValue())) {
+          order.add(known.getKey());
+        }
+      }
+      for (String known : knownWindows.keySet()) {
+        if (!order.contains(known)) {
+          order.add(known);
+        }
+      }
+    }
+    order.addAll(newHandles);
+    return order;
+  }
+
+  /**
+   * Waits for a window to be opened that is not known yet. A popup reopened
+   * with <code>window.open(url, name)</code> keeps the handle of a known
+   * window, so when there are no unknown windows the known windows besides
+   * the primary one are given instead.
+   *
+   * @return condition that gives the handles of the unknown windows, or of
+   *         the other known windows if there are none
+   */
+  public ExpectedCondition<Set<String>> newWindowOpened()
+  {
+    return new ExpectedCondition<Set<String>>() {
+
+      @Override
+      public Set<String> apply(WebDriver driver)
+      {
+        Set<String> candidates = getNewHandles(driver);
+
+        if (candidates.isEmpty()) {
+          synchronized (WindowRegistry.this) {
+            candidates.addAll(knownWindows.keySet());
+            candidates.remove(primaryHandle);
+          }
+        }
+        return candidates.isEmpty() ? null : candidates;
+      }
+
+      // Used when the timeout exception is thrown.
+      @Override
+      public String toString()
+      {
+        synchronized (WindowRegistry.this) {
+          return String.format("a window besides the primary window %s", primaryHandle);
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium.remote;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Requests sessions with capped exponential backoff and full jitter: after
+ * failed attempt <code>n</code> the strategy sleeps a random time between 0
+ * and <code>min(maxPause, basePause * 2^n)</code>. Randomizing the whole pause
+ * keeps many test threads from hitting a saturated grid in lockstep.
+ * <p>
+ * No new attempt is started once the deadline has passed. Each attempt may
+ * issue several concurrent session requests; the first session created is
+ * kept and the others are quit in the background once they complete.
+ */
+public class BackoffRetryStrategy
+    implements SessionAcquisitionStrategy
+{
+
+  private static final Logger LOG = LoggerFactory.getLogger(BackoffRetryStrategy.class);
+
+  private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable r)
+    {
+      Thread thread = new Thread(r, "seauto-remote-session-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+
+  private final int attempts;
+
+  private final long basePauseMillis;
+
+  private final long maxPauseMillis;
+
+  private final long deadlineMillis;
+
+  private final int parallelRequests;
+
+  /**
+   * @param attempts max number of attempts
+   * @param basePauseMillis pause cap after the first failed attempt
+   * @param maxPauseMillis max pause cap between attempts
+   * @param deadlineMillis overall time allowed to acquire a session
+   * @param parallelRequests number of concurrent session requests per attempt
+   */
+  public BackoffRetryStrategy(int attempts, long basePauseMillis, long maxPauseMillis, long deadlineMillis, int parallelRequests)
+  {
+    if (attempts < 1 || parallelRequests < 1) {
+      throw new IllegalArgumentException(String.format("attempts (%d) and parallel requests (%d) must be at least 1", attempts, parallelRequests));
+    }
+
+    this.attempts = attempts;
+    this.basePauseMillis = basePauseMillis;
+    this.maxPauseMillis = maxPauseMillis;
+    this.deadlineMillis = deadlineMillis;
+    this.parallelRequests = parallelRequests;
+  }
+
+  @Override
+  public WebDriver acquire(RemoteSessionFactory factory)
+  {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+    WebDriverException lastException = null;
+
+    for (int tries = 1; tries <= attempts; tries++) {
+      LOG.debug("Try {} with {} session request(s)", tries, parallelRequests);
+
+      try {
+        return parallelRequests == 1 ? factory.create() : createFirst(factory, deadline);
+      }
+      catch (CircuitOpenException e) {
+        throw e;
+      }
+      catch (WebDriverException e) {
+        LOG.error("Remote WebDriver was unable to start! " + e.getMessage(), e);
+        lastException = e;
+      }
+
+      long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+      if (tries >= attempts || remaining <= 0) {
+        break;
+      }
+
+      long pause = Math.min(getPause(tries), remaining);
+      LOG.debug("Waiting {}ms before the next session request", pause);
+
+      try {
+        Thread.sleep(pause);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new WebDriverException("Interrupted while waiting to retry the remote session", e);
+      }
+    }
+
+    throw lastException;
+  }
+
+  /**
+   * @param tries number of failed attempts so far
+   * @return a random pause between 0 and the capped exponential pause
+   */
+  protected long getPause(int tries)
+  {
+    // avoid overflowing the shift for large attempt counts
+    long cap = tries >= 31 ? maxPauseMillis : Math.min(maxPauseMillis, basePauseMillis * (1L << (tries - 1)));
+    return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+  }
+
+  /**
+   * Issues {@link #parallelRequests} session requests at once and keeps the
+   * first one that succeeds.
+   */
+  private WebDriver createFirst(final RemoteSessionFactory factory, long deadline)
+  {
+    CompletionService<WebDriver> completion = new ExecutorCompletionService<>(executor);
+    List<Future<WebDriver>> requests = new ArrayList<>();
+
+    for (int i = 0; i < parallelRequests; i++) {
+      requests.add(completion.submit(new Callable<WebDriver>() {
+
+        @Override
+        public WebDriver call()
+            throws Exception
+        {
+          return factory.create();
+        }
+      }));
+    }
+
+    WebDriverException lastException = null;
+
+    try {
+      for (int i = 0; i < parallelRequests; i++) {
+        Future<WebDriver> done = completion.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+
+        if (done == null) {
+          throw new WebDriverException(String.format("No remote session was created within %dms", deadlineMillis));
+        }
+
+        requests.remove(done);
+
+        try {
+          return done.get();
+        }
+        catch (ExecutionException e) {
+          lastException = e.getCause() instanceof WebDriverException ? (WebDriverException) e.getCause() : new WebDriverException(e.getCause());
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new WebDriverException("Interrupted while waiting for a remote session", e);
+    }
+    finally {
+      quitWhenDone(factory, requests);
+    }
+
+    throw lastException;
+  }
+
+  /**
+   * Quits the sessions of the given requests in the background, once they are
+   * created.
+   */
+  private static void quitWhenDone(final RemoteSessionFactory factory, List<Future<WebDriver>> requests)
+  {
+    for (final Future<WebDriver> request : requests) {
+      executor.submit(new Runnable() {
+
+        @Override
+        public void run()
+        {
+          try {
+            WebDriver driver = request.get();
+            LOG.debug("Quitting unused remote session {}", driver);
+            factory.discard(driver);
+          }
+          catch (ExecutionException | WebDriverException e) {
+            LOG.debug("Unused remote session request did not complete", e);
+          }
+          catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      });
+    }
+  }
+}
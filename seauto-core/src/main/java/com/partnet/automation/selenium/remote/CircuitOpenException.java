@@ -0,0 +1,36 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium.remote;
+
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * Thrown instead of requesting a remote session while the
+ * {@link RemoteSessionCircuitBreaker} is open. Session acquisition strategies
+ * do not retry it.
+ */
+public class CircuitOpenException
+    extends WebDriverException
+{
+
+  private static final long serialVersionUID = 1L;
+
+  public CircuitOpenException(String message)
+  {
+    super(message);
+  }
+}
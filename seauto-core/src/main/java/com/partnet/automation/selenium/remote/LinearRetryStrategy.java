@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium.remote;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Requests a session up to a fixed number of times, pausing a little longer
+ * after each failed attempt (<code>pause * attempt</code>).
+ */
+public class LinearRetryStrategy
+    implements SessionAcquisitionStrategy
+{
+
+  private static final Logger LOG = LoggerFactory.getLogger(LinearRetryStrategy.class);
+
+  private final int attempts;
+
+  private final long pauseMillis;
+
+  /**
+   * @param attempts max number of session requests
+   * @param pauseMillis pause after the first failed request
+   */
+  public LinearRetryStrategy(int attempts, long pauseMillis)
+  {
+    this.attempts = attempts;
+    this.pauseMillis = pauseMillis;
+  }
+
+  @Override
+  public WebDriver acquire(RemoteSessionFactory factory)
+  {
+    int tries = 1;
+
+    while (true) {
+      LOG.debug("Try {}", tries);
+
+      try {
+        return factory.create();
+      }
+      catch (CircuitOpenException e) {
+        throw e;
+      }
+      catch (WebDriverException e) {
+        LOG.error("Remote WebDriver was unable to start! " + e.getMessage(), e);
+
+        if (tries >= attempts) {
+          throw e;
+        }
+
+        try {
+          Thread.sleep(pauseMillis * tries);
+        }
+        catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          throw new WebDriverException("Interrupted while waiting to retry the remote session", ie);
+        }
+        tries++;
+      }
+    }
+  }
+}
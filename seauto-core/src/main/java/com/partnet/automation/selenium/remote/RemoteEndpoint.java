@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium.remote;
+
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A remote Selenium hub or node, with the bookkeeping used by the
+ * {@link RemoteEndpointBalancer} to choose between endpoints.
+ */
+public class RemoteEndpoint
+{
+
+  // weight of the newest sample in the session creation time average
+  private static final double LATENCY_SMOOTHING = 0.3;
+
+  private final URL url;
+
+  private final AtomicInteger outstandingSessions = new AtomicInteger();
+
+  private int consecutiveFailures = 0;
+
+  private boolean outOfRotation = false;
+
+  // only meaningful while out of rotation, nanoTime values can be 0 or negative
+  private long unhealthyUntil = 0;
+
+  private double latencyMillis = -1;
+
+  public RemoteEndpoint(URL url)
+  {
+    this.url = url;
+  }
+
+  public URL getUrl()
+  {
+    return url;
+  }
+
+  /**
+   * @return number of sessions created on this endpoint that have not been
+   *         quit yet
+   */
+  public int getOutstandingSessions()
+  {
+    return outstandingSessions.get();
+  }
+
+  /**
+   * @return moving average of the session creation time, or -1 if no session
+   *         has been created yet
+   */
+  public synchronized double getLatencyMillis()
+  {
+    return latencyMillis;
+  }
+
+  /**
+   * @return true unless the endpoint has been taken out of rotation
+   */
+  public synchronized boolean isHealthy()
+  {
+    return !outOfRotation || System.nanoTime() - unhealthyUntil >= 0;
+  }
+
+  synchronized void succeeded(long elapsedMillis)
+  {
+    consecutiveFailures = 0;
+    outOfRotation = false;
+    latencyMillis = latencyMillis < 0 ? elapsedMillis : LATENCY_SMOOTHING * elapsedMillis + (1 - LATENCY_SMOOTHING) * latencyMillis;
+    outstandingSessions.incrementAndGet();
+  }
+
+  /**
+   * @return true if the failure took the endpoint out of rotation
+   */
+  synchronized boolean failed(int maxFailures, long cooldownMillis)
+  {
+    consecutiveFailures++;
+
+    if (consecutiveFailures < maxFailures) {
+      return false;
+    }
+
+    // give the endpoint another chance once the cooldown is over
+    consecutiveFailures = 0;
+    outOfRotation = true;
+    unhealthyUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(cooldownMillis);
+    return true;
+  }
+
+  void ended()
+  {
+    outstandingSessions.decrementAndGet();
+  }
+
+  synchronized long getUnhealthyUntil()
+  {
+    return unhealthyUntil;
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format("%s (sessions: %d, latency: %.0fms)", url, getOutstandingSessions(), getLatencyMillis());
+  }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium.remote;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.SessionId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Spreads remote sessions across several Selenium endpoints.
+ * <p>
+ * An endpoint is taken out of rotation after a number of consecutive failed
+ * session requests, and put back once its cooldown is over. If every endpoint
+ * is out of rotation, the one that will recover first is used anyway, so
+ * session requests still fail with the real error.
+ * <p>
+ * Sessions are tracked by id until they are given back with
+ * {@link #release(WebDriver)}, which lets the least sessions policy work
+ * across every balancer in the JVM.
+ */
+public class RemoteEndpointBalancer
+{
+
+  private static final Logger LOG = LoggerFactory.getLogger(RemoteEndpointBalancer.class);
+
+  /**
+   * How the next endpoint is chosen
+   */
+  public enum Policy
+  {
+    /**
+     * Use each endpoint in turn
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Use the endpoint with the fewest sessions that have not been quit
+     */
+    LEAST_SESSIONS,
+
+    /**
+     * Pick endpoints at random, weighted towards the ones that create sessions
+     * fastest
+     */
+    LATENCY;
+
+    /**
+     * @param name policy name, e.g. <code>least-sessions</code>
+     * @return the matching policy
+     */
+    public static Policy fromName(String name)
+    {
+      try {
+        return Policy.valueOf(name.trim().toUpperCase().replace('-', '_'));
+      }
+      catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(String.format("Unknown balancing policy '%s', expected round-robin, least-sessions or latency", name), e);
+      }
+    }
+  }
+
+  private static final Map<SessionId, RemoteEndpoint> sessions = new ConcurrentHashMap<>();
+
+  private static final Map<String, RemoteEndpointBalancer> balancers = new ConcurrentHashMap<>();
+
+  private final List<RemoteEndpoint> endpoints;
+
+  private final AtomicInteger next = new AtomicInteger();
+
+  private final Policy policy;
+
+  private final int maxFailures;
+
+  private final long cooldownMillis;
+
+  /**
+   * Get the balancer for the given endpoints. Balancers are shared across the
+   * JVM, so endpoint health and session counts are known to every thread.
+   *
+   * @param urls endpoints to balance across
+   * @param policy how to choose the next endpoint
+   * @param maxFailures consecutive failures before an endpoint is taken out
+   *          of rotation
+   * @param cooldownMillis time an endpoint stays out of rotation
+   * @return the shared balancer
+   */
+  public static RemoteEndpointBalancer getInstance(List<URL> urls, Policy policy, int maxFailures, long cooldownMillis)
+  {
+    String key = String.format("%s|%s|%d|%d", urls, policy, maxFailures, cooldownMillis);
+    RemoteEndpointBalancer balancer = balancers.get(key);
+
+    if (balancer == null) {
+      synchronized (balancers) {
+        balancer = balancers.get(key);
+        if (balancer == null) {
+          balancer = new RemoteEndpointBalancer(urls, policy, maxFailures, cooldownMillis);
+          balancers.put(key, balancer);
+        }
+      }
+    }
+    return balancer;
+  }
+
+  public RemoteEndpointBalancer(List<URL> urls, Policy policy, int maxFailures, long cooldownMillis)
+  {
+    if (urls.isEmpty()) {
+      throw new IllegalArgumentException("At least one endpoint is required");
+    }
+
+    List<RemoteEndpoint> endpoints = new ArrayList<>();
+    for (URL url : urls) {
+      endpoints.add(new RemoteEndpoint(url));
+    }
+
+    this.endpoints = Collections.unmodifiableList(endpoints);
+    this.policy = policy;
+    this.maxFailures = maxFailures;
+    this.cooldownMillis = cooldownMillis;
+  }
+
+  /**
+   * @return the endpoint to request the next session from
+   */
+  public RemoteEndpoint select()
+  {
+    List<RemoteEndpoint> healthy = new ArrayList<>();
+    for (RemoteEndpoint endpoint : endpoints) {
+      if (endpoint.isHealthy()) {
+        healthy.add(endpoint);
+      }
+    }
+
+    if (healthy.isEmpty()) {
+      RemoteEndpoint soonest = endpoints.get(0);
+      for (RemoteEndpoint endpoint : endpoints) {
+        if (endpoint.getUnhealthyUntil() - soonest.getUnhealthyUntil() < 0) {
+          soonest = endpoint;
+        }
+      }
+      LOG.warn("All remote endpoints are out of rotation, using {}", soonest);
+      return soonest;
+    }
+
+    switch (policy) {
+      case LEAST_SESSIONS:
+        return selectLeastSessions(healthy);
+      case LATENCY:
+        return selectByLatency(healthy);
+      default:
+        return healthy.get(Math.abs(next.getAndIncrement() % healthy.size()));
+    }
+  }
+
+  /**
+   * Record a session created on the given endpoint.
+   *
+   * @param endpoint endpoint the session was requested from
+   * @param driver the created session
+   * @param elapsedMillis time it took to create the session
+   */
+  public void succeeded(RemoteEndpoint endpoint, WebDriver driver, long elapsedMillis)
+  {
+    endpoint.succeeded(elapsedMillis);
+
+    SessionId sessionId = getSessionId(driver);
+    if (sessionId != null) {
+      sessions.put(sessionId, endpoint);
+    }
+  }
+
+  /**
+   * Record a failed session request on the given endpoint.
+   *
+   * @param endpoint endpoint the session was requested from
+   */
+  public void failed(RemoteEndpoint endpoint)
+  {
+    if (endpoint.failed(maxFailures, cooldownMillis)) {
+      LOG.warn("Taking remote endpoint {} out of rotation for {}ms", endpoint.getUrl(), cooldownMillis);
+    }
+  }
+
+  /**
+   * @return the endpoints of this balancer
+   */
+  public List<RemoteEndpoint> getEndpoints()
+  {
+    return endpoints;
+  }
+
+  /**
+   * Gives back a session created through a balancer. Does nothing for any
+   * other driver, so it is safe to call for every driver that is quit.
+   *
+   * @param driver driver that is being quit
+   */
+  public static void release(WebDriver driver)
+  {
+    SessionId sessionId = getSessionId(driver);
+
+    if (sessionId == null) {
+      return;
+    }
+
+    RemoteEndpoint endpoint = sessions.remove(sessionId);
+    if (endpoint != null) {
+      endpoint.ended();
+    }
+  }
+
+  private RemoteEndpoint selectLeastSessions(List<RemoteEndpoint> healthy)
+  {
+    // start at a rotating offset so ties are spread across the endpoints
+    int offset = Math.abs(next.getAndIncrement() % healthy.size());
+    RemoteEndpoint least = null;
+
+    for (int i = 0; i < healthy.size(); i++) {
+      RemoteEndpoint endpoint = healthy.get((offset + i) % healthy.size());
+      if (least == null || endpoint.getOutstandingSessions() < least.getOutstandingSessions()) {
+        least = endpoint;
+      }
+    }
+    return least;
+  }
+
+  private RemoteEndpoint selectByLatency(List<RemoteEndpoint> healthy)
+  {
+    double[] weights = new double[healthy.size()];
+    double total = 0;
+    List<RemoteEndpoint> unmeasured = new ArrayList<>();
+
+    for (int i = 0; i < healthy.size(); i++) {
+      double latency = healthy.get(i).getLatencyMillis();
+
+      if (latency < 0) {
+        unmeasured.add(healthy.get(i));
+        continue;
+      }
+
+      weights[i] = 1 / (latency + 1);
+      total += weights[i];
+    }
+
+    // measure endpoints that have not created a session yet, in turn so
+    // threads starting together do not all go to the first one
+    if (!unmeasured.isEmpty()) {
+      return unmeasured.get(Math.abs(next.getAndIncrement() % unmeasured.size()));
+    }
+
+    double pick = ThreadLocalRandom.current().nextDouble(total);
+    for (int i = 0; i < weights.length; i++) {
+      pick -= weights[i];
+      if (pick < 0) {
+        return healthy.get(i);
+      }
+    }
+    return healthy.get(healthy.size() - 1);
+  }
+
+  private static SessionId getSessionId(WebDriver driver)
+  {
+    if (driver instanceof RemoteWebDriver) {
+      return ((RemoteWebDriver) driver).getSessionId();
+    }
+    return null;
+  }
+}
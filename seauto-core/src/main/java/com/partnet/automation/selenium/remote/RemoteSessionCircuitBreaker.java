@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium.remote;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Circuit breaker shared by every thread requesting remote sessions.
+ * <p>
+ * While {@link State#CLOSED} every request is let through. After
+ * <code>threshold</code> consecutive failed requests, across all threads, the
+ * breaker is {@link State#OPEN} and requests fail fast with a
+ * {@link CircuitOpenException}. Once the probe interval has passed a single
+ * request is let through as a probe ({@link State#HALF_OPEN}): if it succeeds
+ * the breaker closes, otherwise it opens again for another interval.
+ */
+public class RemoteSessionCircuitBreaker
+{
+
+  private static final Logger LOG = LoggerFactory.getLogger(RemoteSessionCircuitBreaker.class);
+
+  public enum State
+  {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private final int threshold;
+
+  private final long probeIntervalMillis;
+
+  private State state = State.CLOSED;
+
+  private int consecutiveFailures = 0;
+
+  private long openedAt;
+
+  /**
+   * @param threshold consecutive failures that open the breaker
+   * @param probeIntervalMillis time to wait before probing again while open
+   */
+  public RemoteSessionCircuitBreaker(int threshold, long probeIntervalMillis)
+  {
+    if (threshold < 1) {
+      throw new IllegalArgumentException(String.format("threshold must be at least 1, was %d", threshold));
+    }
+
+    this.threshold = threshold;
+    this.probeIntervalMillis = probeIntervalMillis;
+  }
+
+  /**
+   * Must be called before each session request.
+   *
+   * @throws CircuitOpenException if the request should not be made
+   */
+  public synchronized void beforeRequest()
+  {
+    if (state == State.CLOSED) {
+      return;
+    }
+
+    long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - openedAt);
+
+    if (state == State.OPEN && waited >= probeIntervalMillis) {
+      LOG.info("Probing remote endpoint after {}ms", waited);
+      state = State.HALF_OPEN;
+      return;
+    }
+
+    throw new CircuitOpenException(String.format("Remote session requests failed %d times in a row, failing fast. %s",
+        threshold, state == State.HALF_OPEN ? "A probe is in progress." : String.format("Next probe in %dms.", probeIntervalMillis - waited)));
+  }
+
+  /**
+   * Record a successful session request.
+   */
+  public synchronized void succeeded()
+  {
+    if (state != State.CLOSED) {
+      LOG.info("Remote session created, closing circuit breaker");
+    }
+
+    state = State.CLOSED;
+    consecutiveFailures = 0;
+  }
+
+  /**
+   * Record a failed session request.
+   */
+  public synchronized void failed()
+  {
+    consecutiveFailures++;
+
+    if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= threshold)) {
+      LOG.error("Remote session requests failed {} times in a row, opening circuit breaker for {}ms", consecutiveFailures, probeIntervalMillis);
+      state = State.OPEN;
+      openedAt = System.nanoTime();
+    }
+  }
+
+  public synchronized State getState()
+  {
+    return state;
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium.remote;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Creates a single remote browser session. Implementations should throw a
+ * {@link org.openqa.selenium.WebDriverException} if the session can not be
+ * created, so a {@link SessionAcquisitionStrategy} can retry it.
+ */
+public interface RemoteSessionFactory
+{
+
+  /**
+   * @return a newly created remote session
+   */
+  WebDriver create();
+
+  /**
+   * Quits a session created by {@link #create()} that is not needed after
+   * all.
+   *
+   * @param driver session to quit
+   */
+  void discard(WebDriver driver);
+}
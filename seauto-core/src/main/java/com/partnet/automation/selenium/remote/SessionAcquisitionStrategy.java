@@ -0,0 +1,38 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium.remote;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Decides how often and when a remote session is requested from a
+ * {@link RemoteSessionFactory} until one is created.
+ *
+ * @see LinearRetryStrategy
+ * @see BackoffRetryStrategy
+ */
+public interface SessionAcquisitionStrategy
+{
+
+  /**
+   * @param factory factory that creates a single session
+   * @return the created session
+   * @throws org.openqa.selenium.WebDriverException if no session could be
+   *           created
+   */
+  WebDriver acquire(RemoteSessionFactory factory);
+}
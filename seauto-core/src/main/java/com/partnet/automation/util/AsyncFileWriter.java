@@ -0,0 +1,177 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes files on a background thread, so tests do not wait on disk I/O for
+ * artifacts like screenshots.
+ * <p>
+ * Writes are queued in a bounded queue of {@link #QUEUE_SIZE} entries
+ * (default 16). When the queue is full, {@link #write(Path, byte[])} blocks
+ * until there is room, which keeps a slow disk from using up the heap. Call
+ * {@link #flush()} at the end of a suite to wait for every queued write; the
+ * queue is also flushed when the JVM shuts down.
+ */
+public final class AsyncFileWriter
+{
+
+  private static final Logger LOG = LoggerFactory.getLogger(AsyncFileWriter.class);
+
+  public static final String QUEUE_SIZE = "test.config.artifact.writer.queue.size";
+
+  private static final AsyncFileWriter instance = new AsyncFileWriter();
+
+  private final BlockingQueue<PendingWrite> queue = new ArrayBlockingQueue<>(Math.max(1, Integer.getInteger(QUEUE_SIZE, 16)));
+
+  // queued writes plus the one being written
+  private long pending = 0;
+
+  public static AsyncFileWriter getInstance()
+  {
+    return AsyncFileWriter.instance;
+  }
+
+  private AsyncFileWriter()
+  {
+    Thread writer = new Thread("seauto-artifact-writer") {
+
+      @Override
+      public void run()
+      {
+        while (true) {
+          try {
+            writeNext();
+          }
+          catch (InterruptedException e) {
+            return;
+          }
+        }
+      }
+    };
+    writer.setDaemon(true);
+    writer.start();
+
+    Runtime.getRuntime().addShutdownHook(new Thread("seauto-artifact-writer-flush") {
+
+      @Override
+      public void run()
+      {
+        flush();
+      }
+    });
+  }
+
+  /**
+   * Queue the given bytes to be written to the file, replacing the file if it
+   * exists. Missing parent directories are created.
+   *
+   * @param path file to write
+   * @param content bytes to write, must not be changed afterwards
+   */
+  public void write(Path path, byte[] content)
+  {
+    synchronized (this) {
+      pending++;
+    }
+
+    try {
+      queue.put(new PendingWrite(path, content));
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      written();
+      LOG.error("Interrupted while queueing write to '{}'", path);
+    }
+  }
+
+  /**
+   * Waits until every queued write has been written.
+   */
+  public synchronized void flush()
+  {
+    boolean interrupted = false;
+
+    while (pending > 0) {
+      try {
+        wait();
+      }
+      catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void writeNext()
+      throws InterruptedException
+  {
+    PendingWrite write = queue.take();
+
+    try {
+      Files.createDirectories(write.path.toAbsolutePath().getParent());
+
+      try (FileChannel channel = FileChannel.open(write.path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        ByteBuffer buffer = ByteBuffer.wrap(write.content);
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      LOG.debug("Wrote {} bytes to {}", write.content.length, write.path);
+    }
+    catch (IOException | RuntimeException e) {
+      LOG.error("Unable to write '{}'", write.path, e);
+    }
+    finally {
+      written();
+    }
+  }
+
+  private synchronized void written()
+  {
+    pending--;
+    notifyAll();
+  }
+
+  private static class PendingWrite
+  {
+
+    private final Path path;
+
+    private final byte[] content;
+
+    public PendingWrite(Path path, byte[] content)
+    {
+      this.path = path;
+      this.content = content;
+    }
+  }
+}
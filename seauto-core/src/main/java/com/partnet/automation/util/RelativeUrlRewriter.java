@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Writes page source to a {@link Writer} while replacing the root relative
+ * urls of <code>src</code>, <code>href</code>, etc.. attributes with a base
+ * url, so a saved page can still find its resources when opened from disk.
+ * <p>
+ * The source is written in the segments between matches, so the rewritten
+ * page is never built up as a second string in memory.
+ */
+public final class RelativeUrlRewriter
+{
+
+  // attribute values starting at the root of the site, e.g. href="/css/site.css"
+  private static final Pattern RELATIVE_URL = Pattern.compile("=(\\s)?\"/");
+
+  private RelativeUrlRewriter()
+  {
+  }
+
+  /**
+   * @param source page source to write
+   * @param baseUrl url the relative paths are made relative to. If it is null
+   *          or blank, the source is written unchanged.
+   * @param out where to write the source to
+   * @throws IOException if writing fails
+   */
+  public static void write(String source, String baseUrl, Writer out)
+      throws IOException
+  {
+    if (StringUtils.isBlank(baseUrl)) {
+      out.write(source);
+      return;
+    }
+
+    String replacement = "=\"" + (baseUrl.endsWith("/") ? baseUrl : baseUrl + "/");
+    Matcher matcher = RELATIVE_URL.matcher(source);
+    int last = 0;
+
+    while (matcher.find()) {
+      out.write(source, last, matcher.start() - last);
+      out.write(replacement);
+      last = matcher.end();
+    }
+
+    out.write(source, last, source.length() - last);
+  }
+}
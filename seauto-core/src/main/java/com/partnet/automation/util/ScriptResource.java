@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.util;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.io.Resources;
+
+/**
+ * Loads the Javascript that SeAuto runs in the browser from
+ * <code>com/partnet/automation/js</code> on the classpath. Every script is
+ * prefixed with the shared DOM helpers of {@link #HELPERS}, so locator,
+ * visibility and condition checks behave the same in all scripts. Scripts are
+ * read once and cached.
+ */
+public final class ScriptResource
+{
+
+  private static final String SCRIPT_DIR = "com/partnet/automation/js/";
+
+  static final String HELPERS = "dom-helpers.js";
+
+  private static final Map<String, String> scripts = new ConcurrentHashMap<>();
+
+  private ScriptResource()
+  {
+  }
+
+  /**
+   * @param name file name of the script, e.g. <code>page-ready.js</code>
+   * @return the source of the script, after the helpers
+   * @throws IllegalStateException if the script can not be read
+   */
+  public static String load(String name)
+  {
+    String script = scripts.get(name);
+
+    if (script == null) {
+      script = read(HELPERS) + read(name);
+      scripts.put(name, script);
+    }
+    return script;
+  }
+
+  private static String read(String name)
+  {
+    URL url = ScriptResource.class.getClassLoader().getResource(SCRIPT_DIR + name);
+    if (url == null) {
+      throw new IllegalStateException(String.format("Script '%s' was not found on the classpath", SCRIPT_DIR + name));
+    }
+
+    try {
+      return Resources.toString(url, StandardCharsets.UTF_8);
+    }
+    catch (IOException e) {
+      throw new IllegalStateException(String.format("Unable to read script '%s'", url), e);
+    }
+  }
+}
@@ -0,0 +1,435 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.wait;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+import com.partnet.automation.util.ScriptResource;
+
+/**
+ * Condition on the page built from element conditions with
+ * {@link #allOf(CompositeCondition...)}, {@link #anyOf(CompositeCondition...)}
+ * and {@link #not(CompositeCondition)}, e.g.
+ * <pre>
+ * CompositeCondition.allOf(
+ *     CompositeCondition.visible(By.id("result")),
+ *     CompositeCondition.element(ElementCondition.visible(By.cssSelector(".ui-dialog")).containing(By.id("content"))),
+ *     CompositeCondition.not(CompositeCondition.present(By.className("blockUI"))),
+ *     CompositeCondition.text(By.id("total"), "^\\$\\d+"));
+ * </pre>
+ * Conditions are immutable and can be shared. Each wait checks a condition
+ * through its own {@link #newCheck()}, which evaluates the whole condition with
+ * a single script per poll, instead of driver calls per sub-condition. When
+ * the condition is not met, the check names the sub-condition that failed,
+ * which ends up in the timeout message.
+ * <p>
+ * Conditions with a locator that {@link ScriptLocator} can not translate, or
+ * drivers that can not run scripts, are checked through the driver instead.
+ */
+public abstract class CompositeCondition
+{
+
+  private CompositeCondition()
+  {
+  }
+
+  /**
+   * @param conditions conditions that must all be met
+   * @return condition that is met when all of the conditions are
+   */
+  public static CompositeCondition allOf(CompositeCondition... conditions)
+  {
+    return new Group(true, conditions);
+  }
+
+  /**
+   * @param conditions conditions of which at least one must be met
+   * @return condition that is met when any of the conditions is
+   */
+  public static CompositeCondition anyOf(CompositeCondition... conditions)
+  {
+    return new Group(false, conditions);
+  }
+
+  /**
+   * @param condition condition that must not be met
+   * @return condition that is met when the condition is not
+   */
+  public static CompositeCondition not(CompositeCondition condition)
+  {
+    return new Not(condition);
+  }
+
+  /**
+   * @param condition condition on an element
+   * @return condition that is met when an element meets the condition
+   */
+  public static CompositeCondition element(ElementCondition condition)
+  {
+    return new Element(condition);
+  }
+
+  /**
+   * @param locator locator of the element
+   * @return condition that is met when the element is in the DOM
+   */
+  public static CompositeCondition present(By locator)
+  {
+    return element(ElementCondition.present(locator));
+  }
+
+  /**
+   * @param locator locator of the element
+   * @return condition that is met when the element is displayed
+   */
+  public static CompositeCondition visible(By locator)
+  {
+    return element(ElementCondition.visible(locator));
+  }
+
+  /**
+   * @param locator locator of the element
+   * @param pattern regular expression the text must contain a match for
+   * @return condition that is met when an element has matching text
+   */
+  public static CompositeCondition text(By locator, String pattern)
+  {
+    return element(ElementCondition.present(locator).withText(pattern));
+  }
+
+  /**
+   * @param locator locator of the element
+   * @param name attribute to check
+   * @param pattern regular expression the attribute value must contain a
+   *          match for
+   * @return condition that is met when an element has a matching attribute
+   */
+  public static CompositeCondition attribute(By locator, String name, String pattern)
+  {
+    return element(ElementCondition.present(locator).withAttribute(name, pattern));
+  }
+
+  /**
+   * @param locator locator of the elements
+   * @param min least number of elements
+   * @param max most number of elements
+   * @return condition that is met when the locator finds between min and max
+   *         elements, inclusive
+   */
+  public static CompositeCondition count(By locator, int min, int max)
+  {
+    if (min < 0 || max < min) {
+      throw new IllegalArgumentException(String.format("Invalid count range [%d, %d]", min, max));
+    }
+    return new Count(locator, min, max);
+  }
+
+  /**
+   * @return a new check of this condition, for a single wait
+   */
+  public Check newCheck()
+  {
+    return new Check(this);
+  }
+
+  /**
+   * Adds this condition and its sub-conditions to the nodes, so the script
+   * can refer to them by their index.
+   *
+   * @param nodes nodes added so far
+   * @return the condition as an argument for
+   *         <code>composite-condition.js</code>, or null if it can not be
+   *         evaluated by a script
+   */
+  abstract Map<String, Object> toScript(List<CompositeCondition> nodes);
+
+  /**
+   * @param driver driver to check with
+   * @return the sub-condition to blame, or null if the condition is met
+   */
+  abstract CompositeCondition evaluate(WebDriver driver);
+
+  /**
+   * @return description of the condition alone
+   */
+  abstract String describe();
+
+  Map<String, Object> newNode(List<CompositeCondition> nodes, String op)
+  {
+    Map<String, Object> node = new HashMap<>();
+    node.put("id", nodes.size());
+    node.put("op", op);
+    nodes.add(this);
+    return node;
+  }
+
+  @Override
+  public String toString()
+  {
+    return describe();
+  }
+
+  /**
+   * Checks a {@link CompositeCondition} for one wait, remembering which
+   * sub-condition failed the last poll.
+   */
+  public static final class Check
+      implements ExpectedCondition<Boolean>
+  {
+
+    private final CompositeCondition condition;
+
+    private final List<CompositeCondition> nodes = new ArrayList<>();
+
+    private Map<String, Object> script;
+
+    private boolean prepared = false;
+
+    private CompositeCondition failed;
+
+    private Check(CompositeCondition condition)
+    {
+      this.condition = condition;
+    }
+
+    @Override
+    public Boolean apply(WebDriver driver)
+    {
+      if (!prepared) {
+        script = (driver instanceof JavascriptExecutor) ? condition.toScript(nodes) : null;
+        prepared = true;
+      }
+
+      if (script == null) {
+        failed = condition.evaluate(driver);
+      }
+      else {
+        Object failedId = ((JavascriptExecutor) driver).executeScript(ScriptResource.load("composite-condition.js"), script);
+        failed = (failedId == null) ? null : nodes.get(((Number) failedId).intValue());
+      }
+      return failed == null;
+    }
+
+    /**
+     * @return the sub-condition that failed the last poll, or null if the
+     *         condition was met or not checked yet
+     */
+    public CompositeCondition getFailed()
+    {
+      return failed;
+    }
+
+    // Used when the timeout exception is thrown.
+    // Example: Timed out after x seconds waiting for toString()
+    @Override
+    public String toString()
+    {
+      return failed == null ? condition.describe() : String.format("%s (failed: %s)", condition.describe(), failed.describe());
+    }
+  }
+
+  private static class Group
+      extends CompositeCondition
+  {
+
+    private final boolean all;
+
+    private final List<CompositeCondition> conditions;
+
+    public Group(boolean all, CompositeCondition... conditions)
+    {
+      if (conditions.length == 0) {
+        throw new IllegalArgumentException("At least one condition is needed");
+      }
+      this.all = all;
+      this.conditions = Collections.unmodifiableList(Arrays.asList(conditions));
+    }
+
+    @Override
+    Map<String, Object> toScript(List<CompositeCondition> nodes)
+    {
+      Map<String, Object> node = newNode(nodes, all ? "all" : "any");
+      List<Map<String, Object>> children = new ArrayList<>();
+
+      for (CompositeCondition condition : conditions) {
+        Map<String, Object> child = condition.toScript(nodes);
+        if (child == null) {
+          return null;
+        }
+        children.add(child);
+      }
+      node.put("children", children);
+      return node;
+    }
+
+    @Override
+    CompositeCondition evaluate(WebDriver driver)
+    {
+      for (CompositeCondition condition : conditions) {
+        CompositeCondition failed = condition.evaluate(driver);
+        if (all && failed != null) {
+          return failed;
+        }
+        if (!all && failed == null) {
+          return null;
+        }
+      }
+      return all ? null : this;
+    }
+
+    @Override
+    String describe()
+    {
+      List<String> descriptions = new ArrayList<>();
+      for (CompositeCondition condition : conditions) {
+        descriptions.add(condition.describe());
+      }
+      return String.format("%s of %s", all ? "all" : "any", descriptions);
+    }
+  }
+
+  private static class Not
+      extends CompositeCondition
+  {
+
+    private final CompositeCondition condition;
+
+    public Not(CompositeCondition condition)
+    {
+      this.condition = Objects.requireNonNull(condition, "condition cannot be null");
+    }
+
+    @Override
+    Map<String, Object> toScript(List<CompositeCondition> nodes)
+    {
+      Map<String, Object> node = newNode(nodes, "not");
+      Map<String, Object> child = condition.toScript(nodes);
+
+      if (child == null) {
+        return null;
+      }
+      node.put("child", child);
+      return node;
+    }
+
+    @Override
+    CompositeCondition evaluate(WebDriver driver)
+    {
+      return condition.evaluate(driver) == null ? this : null;
+    }
+
+    @Override
+    String describe()
+    {
+      return String.format("not %s", condition.describe());
+    }
+  }
+
+  private static class Element
+      extends CompositeCondition
+  {
+
+    private final ElementCondition condition;
+
+    public Element(ElementCondition condition)
+    {
+      this.condition = Objects.requireNonNull(condition, "condition cannot be null");
+    }
+
+    @Override
+    Map<String, Object> toScript(List<CompositeCondition> nodes)
+    {
+      Map<String, Object> spec = condition.toScript();
+
+      if (spec == null) {
+        return null;
+      }
+      Map<String, Object> node = newNode(nodes, "element");
+      node.put("spec", spec);
+      return node;
+    }
+
+    @Override
+    CompositeCondition evaluate(WebDriver driver)
+    {
+      return condition.apply(driver) == null ? this : null;
+    }
+
+    @Override
+    String describe()
+    {
+      return condition.toString();
+    }
+  }
+
+  private static class Count
+      extends CompositeCondition
+  {
+
+    private final By locator;
+
+    private final int min;
+
+    private final int max;
+
+    public Count(By locator, int min, int max)
+    {
+      this.locator = Objects.requireNonNull(locator, "locator cannot be null");
+      this.min = min;
+      this.max = max;
+    }
+
+    @Override
+    Map<String, Object> toScript(List<CompositeCondition> nodes)
+    {
+      Map<String, String> scriptLocator = ScriptLocator.toScript(locator);
+
+      if (scriptLocator == null) {
+        return null;
+      }
+      Map<String, Object> node = newNode(nodes, "count");
+      node.put("locator", scriptLocator);
+      node.put("min", min);
+      node.put("max", max);
+      return node;
+    }
+
+    @Override
+    CompositeCondition evaluate(WebDriver driver)
+    {
+      int count = driver.findElements(locator).size();
+      return (count >= min && count <= max) ? null : this;
+    }
+
+    @Override
+    String describe()
+    {
+      return min == max ? String.format("%d element(s) located by %s", min, locator) : String.format("%d to %d elements located by %s", min, max, locator);
+    }
+  }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.wait;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+/**
+ * Condition on an element found by a locator, which {@link ElementWait} can
+ * evaluate in the browser with a single script, or by polling the driver.
+ * <p>
+ * The first element matching the locator that satisfies every predicate is
+ * returned, e.g.
+ * <pre>
+ * ElementCondition.visible(By.cssSelector(".ui-dialog"))
+ *     .containing(By.id("content"))
+ *     .notContaining(By.className("blockUI"));
+ * </pre>
+ * Attribute and text patterns are regular expressions that only need to
+ * match part of the value. In the browser they are evaluated as Javascript
+ * regular expressions, so stick to the syntax both languages share. Text is
+ * the <code>textContent</code> of the element.
+ */
+public class ElementCondition
+    implements ExpectedCondition<WebElement>
+{
+
+  private final By locator;
+
+  private boolean visible = false;
+
+  private String attributeName;
+
+  private String attributePattern;
+
+  private String textPattern;
+
+  private final List<By> containing = new ArrayList<>();
+
+  private final List<By> notContaining = new ArrayList<>();
+
+  private ElementCondition(By locator)
+  {
+    this.locator = Objects.requireNonNull(locator, "locator cannot be null");
+  }
+
+  /**
+   * @param locator locator of the element
+   * @return condition that is met once the element is in the DOM
+   */
+  public static ElementCondition present(By locator)
+  {
+    return new ElementCondition(locator);
+  }
+
+  /**
+   * @param locator locator of the element
+   * @return condition that is met once the element is displayed
+   */
+  public static ElementCondition visible(By locator)
+  {
+    ElementCondition condition = new ElementCondition(locator);
+    condition.visible = true;
+    return condition;
+  }
+
+  /**
+   * @param name attribute to check
+   * @param pattern regular expression the attribute value must contain a
+   *          match for
+   * @return this condition
+   */
+  public ElementCondition withAttribute(String name, String pattern)
+  {
+    this.attributeName = Objects.requireNonNull(name, "name cannot be null");
+    this.attributePattern = Objects.requireNonNull(pattern, "pattern cannot be null");
+    return this;
+  }
+
+  /**
+   * @param pattern regular expression the text of the element must contain a
+   *          match for
+   * @return this condition
+   */
+  public ElementCondition withText(String pattern)
+  {
+    this.textPattern = Objects.requireNonNull(pattern, "pattern cannot be null");
+    return this;
+  }
+
+  /**
+   * @param descendant locator, relative to the element, that must find at
+   *          least one element
+   * @return this condition
+   */
+  public ElementCondition containing(By descendant)
+  {
+    containing.add(Objects.requireNonNull(descendant, "descendant cannot be null"));
+    return this;
+  }
+
+  /**
+   * @param descendant locator, relative to the element, that must not find
+   *          any elements
+   * @return this condition
+   */
+  public ElementCondition notContaining(By descendant)
+  {
+    notContaining.add(Objects.requireNonNull(descendant, "descendant cannot be null"));
+    return this;
+  }
+
+  /**
+   * @return locator of the element
+   */
+  public By getLocator()
+  {
+    return locator;
+  }
+
+  @Override
+  public WebElement apply(WebDriver driver)
+  {
+    for (WebElement element : driver.findElements(locator)) {
+      try {
+        if (matches(element)) {
+          return element;
+        }
+      }
+      catch (StaleElementReferenceException e) {
+        // removed while checking, try the next one
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the condition as an argument for <code>wait-for-element.js</code>,
+   *         or null if one of its locators can not be evaluated by a script
+   */
+  Map<String, Object> toScript()
+  {
+    Map<String, Object> spec = new HashMap<>();
+    Map<String, String> scriptLocator = ScriptLocator.toScript(locator);
+
+    if (scriptLocator == null) {
+      return null;
+    }
+
+    spec.put("locator", scriptLocator);
+    spec.put("visible", visible);
+
+    if (attributeName != null) {
+      spec.put("attributeName", attributeName);
+      spec.put("attributePattern", attributePattern);
+    }
+    if (textPattern != null) {
+      spec.put("textPattern", textPattern);
+    }
+
+    List<Map<String, String>> scriptContaining = toScript(containing);
+    List<Map<String, String>> scriptNotContaining = toScript(notContaining);
+
+    if (scriptContaining == null || scriptNotContaining == null) {
+      return null;
+    }
+
+    spec.put("containing", scriptContaining);
+    spec.put("notContaining", scriptNotContaining);
+    return spec;
+  }
+
+  private static List<Map<String, String>> toScript(List<By> locators)
+  {
+    List<Map<String, String>> scriptLocators = new ArrayList<>();
+
+    for (By by : locators) {
+      Map<String, String> scriptLocator = ScriptLocator.toScript(by);
+      if (scriptLocator == null) {
+        return null;
+      }
+      scriptLocators.add(scriptLocator);
+    }
+    return scriptLocators;
+  }
+
+  private boolean matches(WebElement element)
+  {
+    if (visible && !element.isDisplayed()) {
+      return false;
+    }
+
+    if (attributeName != null) {
+      String value = element.getAttribute(attributeName);
+      if (!Pattern.compile(attributePattern).matcher(value == null ? "" : value).find()) {
+        return false;
+      }
+    }
+
+    if (textPattern != null) {
+      String text = element.getAttribute("textContent");
+      if (!Pattern.compile(textPattern).matcher(text == null ? "" : text).find()) {
+        return false;
+      }
+    }
+
+    for (By by : containing) {
+      if (element.findElements(by).isEmpty()) {
+        return false;
+      }
+    }
+
+    for (By by : notContaining) {
+      if (!element.findElements(by).isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Used when the timeout exception is thrown.
+  // Example: Timed out after x seconds waiting for toString()
+  @Override
+  public String toString()
+  {
+    StringBuilder sb = new StringBuilder(visible ? "visibility of element located by " : "presence of element located by ").append(locator);
+
+    if (attributeName != null) {
+      sb.append(String.format(" with attribute %s matching '%s'", attributeName, attributePattern));
+    }
+    if (textPattern != null) {
+      sb.append(String.format(" with text matching '%s'", textPattern));
+    }
+    if (!containing.isEmpty()) {
+      sb.append(" containing ").append(containing);
+    }
+    if (!notContaining.isEmpty()) {
+      sb.append(" not containing ").append(notContaining);
+    }
+    return sb.toString();
+  }
+}
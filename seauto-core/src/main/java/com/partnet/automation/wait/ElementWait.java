@@ -0,0 +1,167 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.wait;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.SystemClock;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.partnet.automation.util.ScriptResource;
+
+/**
+ * Waits for an {@link ElementCondition}.
+ * <p>
+ * In the default <code>push</code> mode (see {@link #WAIT_MODE}) the condition
+ * is sent to the browser once with <code>executeAsyncScript</code>. The script
+ * watches the DOM with a MutationObserver, backed by a short in page re-check
+ * for changes that are not mutations, and answers as soon as the condition is
+ * met, so a wait costs a single round trip instead of one per poll. The wait falls back to polling the driver with the
+ * {@link PollingStrategy} when:
+ * <ul>
+ * <li>the mode is <code>poll</code></li>
+ * <li>the driver can not run async scripts</li>
+ * <li>a locator can not be translated by {@link ScriptLocator}</li>
+ * <li>the script is interrupted, e.g. because the page navigated away; the
+ * rest of the wait is polled</li>
+ * </ul>
+ */
+public class ElementWait
+{
+
+  private static final Logger LOG = LoggerFactory.getLogger(ElementWait.class);
+
+  public static final String WAIT_MODE = "test.config.wait.mode";
+
+  /**
+   * Script timeout the driver is given back after a push wait, in
+   * milliseconds. Selenium can not read the current script timeout, so set
+   * this to the timeout the tests use for their own
+   * <code>executeAsyncScript</code> calls. Defaults to 0, the timeout of a new
+   * driver.
+   */
+  public static final String SCRIPT_TIMEOUT_MILLIS = "test.config.wait.script.timeout.millis";
+
+  // the script answers on its own timeout, give the driver time to pass it back
+  private static final long SCRIPT_TIMEOUT_GRACE_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+  public enum Mode
+  {
+    PUSH, POLL
+  }
+
+  private static final Set<Class<?>> withoutAsyncScripts = Collections.newSetFromMap(new ConcurrentHashMap<Class<?>, Boolean>());
+
+  private final WebDriver driver;
+
+  private final PollingStrategy pollingStrategy;
+
+  public ElementWait(WebDriver driver, PollingStrategy pollingStrategy)
+  {
+    this.driver = driver;
+    this.pollingStrategy = pollingStrategy;
+  }
+
+  /**
+   * @return the mode set by {@link #WAIT_MODE}, push by default
+   */
+  public static Mode getConfiguredMode()
+  {
+    String mode = StringUtils.trimToNull(System.getProperty(WAIT_MODE));
+
+    if (mode == null) {
+      return Mode.PUSH;
+    }
+
+    try {
+      return Mode.valueOf(mode.toUpperCase());
+    }
+    catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(String.format("Unknown %s '%s', expected push or poll", WAIT_MODE, mode), e);
+    }
+  }
+
+  /**
+   * @param condition condition to wait for
+   * @param timeoutInSeconds seconds to wait
+   * @return the element that met the condition
+   * @throws TimeoutException if the condition was not met in time
+   */
+  public WebElement until(ElementCondition condition, long timeoutInSeconds)
+  {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutInSeconds);
+    Map<String, Object> spec = canPush() ? condition.toScript() : null;
+
+    if (spec != null) {
+      Object result = null;
+      boolean answered = false;
+
+      try {
+        result = push(spec, TimeUnit.SECONDS.toMillis(timeoutInSeconds));
+        answered = true;
+      }
+      catch (UnsupportedOperationException e) {
+        LOG.debug("{} can not run async scripts, polling instead", driver.getClass().getSimpleName(), e);
+        withoutAsyncScripts.add(driver.getClass());
+      }
+      catch (WebDriverException e) {
+        LOG.debug("Push wait for {} was interrupted, polling for the rest of the wait", condition, e);
+      }
+
+      if (result instanceof WebElement) {
+        return (WebElement) result;
+      }
+      if (answered) {
+        throw new TimeoutException(String.format("Timed out after %d seconds waiting for %s", timeoutInSeconds, condition));
+      }
+    }
+
+    long remainingMillis = Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    long remainingSeconds = (remainingMillis + 999) / 1000;
+    return new WebDriverWait(driver, new SystemClock(), pollingStrategy.newSleeper(), remainingSeconds, WebDriverWait.DEFAULT_SLEEP_TIMEOUT).until(condition);
+  }
+
+  private boolean canPush()
+  {
+    return getConfiguredMode() == Mode.PUSH && driver instanceof JavascriptExecutor && !withoutAsyncScripts.contains(driver.getClass());
+  }
+
+  private Object push(Map<String, Object> spec, long timeoutMillis)
+  {
+    driver.manage().timeouts().setScriptTimeout(timeoutMillis + SCRIPT_TIMEOUT_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+
+    try {
+      return ((JavascriptExecutor) driver).executeAsyncScript(ScriptResource.load("wait-for-element.js"), spec, timeoutMillis);
+    }
+    finally {
+      // the wait's timeout must not leak into the async scripts of the test
+      driver.manage().timeouts().setScriptTimeout(Long.getLong(SCRIPT_TIMEOUT_MILLIS, 0), TimeUnit.MILLISECONDS);
+    }
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.wait;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.partnet.automation.util.ScriptResource;
+
+/**
+ * Marks the current document before an action, so it can be told afterwards
+ * whether the action navigated away from it.
+ * <p>
+ * A document can report itself as loaded while it is about to be replaced,
+ * e.g. IE right after clicking a link. {@link #untilReady(ExpectedCondition)}
+ * does not check the readiness of a document that started to unload, but
+ * waits for the next document first. A document that stays unloading for
+ * {@link #UNLOAD_TIMEOUT_SECONDS} (2 by default), like after a download or
+ * <code>mailto:</code> link, is treated as not navigated.
+ */
+public final class NavigationMarker
+{
+
+  private static final Logger LOG = LoggerFactory.getLogger(NavigationMarker.class);
+
+  /**
+   * Set to false to always wait for the page to load after clickAndWait
+   */
+  public static final String NAVIGATION_DETECT = "test.config.navigation.detect";
+
+  public static final String UNLOAD_TIMEOUT_SECONDS = "test.config.navigation.unload.timeout.seconds";
+
+  public enum State
+  {
+    /** the marked document is still shown */
+    SAME,
+    /** the marked document started to unload */
+    UNLOADING,
+    /** another document is shown */
+    REPLACED
+  }
+
+  // probes the marker and checks a replaced document in a single script
+  private static final String POLL_SCRIPT = "var probe = function() {%n%s%n};%n"
+      + "var ready = function() {%n%s%n};%n"
+      + "var state = probe.call(window, 'probe', arguments[0]);%n"
+      + "return [state, state === 'unloading' ? null : ready.call(window, arguments[1])];";
+
+  private static volatile String pollScript;
+
+  private final WebDriver driver;
+
+  private final String token;
+
+  private NavigationMarker(WebDriver driver, String token)
+  {
+    this.driver = driver;
+    this.token = token;
+  }
+
+  /**
+   * Marks the current document of the driver.
+   *
+   * @param driver driver to mark the document of
+   * @return the marker, or null if navigation detection is turned off with
+   *         {@link #NAVIGATION_DETECT} or the document can not be marked
+   */
+  public static NavigationMarker plant(WebDriver driver)
+  {
+    if (!Boolean.parseBoolean(System.getProperty(NAVIGATION_DETECT, "true")) || !(driver instanceof JavascriptExecutor)) {
+      return null;
+    }
+
+    String token = UUID.randomUUID().toString();
+    try {
+      ((JavascriptExecutor) driver).executeScript(ScriptResource.load("navigation-marker.js"), "plant", token);
+    }
+    catch (UnsupportedOperationException | WebDriverException e) {
+      LOG.debug("Unable to mark the document, navigation will not be detected", e);
+      return null;
+    }
+    return new NavigationMarker(driver, token);
+  }
+
+  /**
+   * @return state of the marked document, with a single script
+   */
+  public State getState()
+  {
+    try {
+      Object state = ((JavascriptExecutor) driver).executeScript(ScriptResource.load("navigation-marker.js"), "probe", token);
+      return State.valueOf(state.toString().toUpperCase());
+    }
+    catch (UnsupportedOperationException e) {
+      // only a new document, like plain text, can be without script support
+      return State.REPLACED;
+    }
+  }
+
+  /**
+   * Probes the marker and, unless the document is unloading, checks the
+   * readiness of the page with a single script.
+   *
+   * @param readyCondition checks to run on the shown document
+   * @return state of the marked document
+   */
+  private State poll(PageReadyCondition readyCondition)
+  {
+    List<?> result;
+    try {
+      result = (List<?>) ((JavascriptExecutor) driver).executeScript(getPollScript(), token, readyCondition.getCheckNames());
+    }
+    catch (UnsupportedOperationException e) {
+      // only a new document, like plain text, can be without script support
+      readyCondition.record(null);
+      return State.REPLACED;
+    }
+
+    State state = State.valueOf(result.get(0).toString().toUpperCase());
+    if (state != State.UNLOADING) {
+      readyCondition.record(result.get(1));
+    }
+    return state;
+  }
+
+  private static String getPollScript()
+  {
+    if (pollScript == null) {
+      pollScript = String.format(POLL_SCRIPT, ScriptResource.load("navigation-marker.js"), ScriptResource.load("page-ready.js"));
+    }
+    return pollScript;
+  }
+
+  /**
+   * For a {@link PageReadyCondition} every poll probes the marker and checks
+   * the readiness of the page in one script, so a click that did not
+   * navigate to a page that is already ready is done after a single poll.
+   *
+   * @param readyCondition condition of the page being ready
+   * @return condition that is met once the page is ready, after the next
+   *         document replaced the marked one if it started to unload
+   */
+  public ExpectedCondition<Boolean> untilReady(final ExpectedCondition<Boolean> readyCondition)
+  {
+    final long unloadTimeoutNanos = TimeUnit.SECONDS.toNanos(Integer.getInteger(UNLOAD_TIMEOUT_SECONDS, 2));
+
+    return new ExpectedCondition<Boolean>() {
+
+      private long unloadingSince = -1;
+
+      private State state;
+
+      @Override
+      public Boolean apply(WebDriver driver)
+      {
+        if (readyCondition instanceof PageReadyCondition) {
+          state = poll((PageReadyCondition) readyCondition);
+          if (state != State.UNLOADING) {
+            return ((PageReadyCondition) readyCondition).isReady();
+          }
+        }
+        else {
+          state = getState();
+          if (state != State.UNLOADING) {
+            return readyCondition.apply(driver);
+          }
+        }
+
+        if (unloadingSince < 0) {
+          unloadingSince = System.nanoTime();
+        }
+        if (System.nanoTime() - unloadingSince < unloadTimeoutNanos) {
+          return false;
+        }
+        LOG.debug("Document is still unloading after {}s, treat it as not navigated", TimeUnit.NANOSECONDS.toSeconds(unloadTimeoutNanos));
+        return readyCondition.apply(driver);
+      }
+
+      // Used when the timeout exception is thrown.
+      @Override
+      public String toString()
+      {
+        return state == State.UNLOADING ? "the next document to replace the unloading one" : readyCondition.toString();
+      }
+    };
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format("navigation marker %s", token);
+  }
+}
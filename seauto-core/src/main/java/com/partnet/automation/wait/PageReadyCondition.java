@@ -0,0 +1,179 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.wait;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+import com.partnet.automation.util.ScriptResource;
+
+/**
+ * Waits until a page is ready to be interacted with, running every configured
+ * {@link Check} in a single script per poll.
+ * <p>
+ * The checks are set with {@link #PAGE_READY_CHECKS} as a comma separated list
+ * of check names. By default only <code>document</code> is checked, as
+ * before. <code>jquery</code>, <code>requests</code>, <code>blockui</code> and
+ * <code>animations</code> are opt in, since pages with long polling requests
+ * or looping animations would never become ready.
+ * <p>
+ * In flight requests are counted by wrapping <code>XMLHttpRequest</code> and
+ * <code>fetch</code> the first time the page is checked with
+ * <code>requests</code>, so requests started before that are only seen
+ * through <code>jQuery.active</code>. Without <code>requests</code> the page
+ * is not patched.
+ * <p>
+ * Pages that can not run scripts, like plain text pages in HtmlUnit, are
+ * always ready.
+ */
+public class PageReadyCondition
+    implements ExpectedCondition<Boolean>
+{
+
+  public static final String PAGE_READY_CHECKS = "test.config.page.ready.checks";
+
+  private static final String DEFAULT_CHECKS = "document";
+
+  public enum Check
+  {
+    /** document.readyState is complete */
+    DOCUMENT,
+    /** no jQuery ajax requests are active */
+    JQUERY,
+    /** no XHR or fetch requests are in flight */
+    REQUESTS,
+    /** no blockUI overlay is showing */
+    BLOCKUI,
+    /** no finite CSS animations or transitions are running */
+    ANIMATIONS;
+
+    /**
+     * @param name name of the check, case insensitive
+     * @return the check
+     * @throws IllegalArgumentException if there is no check by the name
+     */
+    public static Check fromName(String name)
+    {
+      String normalized = StringUtils.trimToEmpty(name).replace("-", "").toUpperCase();
+
+      for (Check check : values()) {
+        if (check.name().equals(normalized)) {
+          return check;
+        }
+      }
+      throw new IllegalArgumentException(String.format("Unknown page ready check '%s', expected one of %s", name, EnumSet.allOf(Check.class)));
+    }
+  }
+
+  private final Set<Check> checks;
+
+  private final List<String> checkNames = new ArrayList<>();
+
+  private String pending = "not checked yet";
+
+  public PageReadyCondition(Set<Check> checks)
+  {
+    this.checks = Collections.unmodifiableSet(EnumSet.copyOf(checks));
+
+    for (Check check : this.checks) {
+      checkNames.add(check.name().toLowerCase());
+    }
+  }
+
+  /**
+   * @return condition with the checks set by {@link #PAGE_READY_CHECKS}
+   */
+  public static PageReadyCondition getConfigured()
+  {
+    Set<Check> checks = EnumSet.noneOf(Check.class);
+
+    for (String name : System.getProperty(PAGE_READY_CHECKS, DEFAULT_CHECKS).split(",")) {
+      if (StringUtils.isNotBlank(name)) {
+        checks.add(Check.fromName(name));
+      }
+    }
+
+    if (checks.isEmpty()) {
+      throw new IllegalArgumentException(String.format("%s needs at least one check", PAGE_READY_CHECKS));
+    }
+    return new PageReadyCondition(checks);
+  }
+
+  @Override
+  public Boolean apply(WebDriver driver)
+  {
+    Object result;
+    try {
+      result = ((JavascriptExecutor) driver).executeScript(ScriptResource.load("page-ready.js"), checkNames);
+    }
+    catch (UnsupportedOperationException e) {
+      // pages without script support, like plain text, have nothing to wait for
+      result = null;
+    }
+    return record(result);
+  }
+
+  /**
+   * @return names of the checks, as passed to <code>page-ready.js</code>
+   */
+  List<String> getCheckNames()
+  {
+    return checkNames;
+  }
+
+  /**
+   * @return true if the last check found the page ready
+   */
+  boolean isReady()
+  {
+    return pending == null;
+  }
+
+  /**
+   * @param result result of <code>page-ready.js</code>
+   * @return true if the page is ready
+   */
+  boolean record(Object result)
+  {
+    pending = (result == null) ? null : result.toString();
+    return pending == null;
+  }
+
+  /**
+   * @return the checks run by this condition
+   */
+  public Set<Check> getChecks()
+  {
+    return checks;
+  }
+
+  // Used when the timeout exception is thrown.
+  // Example: Timed out after x seconds waiting for toString()
+  @Override
+  public String toString()
+  {
+    return String.format("the page to be ready (%s)", pending == null ? "ready" : pending);
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.wait;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.StringUtils;
+import org.openqa.selenium.support.ui.Duration;
+import org.openqa.selenium.support.ui.Sleeper;
+
+import com.partnet.automation.Browser;
+
+/**
+ * Decides how long a wait pauses between checks of its condition.
+ * <p>
+ * A fixed poll wastes up to a whole interval after the condition is met, which
+ * adds up over thousands of steps. The default is a fast start exponential
+ * backoff: the first check is repeated after 10ms, and the pause doubles up
+ * to a cap, so quick conditions return almost immediately while long waits
+ * don't hammer the browser.
+ * <p>
+ * The strategy is set with {@link #POLLING_STRATEGY}, and may be overridden
+ * per browser by appending the lower case browser name, e.g.
+ * <code>test.config.wait.polling.firefox</code>. Supported values:
+ * <ul>
+ * <li><code>fixed(M)</code> - pause M ms between every check</li>
+ * <li><code>backoff(I,M)</code> - pause I ms, doubling up to M ms</li>
+ * </ul>
+ * Without configuration, in process HtmlUnit caps at 100ms, Android at 1000ms
+ * and all other browsers at 250ms.
+ */
+public abstract class PollingStrategy
+{
+
+  public static final String POLLING_STRATEGY = "test.config.wait.polling";
+
+  private static final Pattern FIXED = Pattern.compile("fixed\\s*\\(\\s*(\\d+)\\s*\\)");
+
+  private static final Pattern BACKOFF = Pattern.compile("backoff\\s*\\(\\s*(\\d+)\\s*,\\s*(\\d+)\\s*\\)");
+
+  /**
+   * @param attempt number of checks already done, starting at 0
+   * @return how long to pause before the next check, in ms
+   */
+  public abstract long getPauseMillis(int attempt);
+
+  /**
+   * Creates a {@link Sleeper} for a single wait. The interval passed to the
+   * sleeper by the wait is ignored in favor of this strategy.
+   *
+   * @return new sleeper, which must not be shared between waits
+   */
+  public Sleeper newSleeper()
+  {
+    return new Sleeper() {
+
+      private int attempt = 0;
+
+      @Override
+      public void sleep(Duration duration)
+          throws InterruptedException
+      {
+        Thread.sleep(getPauseMillis(attempt++));
+      }
+    };
+  }
+
+  /**
+   * @param millis pause between checks, at least 1 so the poll does not
+   *          busy wait
+   * @return strategy that always pauses the same time
+   */
+  public static PollingStrategy fixed(final long millis)
+  {
+    if (millis < 1) {
+      throw new IllegalArgumentException(String.format("Polling pause must be at least 1, was %d", millis));
+    }
+
+    return new PollingStrategy() {
+
+      @Override
+      public long getPauseMillis(int attempt)
+      {
+        return millis;
+      }
+
+      @Override
+      public String toString()
+      {
+        return String.format("fixed(%d)", millis);
+      }
+    };
+  }
+
+  /**
+   * @param initialMillis first pause
+   * @param maxMillis cap of the pause
+   * @return strategy that doubles the pause after every check up to the cap
+   */
+  public static PollingStrategy backoff(final long initialMillis, final long maxMillis)
+  {
+    if (initialMillis < 1 || maxMillis < initialMillis) {
+      throw new IllegalArgumentException(String.format("Invalid backoff: initial pause %d must be at least 1 and not more than the max pause %d", initialMillis, maxMillis));
+    }
+
+    return new PollingStrategy() {
+
+      @Override
+      public long getPauseMillis(int attempt)
+      {
+        // stop shifting well before the long overflows
+        return attempt >= 30 ? maxMillis : Math.min(maxMillis, initialMillis << attempt);
+      }
+
+      @Override
+      public String toString()
+      {
+        return String.format("backoff(%d,%d)", initialMillis, maxMillis);
+      }
+    };
+  }
+
+  /**
+   * @param strategy e.g. <code>fixed(500)</code> or <code>backoff(10,250)</code>
+   * @return the parsed strategy
+   */
+  public static PollingStrategy parse(String strategy)
+  {
+    String normalized = StringUtils.trimToEmpty(strategy).toLowerCase();
+
+    Matcher fixed = FIXED.matcher(normalized);
+    if (fixed.matches()) {
+      return fixed(Long.parseLong(fixed.group(1)));
+    }
+
+    Matcher backoff = BACKOFF.matcher(normalized);
+    if (backoff.matches()) {
+      return backoff(Long.parseLong(backoff.group(1)), Long.parseLong(backoff.group(2)));
+    }
+
+    throw new IllegalArgumentException(String.format("Unknown polling strategy '%s', expected fixed(M) or backoff(I,M)", strategy));
+  }
+
+  /**
+   * @param browser browser the wait runs against, may be null
+   * @return the configured strategy for the browser
+   */
+  public static PollingStrategy forBrowser(Browser browser)
+  {
+    String configured = System.getProperty(POLLING_STRATEGY);
+
+    if (browser != null) {
+      configured = System.getProperty(POLLING_STRATEGY + "." + browser.name().toLowerCase(), configured);
+    }
+
+    if (StringUtils.isNotBlank(configured)) {
+      return parse(configured);
+    }
+
+    return getDefault(browser);
+  }
+
+  private static PollingStrategy getDefault(Browser browser)
+  {
+    if (browser == Browser.HTMLUNIT) {
+      return backoff(10, 100);
+    }
+    if (browser == Browser.ANDROID) {
+      return backoff(10, TimeUnit.SECONDS.toMillis(1));
+    }
+    return backoff(10, 250);
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.wait;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.support.ByIdOrName;
+
+/**
+ * Translates a {@link By} into a locator that SeAuto scripts can evaluate in
+ * the browser: a map with either a <code>css</code> or an <code>xpath</code>
+ * entry.
+ * <p>
+ * Selenium does not expose the value of a {@link By}, so it is read from
+ * {@link By#toString()}. Locators that can not be translated, like link text
+ * or custom {@link By} implementations, give null and callers should fall
+ * back to finding elements through the driver.
+ */
+public final class ScriptLocator
+{
+
+  private static final Pattern BY_STRING = Pattern.compile("By\\.(\\w+): (.*)", Pattern.DOTALL);
+
+  private static final Pattern ID_OR_NAME_STRING = Pattern.compile("by id or name \"(.*)\"", Pattern.DOTALL);
+
+  private ScriptLocator()
+  {
+  }
+
+  /**
+   * @param by locator to translate
+   * @return map with a <code>css</code> or <code>xpath</code> entry, or null
+   *         if the locator can not be evaluated by a script
+   */
+  public static Map<String, String> toScript(By by)
+  {
+    if (by instanceof ByIdOrName) {
+      Matcher idOrName = ID_OR_NAME_STRING.matcher(by.toString());
+      if (idOrName.matches()) {
+        String value = quote(idOrName.group(1));
+        return css(String.format("[id=%s],[name=%s]", value, value));
+      }
+      return null;
+    }
+
+    Matcher matcher = BY_STRING.matcher(by.toString());
+    if (!matcher.matches()) {
+      return null;
+    }
+
+    String value = matcher.group(2);
+
+    switch (matcher.group(1)) {
+      case "id":
+        return css(String.format("[id=%s]", quote(value)));
+      case "name":
+        return css(String.format("[name=%s]", quote(value)));
+      case "className":
+        return value.trim().contains(" ") ? null : css(String.format("[class~=%s]", quote(value.trim())));
+      case "tagName":
+        return css(value);
+      case "cssSelector":
+        return css(value);
+      case "xpath":
+        return Collections.singletonMap("xpath", value);
+      default:
+        return null;
+    }
+  }
+
+  private static Map<String, String> css(String selector)
+  {
+    return Collections.singletonMap("css", selector);
+  }
+
+  private static String quote(String value)
+  {
+    return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+  }
+}
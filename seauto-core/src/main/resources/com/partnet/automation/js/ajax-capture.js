@@ -0,0 +1,115 @@
+/*
+ * Ajax response capture used by com.partnet.automation.HtmlView.
+ *
+ * arguments[0] - operation: install, reset or take
+ * arguments[1] - install: max bytes of response text to retain
+ *                take: top level JSON key of the response to take
+ *
+ * Successful jQuery ajax responses that are JSON objects are kept in
+ * window.__seautoAjax, indexed by their top level keys. take removes and
+ * returns the oldest response with the key, or null if there is none yet.
+ */
+var operation = arguments[0];
+var capture = window.__seautoAjax;
+
+if (operation === 'install') {
+  if (!capture) {
+    capture = window.__seautoAjax = { entries: {}, order: [], index: {}, next: 0, bytes: 0 };
+
+    var unlist = function(ids, id) {
+      var i = ids.indexOf(id);
+      if (i >= 0) {
+        ids.splice(i, 1);
+      }
+    };
+
+    // drops the entry and its id from the order and every index, so ids of
+    // evicted or taken responses do not pile up on long running pages
+    var remove = function(id) {
+      var entry = capture.entries[id];
+      if (!entry) {
+        return;
+      }
+      delete capture.entries[id];
+      capture.bytes -= entry.bytes;
+      unlist(capture.order, id);
+
+      for (var i = 0; i < entry.keys.length; i++) {
+        var ids = capture.index[entry.keys[i]];
+        if (ids) {
+          unlist(ids, id);
+          if (!ids.length) {
+            delete capture.index[entry.keys[i]];
+          }
+        }
+      }
+    };
+
+    capture.record = function(text) {
+      var json;
+      try {
+        json = JSON.parse(text);
+      }
+      catch (e) {
+        return;
+      }
+      if (!json || typeof json !== 'object' || json instanceof Array) {
+        return;
+      }
+
+      var id = capture.next++;
+      // strings are held as UTF-16
+      var entry = { text: text, bytes: text.length * 2, keys: [] };
+      capture.entries[id] = entry;
+      capture.order.push(id);
+      capture.bytes += entry.bytes;
+
+      for (var key in json) {
+        if (json.hasOwnProperty(key)) {
+          entry.keys.push(key);
+          (capture.index[key] = capture.index[key] || []).push(id);
+        }
+      }
+
+      // evict the oldest responses, but always keep the newest one
+      while (capture.bytes > capture.maxBytes && capture.order.length > 1) {
+        remove(capture.order[0]);
+      }
+    };
+
+    capture.take = function(key) {
+      var ids = capture.index[key];
+      if (!ids || !ids.length) {
+        return null;
+      }
+      var entry = capture.entries[ids[0]];
+      remove(ids[0]);
+      return entry.text;
+    };
+
+    capture.reset = function() {
+      capture.entries = {};
+      capture.order = [];
+      capture.index = {};
+      capture.bytes = 0;
+    };
+
+    window.jQuery(document).ajaxSuccess(function(event, xhr) {
+      capture.record(xhr.responseText);
+    });
+  }
+  capture.maxBytes = arguments[1];
+  capture.reset();
+  return null;
+}
+
+if (!capture) {
+  return { error: 'The ajax listener is not installed on the current page, call injectAjaxListener() first' };
+}
+
+if (operation === 'reset') {
+  capture.reset();
+  return null;
+}
+
+return { response: capture.take(arguments[1]) };
@@ -0,0 +1,51 @@
+/*
+ * Composite condition check used by
+ * com.partnet.automation.wait.CompositeCondition, run once per poll.
+ *
+ * arguments[0] - the condition tree, every node has an id and an op:
+ *                all/any with children, not with child, element with an
+ *                element condition (see ElementCondition), count with a
+ *                locator, min and max
+ *
+ * returns null if the condition is met, otherwise the id of the node that
+ * failed
+ */
+var root = arguments[0];
+
+// null if the node is met, otherwise the id of the node to blame
+var evaluate = function(node) {
+  var i;
+  if (node.op === 'all') {
+    for (i = 0; i < node.children.length; i++) {
+      var failed = evaluate(node.children[i]);
+      if (failed !== null) {
+        return failed;
+      }
+    }
+    return null;
+  }
+  if (node.op === 'any') {
+    for (i = 0; i < node.children.length; i++) {
+      if (evaluate(node.children[i]) === null) {
+        return null;
+      }
+    }
+    return node.id;
+  }
+  if (node.op === 'not') {
+    return evaluate(node.child) === null ? node.id : null;
+  }
+  if (node.op === 'count') {
+    var count = dom.findAll(node.locator, document).length;
+    return (count >= node.min && count <= node.max) ? null : node.id;
+  }
+  var candidates = dom.findAll(node.spec.locator, document);
+  for (i = 0; i < candidates.length; i++) {
+    if (dom.matches(node.spec, candidates[i])) {
+      return null;
+    }
+  }
+  return node.id;
+};
+
+return evaluate(root);
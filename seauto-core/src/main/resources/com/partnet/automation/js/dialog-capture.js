@@ -0,0 +1,97 @@
+/*
+ * Dialog capture used by com.partnet.automation.dialog.DialogCapture.
+ *
+ * arguments[0] - 'install' to capture the dialogs of the document and set how
+ *                they are answered, 'take' to remove and return the captured
+ *                dialogs
+ * arguments[1] - install: true to accept confirms and prompts, false to
+ *                dismiss them
+ * arguments[2] - install: responses for the next prompts, in order. Prompts
+ *                without a response get their default value.
+ *
+ * take returns [{ type: ..., message: ..., accepted: ..., response: ... }, ...],
+ * or null if the document has no capture installed and nothing was stored
+ *
+ * Captured dialogs are kept in sessionStorage, so dialogs answered right
+ * before the page navigates away, like a confirm on a link, can still be
+ * taken from the next document of the same origin. The in page queue is used
+ * where the storage is not available.
+ */
+var op = arguments[0];
+var state = window.__seautoDialogs;
+var STORAGE_KEY = '__seautoDialogs';
+
+var getStorage = function() {
+  try {
+    return window.sessionStorage && window.JSON ? window.sessionStorage : null;
+  }
+  catch (e) {
+    // storage access can be denied, e.g. for sandboxed frames
+    return null;
+  }
+};
+
+if (op === 'take') {
+  var stored = null;
+  var storage = getStorage();
+  if (storage) {
+    try {
+      var text = storage.getItem(STORAGE_KEY);
+      storage.removeItem(STORAGE_KEY);
+      stored = text ? JSON.parse(text) : null;
+    }
+    catch (e) {
+      stored = null;
+    }
+  }
+
+  if (!state) {
+    return stored;
+  }
+  var taken = (stored || []).concat(state.queue);
+  state.queue = [];
+  return taken;
+}
+
+// the functions are replaced once per document, later installs only change the answers
+if (!state) {
+  state = window.__seautoDialogs = { queue: [], accept: true, responses: [] };
+
+  var record = function(type, message, accepted, response) {
+    var dialog = { type: type, message: message === undefined ? '' : String(message), accepted: accepted, response: response };
+    var storage = getStorage();
+    if (storage) {
+      try {
+        var text = storage.getItem(STORAGE_KEY);
+        var dialogs = text ? JSON.parse(text) : [];
+        dialogs.push(dialog);
+        storage.setItem(STORAGE_KEY, JSON.stringify(dialogs));
+        return;
+      }
+      catch (e) {
+        // full or unavailable, keep the dialog in the page instead
+      }
+    }
+    state.queue.push(dialog);
+  };
+
+  window.alert = function(message) {
+    record('alert', message, true, null);
+  };
+  window.confirm = function(message) {
+    record('confirm', message, state.accept, null);
+    return state.accept;
+  };
+  window.prompt = function(message, defaultValue) {
+    var response = null;
+    if (state.accept) {
+      response = state.responses.length ? state.responses.shift() : (defaultValue === undefined ? '' : String(defaultValue));
+    }
+    record('prompt', message, state.accept, response);
+    return response;
+  };
+}
+
+state.accept = arguments[1];
+state.responses = arguments[2].slice(0);
+return null;
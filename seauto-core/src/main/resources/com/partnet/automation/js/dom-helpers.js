@@ -0,0 +1,74 @@
+/*
+ * DOM helpers shared by the SeAuto scripts, prepended to every script by
+ * com.partnet.automation.util.ScriptResource.
+ *
+ * dom.findAll(locator, context) - elements matching { css: ... } or
+ *                                 { xpath: ... } inside the context
+ * dom.isDisplayed(element)      - the element is drawn: it has a size, no
+ *                                 display:none ancestor and is not hidden
+ * dom.matches(spec, element)    - the element meets the ElementCondition spec
+ */
+var dom = {
+  findAll: function(locator, context) {
+    if (locator.css) {
+      return context.querySelectorAll(locator.css);
+    }
+    var found = [];
+    var result = document.evaluate(locator.xpath, context, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);
+    for (var i = 0; i < result.snapshotLength; i++) {
+      found.push(result.snapshotItem(i));
+    }
+    return found;
+  },
+
+  isDisplayed: function(element) {
+    // options are drawn by their select
+    if (element.tagName.toLowerCase() === 'option') {
+      var select = element.parentNode;
+      while (select && select.tagName && select.tagName.toLowerCase() !== 'select') {
+        select = select.parentNode;
+      }
+      return select && select.tagName ? dom.isDisplayed(select) : false;
+    }
+    if (!(element.offsetWidth || element.offsetHeight || (element.getClientRects && element.getClientRects().length))) {
+      return false;
+    }
+    if (!window.getComputedStyle) {
+      return true;
+    }
+    if (window.getComputedStyle(element).visibility === 'hidden') {
+      return false;
+    }
+    // not every engine gives elements in a display:none subtree a zero size
+    for (var node = element; node && node.nodeType === 1; node = node.parentNode) {
+      if (window.getComputedStyle(node).display === 'none') {
+        return false;
+      }
+    }
+    return true;
+  },
+
+  matches: function(spec, element) {
+    if (spec.visible && !dom.isDisplayed(element)) {
+      return false;
+    }
+    if (spec.attributeName && !new RegExp(spec.attributePattern).test(element.getAttribute(spec.attributeName) || '')) {
+      return false;
+    }
+    if (spec.textPattern && !new RegExp(spec.textPattern).test(element.textContent || '')) {
+      return false;
+    }
+    for (var i = 0; i < spec.containing.length; i++) {
+      if (dom.findAll(spec.containing[i], element).length === 0) {
+        return false;
+      }
+    }
+    for (var j = 0; j < spec.notContaining.length; j++) {
+      if (dom.findAll(spec.notContaining[j], element).length > 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+};
+
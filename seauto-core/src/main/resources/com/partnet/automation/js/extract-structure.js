@@ -0,0 +1,210 @@
+/*
+ * Structured extraction used by com.partnet.automation.extract.StructureExtractor.
+ *
+ * arguments[0] - the structure, see Structure
+ * arguments[1] - root element: the table, dl, ul/ol or card container
+ * arguments[2] - index of the first row to return
+ * arguments[3] - max number of rows to return, negative for all
+ * arguments[4] - number of table columns from an earlier page, negative to
+ *                count them
+ *
+ * Only the rows of the page are expanded and read, so reading a structure a
+ * page at a time does not read every row for every page.
+ *
+ * returns { headers: [...], rows: [[...], ...], total: n, columns: n }
+ */
+var spec = arguments[0];
+var root = arguments[1];
+var offset = arguments[2];
+var limit = arguments[3];
+var columns = arguments[4];
+
+var inPage = function(index) {
+  return index >= offset && (limit < 0 || index < offset + limit);
+};
+
+var pageEnd = function(count) {
+  return limit < 0 ? count : Math.min(count, offset + limit);
+};
+
+var getText = function(element) {
+  if (!element) {
+    return null;
+  }
+  if (typeof element.innerText === 'string') {
+    return element.innerText.replace(/^\s+|\s+$/g, '');
+  }
+  return (element.textContent || '').replace(/\s+/g, ' ').replace(/^\s+|\s+$/g, '');
+};
+
+// attribute of the element, or of the first descendant that has it
+var getAttribute = function(element, name) {
+  if (!element) {
+    return null;
+  }
+  if (element.hasAttribute(name)) {
+    return element.getAttribute(name);
+  }
+  var descendant = element.querySelector('[' + name + ']');
+  return descendant ? descendant.getAttribute(name) : null;
+};
+
+var children = function(element, tags) {
+  var found = [];
+  for (var i = 0; i < element.children.length; i++) {
+    if (tags.indexOf(element.children[i].tagName.toLowerCase()) >= 0) {
+      found.push(element.children[i]);
+    }
+  }
+  return found;
+};
+
+var headers = [];
+// source elements of the rows in the page, one per base column
+var sources = [];
+var total = 0;
+
+if (spec.kind === 'table') {
+  // body rows are kept as the live row collections of their sections, so
+  // only the rows of the page are touched
+  var groups = [children(root, ['tr'])];
+  var sections = children(root, ['thead', 'tbody', 'tfoot']);
+  var headRows = [];
+  for (var s = 0; s < sections.length; s++) {
+    if (sections[s].tagName.toLowerCase() === 'thead') {
+      headRows = headRows.concat(children(sections[s], ['tr']));
+    }
+    else {
+      groups.push(sections[s].rows);
+    }
+  }
+  for (var n = 0; n < groups.length; n++) {
+    total += groups[n].length;
+  }
+
+  var rowAt = function(index) {
+    for (var g = 0; g < groups.length; g++) {
+      if (index < groups[g].length) {
+        return groups[g][index];
+      }
+      index -= groups[g].length;
+    }
+    return null;
+  };
+
+  // without a thead, a first row of only th cells holds the headers
+  var skip = 0;
+  if (!headRows.length && total) {
+    var firstCells = children(rowAt(0), ['td', 'th']);
+    if (firstCells.length && children(rowAt(0), ['th']).length === firstCells.length) {
+      headRows.push(rowAt(0));
+      skip = 1;
+      total--;
+    }
+  }
+
+  var expand = function(row) {
+    var cells = [];
+    var rowCells = children(row, ['td', 'th']);
+    for (var c = 0; c < rowCells.length; c++) {
+      var span = parseInt(rowCells[c].getAttribute('colspan'), 10) || 1;
+      for (var k = 0; k < span; k++) {
+        cells.push(rowCells[c]);
+      }
+    }
+    return cells;
+  };
+
+  if (headRows.length) {
+    var headerCells = expand(headRows[headRows.length - 1]);
+    for (var h = 0; h < headerCells.length; h++) {
+      headers.push(getText(headerCells[h]) || 'column' + (h + 1));
+    }
+  }
+
+  // the columns are counted over every row only if no earlier page did
+  var width = headers.length;
+  for (var r = columns < 0 ? 0 : offset; r < (columns < 0 ? total : pageEnd(total)); r++) {
+    if (inPage(r)) {
+      sources.push(expand(rowAt(r + skip)));
+      width = Math.max(width, sources[sources.length - 1].length);
+    }
+    else {
+      width = Math.max(width, expand(rowAt(r + skip)).length);
+    }
+  }
+  width = Math.max(width, columns);
+  for (var w = headers.length; w < width; w++) {
+    headers.push('column' + (w + 1));
+  }
+}
+else if (spec.kind === 'dl') {
+  headers = ['term', 'description'];
+  var term = null;
+  var items = root.children;
+  for (var d = 0; d < items.length; d++) {
+    // definition lists may group their dt/dd pairs in divs
+    var tag = items[d].tagName.toLowerCase();
+    var pairs = tag === 'div' ? children(items[d], ['dt', 'dd']) : tag === 'dt' || tag === 'dd' ? [items[d]] : [];
+    for (var p = 0; p < pairs.length; p++) {
+      if (pairs[p].tagName.toLowerCase() === 'dt') {
+        term = pairs[p];
+      }
+      else {
+        if (inPage(total)) {
+          sources.push([term, pairs[p]]);
+        }
+        total++;
+      }
+    }
+  }
+}
+else if (spec.kind === 'list') {
+  headers = ['text'];
+  var listItems = root.children;
+  for (var l = 0; l < listItems.length; l++) {
+    if (listItems[l].tagName.toLowerCase() === 'li') {
+      if (inPage(total)) {
+        sources.push([listItems[l]]);
+      }
+      total++;
+    }
+  }
+}
+else {
+  var cards = root.querySelectorAll(spec.card);
+  total = cards.length;
+  for (var f = 0; f < spec.fields.length; f++) {
+    headers.push(spec.fields[f][0]);
+  }
+  for (var cd = offset; cd < pageEnd(total); cd++) {
+    var fields = [];
+    for (var fi = 0; fi < spec.fields.length; fi++) {
+      fields.push(spec.fields[fi][1] ? cards[cd].querySelector(spec.fields[fi][1]) : cards[cd]);
+    }
+    sources.push(fields);
+  }
+}
+
+var baseHeaders = headers.slice(0);
+for (var a = 0; a < spec.attributes.length; a++) {
+  for (var bh = 0; bh < baseHeaders.length; bh++) {
+    headers.push(baseHeaders[bh] + '@' + spec.attributes[a]);
+  }
+}
+
+var rows = [];
+for (var i = 0; i < sources.length; i++) {
+  var row = [];
+  for (var b = 0; b < baseHeaders.length; b++) {
+    row.push(getText(sources[i][b]));
+  }
+  for (var at = 0; at < spec.attributes.length; at++) {
+    for (var ab = 0; ab < baseHeaders.length; ab++) {
+      row.push(getAttribute(sources[i][ab], spec.attributes[at]));
+    }
+  }
+  rows.push(row);
+}
+
+return { headers: headers, rows: rows, total: total, columns: baseHeaders.length };
@@ -0,0 +1,120 @@
+/*
+ * Form fill used by com.partnet.automation.form.FormFiller.
+ *
+ * arguments[0] - the fields, each a locator ({ css: ... } or { xpath: ... })
+ *                or an element
+ * arguments[1] - values to set, in the same order. Empty to only read the
+ *                fields back.
+ *
+ * returns a list with for every field { element: ..., value: ..., text: ... },
+ * where text is true for fields that can be cleared, or
+ * { missing: true } when the locator found nothing. The value of a select is
+ * the visible text of its selected option, which is what typing matches.
+ */
+var fields = arguments[0];
+var values = arguments[1];
+
+var find = function(field) {
+  if (field.nodeType) {
+    return field;
+  }
+  if (field.css) {
+    return document.querySelector(field.css);
+  }
+  return document.evaluate(field.xpath, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;
+};
+
+// text fields the script can set, everything else is left to native typing
+var isText = function(element) {
+  var tag = element.tagName.toLowerCase();
+  if (tag === 'textarea') {
+    return true;
+  }
+  if (tag !== 'input') {
+    return false;
+  }
+  var type = (element.getAttribute('type') || 'text').toLowerCase();
+  return ['checkbox', 'radio', 'file', 'button', 'submit', 'reset', 'image'].indexOf(type) < 0;
+};
+
+var normalize = function(text) {
+  return (text || '').replace(/\s+/g, ' ').replace(/^\s+|\s+$/g, '');
+};
+
+var fire = function(element, type, bubbles) {
+  var event = document.createEvent('HTMLEvents');
+  event.initEvent(type, bubbles, false);
+  element.dispatchEvent(event);
+};
+
+// picks the first enabled option with the visible text, like typing would
+var selectOption = function(element, value) {
+  if (element.disabled) {
+    return;
+  }
+  for (var o = 0; o < element.options.length; o++) {
+    var option = element.options[o];
+    if (!option.disabled && normalize(option.text) === normalize(value)) {
+      if (element.selectedIndex !== o) {
+        element.selectedIndex = o;
+        fire(element, 'input', true);
+        fire(element, 'change', true);
+      }
+      return;
+    }
+  }
+};
+
+var setValue = function(element, value) {
+  if (element.disabled || element.readOnly) {
+    return;
+  }
+  // typing never goes past maxlength, leave a value that is too long to native typing
+  if (element.maxLength > 0 && value.length > element.maxLength) {
+    return;
+  }
+  // frameworks like React track the value property, so use the prototype setter
+  var setter = null;
+  try {
+    var descriptor = Object.getOwnPropertyDescriptor(Object.getPrototypeOf(element), 'value');
+    setter = descriptor && descriptor.set;
+  }
+  catch (e) {
+    setter = null;
+  }
+  if (setter) {
+    setter.call(element, value);
+  }
+  else {
+    element.value = value;
+  }
+  fire(element, 'input', true);
+  fire(element, 'change', true);
+  fire(element, 'blur', false);
+};
+
+var getValue = function(element) {
+  if (element.tagName.toLowerCase() === 'select') {
+    var option = element.selectedIndex < 0 ? null : element.options[element.selectedIndex];
+    return option ? normalize(option.text) : '';
+  }
+  return element.value === undefined ? null : element.value;
+};
+
+var result = [];
+for (var i = 0; i < fields.length; i++) {
+  var element = find(fields[i]);
+  if (!element) {
+    result.push({ missing: true });
+    continue;
+  }
+  var text = isText(element);
+  if (values.length && text) {
+    setValue(element, values[i]);
+  }
+  else if (values.length && element.tagName.toLowerCase() === 'select' && !element.multiple) {
+    selectOption(element, values[i]);
+  }
+  result.push({ element: element, value: getValue(element), text: text });
+}
+return result;
@@ -0,0 +1,44 @@
+/*
+ * Navigation detection used by com.partnet.automation.wait.NavigationMarker.
+ *
+ * arguments[0] - 'plant' to mark the current document, 'probe' to check it
+ * arguments[1] - token of the marker
+ *
+ * probe returns 'same' if the marked document is still shown, 'unloading' if
+ * it started to unload, 'replaced' if another document is shown
+ */
+var op = arguments[0];
+var token = arguments[1];
+
+if (op === 'plant') {
+  // the previous marker's listener is removed, so they do not pile up on
+  // pages that never unload
+  var previous = document.__seautoNavigation;
+  if (previous && previous.onUnload) {
+    if (window.removeEventListener) {
+      window.removeEventListener('beforeunload', previous.onUnload);
+    }
+    else if (window.detachEvent) {
+      window.detachEvent('onbeforeunload', previous.onUnload);
+    }
+  }
+
+  var marker = { token: token, unloading: false };
+  marker.onUnload = function() {
+    marker.unloading = true;
+  };
+  document.__seautoNavigation = marker;
+  if (window.addEventListener) {
+    window.addEventListener('beforeunload', marker.onUnload);
+  }
+  else if (window.attachEvent) {
+    window.attachEvent('onbeforeunload', marker.onUnload);
+  }
+  return null;
+}
+
+var current = document.__seautoNavigation;
+if (!current || current.token !== token) {
+  return 'replaced';
+}
+return current.unloading ? 'unloading' : 'same';
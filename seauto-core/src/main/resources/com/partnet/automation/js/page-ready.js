@@ -0,0 +1,96 @@
+/*
+ * Page readiness probe used by com.partnet.automation.wait.PageReadyCondition.
+ *
+ * arguments[0] - names of the checks to run
+ * returns null when the page is ready, otherwise a description of what is
+ * still pending.
+ */
+var checks = {};
+for (var i = 0; i < arguments[0].length; i++) {
+  checks[arguments[0][i]] = true;
+}
+
+var doc = window.document;
+
+// count in flight XHR and fetch requests, from the first probe on this document
+if (checks.requests && !window.__seautoRequests) {
+  var counter = window.__seautoRequests = { pending: 0 };
+  var track = function() {
+    var done = false;
+    counter.pending++;
+    return function() {
+      if (!done) {
+        done = true;
+        counter.pending--;
+      }
+    };
+  };
+
+  if (window.XMLHttpRequest) {
+    var send = XMLHttpRequest.prototype.send;
+    XMLHttpRequest.prototype.send = function() {
+      var xhr = this;
+      var finish = track();
+      xhr.addEventListener('readystatechange', function() {
+        if (xhr.readyState === 4) {
+          finish();
+        }
+      });
+      try {
+        return send.apply(xhr, arguments);
+      }
+      catch (e) {
+        finish();
+        throw e;
+      }
+    };
+  }
+
+  if (window.fetch) {
+    var fetch = window.fetch;
+    window.fetch = function() {
+      var finish = track();
+      return fetch.apply(this, arguments).then(function(response) {
+        finish();
+        return response;
+      }, function(error) {
+        finish();
+        throw error;
+      });
+    };
+  }
+}
+
+if (checks.document && doc.readyState !== 'complete') {
+  return 'document.readyState is ' + doc.readyState;
+}
+
+if (checks.jquery && window.jQuery && window.jQuery.active > 0) {
+  return 'jQuery.active is ' + window.jQuery.active;
+}
+
+if (checks.requests && window.__seautoRequests.pending > 0) {
+  return window.__seautoRequests.pending + ' request(s) in flight';
+}
+
+if (checks.blockui) {
+  var overlays = doc.querySelectorAll('.blockUI');
+  for (var j = 0; j < overlays.length; j++) {
+    if (overlays[j].offsetWidth > 0 || overlays[j].offsetHeight > 0) {
+      return 'blockUI overlay is showing';
+    }
+  }
+}
+
+if (checks.animations && doc.getAnimations) {
+  var animations = doc.getAnimations();
+  for (var k = 0; k < animations.length; k++) {
+    var timing = animations[k].effect && animations[k].effect.getComputedTiming();
+    // endless animations, like spinners, would never settle
+    if (animations[k].playState === 'running' && timing && timing.iterations !== Infinity) {
+      return 'CSS animation is running';
+    }
+  }
+}
+
+return null;
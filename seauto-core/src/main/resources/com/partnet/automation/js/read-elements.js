@@ -0,0 +1,58 @@
+/*
+ * Bulk element read used by com.partnet.automation.extract.ElementReader.
+ *
+ * arguments[0] - what to read: { properties: [...], attributes: [...] }
+ * arguments[1] - elements to read, or empty to find them with the locator
+ * arguments[2] - element to search in, or false for the document
+ * arguments[3] - locator, { css: ... } or { xpath: ... }
+ */
+var spec = arguments[0];
+var elements = arguments[1];
+
+if (!elements.length) {
+  var context = arguments[2] || document;
+  var locator = arguments[3];
+  elements = dom.findAll(locator, context);
+}
+
+var wanted = {};
+for (var p = 0; p < spec.properties.length; p++) {
+  wanted[spec.properties[p]] = true;
+}
+
+var getText = function(element) {
+  if (element.tagName.toLowerCase() === 'option') {
+    return element.text.replace(/\s+/g, ' ').replace(/^\s+|\s+$/g, '');
+  }
+  if (typeof element.innerText === 'string') {
+    return element.innerText.replace(/^\s+|\s+$/g, '');
+  }
+  return (element.textContent || '').replace(/\s+/g, ' ').replace(/^\s+|\s+$/g, '');
+};
+
+var result = [];
+for (var i = 0; i < elements.length; i++) {
+  var element = elements[i];
+  var data = { element: element };
+
+  if (wanted.TEXT) {
+    data.text = getText(element);
+  }
+  if (wanted.VALUE) {
+    data.value = element.value === undefined ? null : String(element.value);
+  }
+  if (wanted.TAG) {
+    data.tag = element.tagName.toLowerCase();
+  }
+  if (wanted.DISPLAYED) {
+    data.displayed = dom.isDisplayed(element);
+  }
+  if (spec.attributes.length) {
+    data.attributes = {};
+    for (var a = 0; a < spec.attributes.length; a++) {
+      data.attributes[spec.attributes[a]] = element.getAttribute(spec.attributes[a]);
+    }
+  }
+  result.push(data);
+}
+return result;
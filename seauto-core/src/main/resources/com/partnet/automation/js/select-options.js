@@ -0,0 +1,115 @@
+/*
+ * Option selection used by com.partnet.automation.form.OptionSelector.
+ *
+ * arguments[0] - the select element
+ * arguments[1] - how to match the options: 'text', 'value', or 'none' to only
+ *                read the selected options
+ * arguments[2] - visible texts or values of the options to select
+ * arguments[3] - true to deselect every other option of a multi-select
+ *
+ * returns { selected: [{ text: ..., value: ..., index: ... }, ...] }, or
+ * { tag: ... } if the element is not a select, { single: true } if several
+ * options are given for a single select, { hidden: true } if the select is
+ * not displayed, { disabledSelect: true } if the select is disabled, { missing: ... } with the first text or value no option
+ * matches, or { disabled: ... } with the first one only disabled options match
+ */
+var select = arguments[0];
+var match = arguments[1];
+var keys = arguments[2];
+var replace = arguments[3];
+
+if (select.tagName.toLowerCase() !== 'select') {
+  return { tag: select.tagName.toLowerCase() };
+}
+
+var normalize = function(text) {
+  return (text || '').replace(/\s+/g, ' ').replace(/^\s+|\s+$/g, '');
+};
+
+var options = select.options;
+
+var selected = function() {
+  var found = [];
+  for (var i = 0; i < options.length; i++) {
+    if (options[i].selected) {
+      found.push({ text: normalize(options[i].text), value: options[i].value, index: i });
+    }
+  }
+  return found;
+};
+
+if (match === 'none') {
+  return { selected: selected() };
+}
+
+if (keys.length > 1 && !select.multiple) {
+  return { single: true };
+}
+
+// like Select, options of a select that is not drawn can not be selected
+if (!dom.isDisplayed(select)) {
+  return { hidden: true };
+}
+
+// like a user, disabled options and options of a disabled select can not be
+// selected
+if (select.disabled) {
+  return { disabledSelect: true };
+}
+
+var isDisabled = function(option) {
+  var group = option.parentNode;
+  return option.disabled || (group && group.tagName && group.tagName.toLowerCase() === 'optgroup' && group.disabled);
+};
+
+// find every option before changing anything, so a missing one changes nothing
+var toSelect = [];
+for (var k = 0; k < keys.length; k++) {
+  var wanted = match === 'text' ? normalize(keys[k]) : keys[k];
+  var matched = false;
+  var disabled = false;
+  for (var o = 0; o < options.length; o++) {
+    var actual = match === 'text' ? normalize(options[o].text) : options[o].value;
+    if (actual === wanted && isDisabled(options[o])) {
+      disabled = true;
+    }
+    else if (actual === wanted) {
+      toSelect.push(options[o]);
+      matched = true;
+      // a single select ends up with the first match, like typing would
+      if (!select.multiple) {
+        break;
+      }
+    }
+  }
+  if (!matched) {
+    return disabled ? { disabled: keys[k] } : { missing: keys[k] };
+  }
+}
+
+var changed = false;
+
+for (var d = 0; replace && select.multiple && d < options.length; d++) {
+  if (options[d].selected && toSelect.indexOf(options[d]) < 0 && !isDisabled(options[d])) {
+    options[d].selected = false;
+    changed = true;
+  }
+}
+for (var s = 0; s < toSelect.length; s++) {
+  if (!toSelect[s].selected) {
+    toSelect[s].selected = true;
+    changed = true;
+  }
+}
+
+// like a user, only a change of the selection fires the events
+if (changed) {
+  var events = ['input', 'change'];
+  for (var e = 0; e < events.length; e++) {
+    var event = document.createEvent('HTMLEvents');
+    event.initEvent(events[e], true, false);
+    select.dispatchEvent(event);
+  }
+}
+
+return { selected: selected() };
@@ -0,0 +1,83 @@
+/*
+ * Push based element wait used by com.partnet.automation.wait.ElementWait,
+ * run with executeAsyncScript.
+ *
+ * arguments[0] - the condition, see ElementCondition
+ * arguments[1] - how long to wait, in ms
+ * callback     - called with the matching element, or null on timeout
+ */
+var spec = arguments[0];
+var timeout = arguments[1];
+var callback = arguments[arguments.length - 1];
+
+var check = function() {
+  var candidates = dom.findAll(spec.locator, document);
+  for (var i = 0; i < candidates.length; i++) {
+    if (dom.matches(spec, candidates[i])) {
+      return candidates[i];
+    }
+  }
+  return null;
+};
+
+var found = check();
+if (found) {
+  callback(found);
+  return;
+}
+
+var finished = false;
+var observer = null;
+var interval = null;
+var timer = null;
+var pending = null;
+
+var finish = function(result) {
+  if (finished) {
+    return;
+  }
+  finished = true;
+  if (observer) {
+    observer.disconnect();
+  }
+  if (interval !== null) {
+    clearInterval(interval);
+  }
+  clearTimeout(timer);
+  clearTimeout(pending);
+  callback(result);
+};
+
+var onChange = function() {
+  var element = check();
+  if (element) {
+    finish(element);
+  }
+};
+
+// a burst of mutations only needs one check of the whole document
+var onMutation = function() {
+  if (pending === null) {
+    pending = setTimeout(function() {
+      pending = null;
+      onChange();
+    }, 0);
+  }
+};
+
+try {
+  observer = new MutationObserver(onMutation);
+  observer.observe(document.documentElement, { childList: true, subtree: true, attributes: true, characterData: true });
+}
+catch (e) {
+  observer = null;
+}
+
+// visibility can change without a DOM mutation (stylesheets, layout), and some
+// engines only partly implement MutationObserver, so also re-check in the page.
+// Without an observer this still only needs one round trip.
+interval = setInterval(onChange, observer ? 100 : 25);
+
+timer = setTimeout(function() {
+  finish(null);
+}, timeout);
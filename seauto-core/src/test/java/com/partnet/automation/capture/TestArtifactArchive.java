@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.capture;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestArtifactArchive
+{
+
+  private File dir;
+
+  @Before
+  public void setUp()
+      throws IOException
+  {
+    dir = Files.createTempDirectory("seauto-test-archive").toFile();
+    System.setProperty(ArtifactArchive.SEGMENT_SIZE_MB, "1");
+  }
+
+  @After
+  public void tearDown()
+  {
+    System.clearProperty(ArtifactArchive.SEGMENT_SIZE_MB);
+    FileUtils.deleteQuietly(dir);
+  }
+
+  @Test
+  public void test_appendReadAndExtract()
+      throws IOException
+  {
+    File archiveDir = new File(dir, "archive");
+    File screenshot = new File(dir, "screenshot/test-one.png");
+    File page = new File(dir, "html/test-one.html");
+
+    byte[] large = new byte[(1 << 20) + 10];
+    Arrays.fill(large, (byte) 7);
+
+    ArtifactArchive archive = ArtifactArchive.getInstance(archiveDir);
+    archive.append("test-one", "step\t1", screenshot.toPath(), new byte[] { 1, 2, 3 });
+    archive.append("test-one", null, page.toPath(), "<html/>".getBytes("UTF-8"));
+    archive.append("test-two", null, new File(dir, "screenshot/test-two.png").toPath(), large);
+    archive.close();
+
+    ArtifactArchiveReader reader = new ArtifactArchiveReader(archiveDir);
+    List<ArtifactArchiveReader.Entry> entries = reader.getEntries("test-one");
+
+    Assert.assertEquals(2, entries.size());
+    Assert.assertEquals("step 1", entries.get(0).getStep());
+    Assert.assertEquals("png", entries.get(0).getType());
+    Assert.assertArrayEquals(new byte[] { 1, 2, 3 }, reader.read(entries.get(0)));
+    Assert.assertArrayEquals(large, reader.read(reader.getEntries("test-two").get(0)));
+
+    // paths outside of the project directory are kept absolute
+    Assert.assertFalse(page.exists());
+    Assert.assertEquals(3, reader.extract(new File(dir, "extracted")));
+    Assert.assertEquals("<html/>", FileUtils.readFileToString(page, "UTF-8"));
+  }
+
+  @Test
+  public void test_segmentTakenByAnotherJvm()
+      throws IOException
+  {
+    File archiveDir = new File(dir, "shared");
+    ArtifactArchive archive = ArtifactArchive.getInstance(archiveDir);
+
+    // another JVM started the first segment after this archive was opened
+    Assert.assertTrue(new File(archiveDir, String.format(ArtifactArchive.SEGMENT_FILE, 0)).createNewFile());
+
+    archive.append("test-one", null, new File(dir, "screenshot/test-one.png").toPath(), new byte[] { 1, 2, 3 });
+    archive.close();
+
+    ArtifactArchiveReader reader = new ArtifactArchiveReader(archiveDir);
+    ArtifactArchiveReader.Entry entry = reader.getEntries("test-one").get(0);
+
+    Assert.assertEquals(1, entry.getSegment());
+    Assert.assertArrayEquals(new byte[] { 1, 2, 3 }, reader.read(entry));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_segmentSizeTooLarge()
+  {
+    System.setProperty(ArtifactArchive.SEGMENT_SIZE_MB, "4096");
+    ArtifactArchive.getInstance(new File(dir, "too-large"));
+  }
+}
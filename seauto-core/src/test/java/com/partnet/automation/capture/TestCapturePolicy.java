@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.capture;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestCapturePolicy
+{
+
+  @Test
+  public void test_parseModes()
+  {
+    Assert.assertEquals(CapturePolicy.Mode.NEVER, CapturePolicy.parse("never").getMode());
+    Assert.assertEquals(CapturePolicy.Mode.ON_FAILURE, CapturePolicy.parse("On-Failure").getMode());
+    Assert.assertEquals(CapturePolicy.Mode.ALWAYS, CapturePolicy.parse(" always ").getMode());
+
+    CapturePolicy rolling = CapturePolicy.parse("rolling( 5 )");
+    Assert.assertEquals(CapturePolicy.Mode.ROLLING, rolling.getMode());
+    Assert.assertEquals(5, rolling.getBufferSize());
+    Assert.assertEquals("rolling(5)", rolling.toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_unknownPolicy()
+  {
+    CapturePolicy.parse("sometimes");
+  }
+
+  @Test
+  public void test_shouldCapture()
+  {
+    Assert.assertFalse(CapturePolicy.parse("never").shouldCapture(true));
+    Assert.assertFalse(CapturePolicy.parse("on-failure").shouldCapture(false));
+    Assert.assertTrue(CapturePolicy.parse("on-failure").shouldCapture(true));
+    Assert.assertTrue(CapturePolicy.parse("always").shouldCapture(false));
+    Assert.assertFalse(CapturePolicy.parse("rolling(3)").shouldCapture(false));
+    Assert.assertTrue(CapturePolicy.parse("rolling(3)").shouldCapture(true));
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.extract;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestElementRead
+{
+
+  @Test
+  public void test_toScript()
+  {
+    ElementRead read = ElementRead.of(ElementProperty.TEXT, ElementProperty.TAG).withAttributes("href").withAttributes("class");
+    Map<String, Object> spec = read.toScript();
+
+    Assert.assertEquals(Arrays.asList("TEXT", "TAG"), spec.get("properties"));
+    Assert.assertEquals(Arrays.asList("href", "class"), spec.get("attributes"));
+  }
+
+  @Test
+  public void test_withAttributesDoesNotChangeOriginal()
+  {
+    ElementRead read = ElementRead.of(ElementProperty.VALUE);
+    read.withAttributes("id");
+
+    Assert.assertTrue(read.getAttributes().isEmpty());
+  }
+}
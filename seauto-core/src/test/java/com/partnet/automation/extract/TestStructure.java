@@ -0,0 +1,52 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.extract;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openqa.selenium.remote.RemoteWebElement;
+
+public class TestStructure
+{
+
+  @Test
+  public void test_toScript()
+  {
+    Structure cards = Structure.cards(new RemoteWebElement(), ".card").field("make", "h4").field("card", null).withAttributes("href");
+    Map<String, Object> spec = cards.toScript();
+
+    Assert.assertEquals("cards", spec.get("kind"));
+    Assert.assertEquals(".card", spec.get("card"));
+    Assert.assertEquals(Arrays.asList(Arrays.asList("make", "h4"), Arrays.asList("card", "")), spec.get("fields"));
+    Assert.assertEquals(Arrays.asList("href"), spec.get("attributes"));
+  }
+
+  @Test
+  public void test_builderDoesNotChangeOriginal()
+  {
+    Structure cards = Structure.cards(new RemoteWebElement(), ".card").field("make", "h4");
+    cards.field("price", ".price").withAttributes("href");
+
+    Map<String, Object> spec = cards.toScript();
+    Assert.assertEquals(1, ((List<?>) spec.get("fields")).size());
+    Assert.assertTrue(((List<?>) spec.get("attributes")).isEmpty());
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.extract;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestTableData
+{
+
+  @SuppressWarnings("unchecked")
+  private final TableData data = new TableData(Arrays.asList("Name", "Price", "Name"),
+      Arrays.asList(Arrays.asList("Audi", "$10", "A4"), Arrays.asList("Ford")), 4, 10);
+
+  @Test
+  public void test_asMaps()
+  {
+    List<Map<String, String>> maps = data.asMaps();
+
+    Assert.assertEquals(2, maps.size());
+    Assert.assertEquals("$10", maps.get(0).get("Price"));
+    Assert.assertNull("Missing cells should be null!", maps.get(1).get("Price"));
+    Assert.assertEquals("Duplicate headers should keep the first column!", "Audi", maps.get(0).get("Name"));
+    Assert.assertEquals(2, maps.get(0).entrySet().size());
+    Assert.assertEquals(2, maps.get(0).keySet().size());
+  }
+
+  @Test
+  public void test_getColumn()
+  {
+    Assert.assertEquals(Arrays.asList("$10", null), data.getColumn("Price"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_unknownHeader()
+  {
+    data.getColumn("Color");
+  }
+
+  @Test
+  public void test_paging()
+  {
+    Assert.assertEquals(4, data.getOffset());
+    Assert.assertEquals(10, data.getTotalRows());
+    Assert.assertEquals(2, data.size());
+    Assert.assertEquals(0, new TableData(Collections.<String> emptyList(), Collections.<List<String>> emptyList(), 0, 0).size());
+  }
+}
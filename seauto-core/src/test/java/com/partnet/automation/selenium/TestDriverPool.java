@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+import com.partnet.automation.Browser;
+
+public class TestDriverPool
+{
+
+  private final DriverPool pool = DriverPool.getInstance();
+
+  @After
+  public void tearDown()
+  {
+    System.clearProperty(DriverPool.POOL_SIZE);
+    System.clearProperty(DriverPool.POOL_MAX_USES);
+    pool.shutdown();
+  }
+
+  @Test
+  public void test_releasedDriverIsLeasedAgain()
+  {
+    WebDriver driver = new HtmlUnitDriver();
+    pool.register(driver, Browser.HTMLUNIT);
+    pool.release(driver, true);
+
+    Assert.assertEquals("Released driver was not kept idle!", 1, pool.getIdleCount(Browser.HTMLUNIT));
+    Assert.assertSame("Idle driver was not leased!", driver, pool.lease(Browser.HTMLUNIT));
+    Assert.assertNull("Pool should be empty after leasing the only driver!", pool.lease(Browser.HTMLUNIT));
+  }
+
+  @Test
+  public void test_driverRetiredAfterMaxUses()
+  {
+    System.setProperty(DriverPool.POOL_MAX_USES, "2");
+
+    WebDriver driver = new HtmlUnitDriver();
+    pool.register(driver, Browser.HTMLUNIT);
+    pool.release(driver, true);
+
+    Assert.assertSame(driver, pool.lease(Browser.HTMLUNIT));
+    pool.release(driver, true);
+
+    Assert.assertEquals("Driver should be retired after max uses!", 0, pool.getIdleCount(Browser.HTMLUNIT));
+  }
+
+  @Test
+  public void test_poolSizePerBrowser()
+  {
+    System.setProperty(DriverPool.POOL_SIZE, "1");
+    System.setProperty(DriverPool.POOL_SIZE + ".htmlunit", "2");
+
+    try {
+      pool.offer(new HtmlUnitDriver(), Browser.HTMLUNIT);
+      pool.offer(new HtmlUnitDriver(), Browser.HTMLUNIT);
+      pool.offer(new HtmlUnitDriver(), Browser.HTMLUNIT);
+
+      Assert.assertEquals("Pool grew past its configured size!", 2, pool.getIdleCount(Browser.HTMLUNIT));
+    }
+    finally {
+      System.clearProperty(DriverPool.POOL_SIZE + ".htmlunit");
+    }
+  }
+
+  @Test
+  public void test_unusableDriverIsNotPooled()
+  {
+    WebDriver driver = new HtmlUnitDriver();
+    pool.register(driver, Browser.HTMLUNIT);
+    pool.release(driver, false);
+
+    Assert.assertEquals("Unusable driver was pooled!", 0, pool.getIdleCount(Browser.HTMLUNIT));
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.firefox.FirefoxProfile;
+
+public class TestFirefoxProfileTemplate
+{
+
+  private File profileDirectory;
+
+  @Before
+  public void setUp()
+      throws IOException
+  {
+    profileDirectory = Files.createTempDirectory("seauto-test-profile").toFile();
+    FileUtils.writeStringToFile(new File(profileDirectory, "user.js"), "user_pref(\"seauto.test\", \"template\");\n", StandardCharsets.UTF_8);
+  }
+
+  @After
+  public void tearDown()
+  {
+    FileUtils.deleteQuietly(profileDirectory);
+  }
+
+  @Test
+  public void test_cloneHasExtensionAndPreferences()
+      throws IOException
+  {
+    FirefoxProfile profile = FirefoxProfileTemplate.getProfile(profileDirectory);
+    profile.setPreference(FirefoxProfile.PORT_PREFERENCE, 7099);
+
+    File clone = profile.layoutOnDisk();
+
+    try {
+      String userPrefs = FileUtils.readFileToString(new File(clone, "user.js"), StandardCharsets.UTF_8);
+      Assert.assertTrue("Template preference is missing!", userPrefs.contains("seauto.test"));
+      Assert.assertTrue("Session preference is missing!", userPrefs.contains("7099"));
+
+      File extensions = new File(clone, "extensions");
+      Assert.assertTrue("WebDriver extension was not installed!", extensions.isDirectory() && extensions.list().length > 0);
+    }
+    finally {
+      profile.clean(clone);
+    }
+
+    Assert.assertFalse("Clone was not cleaned up!", clone.exists());
+  }
+
+  @Test
+  public void test_clonesAreIndependent()
+  {
+    FirefoxProfile firstProfile = FirefoxProfileTemplate.getProfile(profileDirectory);
+    FirefoxProfile secondProfile = FirefoxProfileTemplate.getProfile(profileDirectory);
+    File first = firstProfile.layoutOnDisk();
+    File second = secondProfile.layoutOnDisk();
+
+    Assert.assertNotEquals("Each session needs its own profile directory!", first, second);
+
+    firstProfile.clean(first);
+    secondProfile.clean(second);
+  }
+}
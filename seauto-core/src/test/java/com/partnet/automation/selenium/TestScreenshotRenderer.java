@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+public class TestScreenshotRenderer
+{
+
+  private final AtomicInteger started = new AtomicInteger();
+
+  private final Callable<WebDriver> rendererFactory = new Callable<WebDriver>() {
+
+    @Override
+    public WebDriver call()
+    {
+      started.incrementAndGet();
+      return new SourceRenderer();
+    }
+  };
+
+  @Test
+  public void test_rendersPageSource()
+  {
+    ScreenshotJob job = ScreenshotJob.forPageSource("<html><head></head><body><p>rendered</p></body></html>", "about:blank");
+
+    String rendered = new String(ScreenshotRenderer.getInstance().render(job, rendererFactory), StandardCharsets.UTF_8);
+
+    Assert.assertTrue("Page source was not rendered: " + rendered, rendered.contains("rendered"));
+  }
+
+  @Test
+  public void test_rendererIsReused()
+  {
+    ScreenshotJob job = ScreenshotJob.forPageSource("<p>reused</p>", "about:blank");
+
+    ScreenshotRenderer.getInstance().render(job, rendererFactory);
+    ScreenshotRenderer.getInstance().render(job, rendererFactory);
+
+    Assert.assertTrue("Renderer was not reused!", started.get() <= 1);
+  }
+
+  /**
+   * Stands in for PhantomJs, the "screenshot" is the rendered page source
+   */
+  private static class SourceRenderer
+      extends HtmlUnitDriver
+      implements TakesScreenshot
+  {
+
+    public SourceRenderer()
+    {
+      super(true);
+    }
+
+    @Override
+    public <X> X getScreenshotAs(OutputType<X> target)
+        throws WebDriverException
+    {
+      return target.convertFromPngBytes(getPageSource().getBytes(StandardCharsets.UTF_8));
+    }
+  }
+}
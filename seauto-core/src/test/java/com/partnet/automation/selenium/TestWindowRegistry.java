@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openqa.selenium.By;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+import com.gargoylesoftware.htmlunit.BrowserVersion;
+import com.google.common.io.Files;
+
+public class TestWindowRegistry
+{
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private HtmlUnitDriver driver;
+
+  @Before
+  public void setUp() throws IOException
+  {
+    File popup = folder.newFile("popup.html");
+    Files.write("<html><head><title>Popup</title></head><body>Popup</body></html>", popup, StandardCharsets.UTF_8);
+
+    File start = folder.newFile("start.html");
+    Files.write("<html><body><a id='popup' href='popup.html' target='_blank'>Popup</a>"
+        + "<a id='named' href='popup.html' target='help'>Help</a></body></html>", start, StandardCharsets.UTF_8);
+
+    driver = new HtmlUnitDriver(BrowserVersion.FIREFOX_38);
+    driver.setJavascriptEnabled(true);
+    driver.get(start.toURI().toString());
+  }
+
+  @After
+  public void tearDown()
+  {
+    driver.quit();
+  }
+
+  @Test
+  public void test_newWindowDetected()
+  {
+    WindowRegistry windows = WindowRegistry.get(driver);
+    String primary = driver.getWindowHandle();
+
+    Assert.assertEquals(primary, windows.getPrimaryHandle());
+    Assert.assertNull("No window was opened yet!", windows.newWindowOpened().apply(driver));
+
+    driver.findElement(By.id("popup")).click();
+    Set<String> newHandles = windows.newWindowOpened().apply(driver);
+
+    Assert.assertNotNull("Opened window was not detected!", newHandles);
+    Assert.assertEquals(1, newHandles.size());
+    Assert.assertFalse(newHandles.contains(primary));
+
+    String popup = newHandles.iterator().next();
+    windows.verified(popup, "Popup");
+
+    Assert.assertTrue(windows.isKnown(popup));
+    Assert.assertEquals(Collections.emptySet(), windows.getNewHandles(driver));
+    Assert.assertEquals("Window with the title should be tried first!", popup, windows.getSearchOrder(driver, "Popup").get(0));
+    Assert.assertEquals(primary, windows.getSearchOrder(driver, null).get(0));
+  }
+
+  @Test
+  public void test_reopenedNamedWindow()
+  {
+    WindowRegistry windows = WindowRegistry.get(driver);
+    String primary = driver.getWindowHandle();
+
+    driver.findElement(By.id("named")).click();
+    String popup = windows.newWindowOpened().apply(driver).iterator().next();
+    windows.verified(popup, "Popup");
+
+    // opening the same named window again reuses its known handle
+    driver.findElement(By.id("named")).click();
+
+    Assert.assertEquals("Known popup should be searched when no window is new!", Collections.singleton(popup), windows.newWindowOpened().apply(driver));
+    Assert.assertNotEquals(primary, popup);
+  }
+
+  @Test
+  public void test_closedWindowForgotten()
+  {
+    WindowRegistry windows = WindowRegistry.get(driver);
+    String primary = driver.getWindowHandle();
+
+    driver.findElement(By.id("popup")).click();
+    String popup = windows.getNewHandles(driver).iterator().next();
+    windows.verified(popup, null);
+
+    driver.switchTo().window(popup).close();
+    driver.switchTo().window(primary);
+
+    Assert.assertEquals(Collections.singletonList(primary), windows.getSearchOrder(driver, null));
+    Assert.assertFalse(windows.isKnown(popup));
+  }
+
+  @Test
+  public void test_registryPerDriver()
+  {
+    HtmlUnitDriver other = new HtmlUnitDriver();
+    try {
+      Assert.assertSame(WindowRegistry.get(driver), WindowRegistry.get(driver));
+      Assert.assertNotSame(WindowRegistry.get(driver), WindowRegistry.get(other));
+    }
+    finally {
+      other.quit();
+    }
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium.remote;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+public class TestBackoffRetryStrategy
+{
+
+  @Test
+  public void test_retriesUntilSessionCreated()
+  {
+    final AtomicInteger requests = new AtomicInteger();
+    final WebDriver driver = new HtmlUnitDriver();
+
+    WebDriver acquired = new BackoffRetryStrategy(5, 1, 10, 10000, 1).acquire(new RemoteSessionFactory() {
+
+      @Override
+      public WebDriver create()
+      {
+        if (requests.incrementAndGet() < 3) {
+          throw new WebDriverException("grid is full");
+        }
+        return driver;
+      }
+
+      @Override
+      public void discard(WebDriver session)
+      {
+        session.quit();
+      }
+    });
+
+    Assert.assertSame(driver, acquired);
+    Assert.assertEquals("Unexpected number of session requests!", 3, requests.get());
+    driver.quit();
+  }
+
+  @Test(expected = WebDriverException.class)
+  public void test_givesUpAfterDeadline()
+  {
+    new BackoffRetryStrategy(Integer.MAX_VALUE, 10, 50, 200, 1).acquire(new RemoteSessionFactory() {
+
+      @Override
+      public WebDriver create()
+      {
+        throw new WebDriverException("grid is full");
+      }
+
+      @Override
+      public void discard(WebDriver session)
+      {
+        session.quit();
+      }
+    });
+  }
+
+  @Test
+  public void test_pauseIsCapped()
+  {
+    BackoffRetryStrategy strategy = new BackoffRetryStrategy(100, 100, 1000, 10000, 1);
+
+    for (int tries = 1; tries < 100; tries++) {
+      long pause = strategy.getPause(tries);
+      Assert.assertTrue("Pause out of range: " + pause, pause >= 0 && pause <= 1000);
+    }
+  }
+
+  @Test
+  public void test_unusedParallelSessionsAreQuit()
+      throws InterruptedException
+  {
+    final AtomicInteger requests = new AtomicInteger();
+    final CountDownLatch quits = new CountDownLatch(2);
+
+    WebDriver acquired = new BackoffRetryStrategy(1, 1, 10, 10000, 3).acquire(new RemoteSessionFactory() {
+
+      @Override
+      public WebDriver create()
+      {
+        // the first request wins, the others finish later
+        if (requests.incrementAndGet() > 1) {
+          sleep(100);
+        }
+
+        return new HtmlUnitDriver() {
+
+          @Override
+          public void quit()
+          {
+            quits.countDown();
+            super.quit();
+          }
+        };
+      }
+
+      @Override
+      public void discard(WebDriver session)
+      {
+        session.quit();
+      }
+    });
+
+    Assert.assertTrue("Unused sessions were not quit!", quits.await(5, TimeUnit.SECONDS));
+    acquired.quit();
+  }
+
+  private static void sleep(long millis)
+  {
+    try {
+      Thread.sleep(millis);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
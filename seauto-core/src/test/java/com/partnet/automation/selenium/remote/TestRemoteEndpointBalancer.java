@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium.remote;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+public class TestRemoteEndpointBalancer
+{
+
+  @Test
+  public void test_roundRobin()
+      throws MalformedURLException
+  {
+    RemoteEndpointBalancer balancer = newBalancer(RemoteEndpointBalancer.Policy.ROUND_ROBIN);
+
+    RemoteEndpoint first = balancer.select();
+    RemoteEndpoint second = balancer.select();
+
+    Assert.assertNotSame("Round robin used the same endpoint twice!", first, second);
+    Assert.assertSame("Round robin did not wrap around!", first, balancer.select());
+  }
+
+  @Test
+  public void test_unhealthyEndpointOutOfRotation()
+      throws MalformedURLException
+  {
+    RemoteEndpointBalancer balancer = newBalancer(RemoteEndpointBalancer.Policy.ROUND_ROBIN);
+    RemoteEndpoint broken = balancer.getEndpoints().get(0);
+
+    balancer.failed(broken);
+    Assert.assertTrue("Endpoint removed before max failures!", broken.isHealthy());
+
+    balancer.failed(broken);
+    Assert.assertFalse("Endpoint not removed after max failures!", broken.isHealthy());
+
+    for (int i = 0; i < 4; i++) {
+      Assert.assertNotSame("Unhealthy endpoint was selected!", broken, balancer.select());
+    }
+  }
+
+  @Test
+  public void test_leastSessions()
+      throws MalformedURLException
+  {
+    RemoteEndpointBalancer balancer = newBalancer(RemoteEndpointBalancer.Policy.LEAST_SESSIONS);
+    RemoteEndpoint busy = balancer.getEndpoints().get(0);
+    WebDriver session = new FakeSession("session-1");
+
+    balancer.succeeded(busy, session, 10);
+    for (int i = 0; i < 4; i++) {
+      Assert.assertNotSame("Busy endpoint was selected!", busy, balancer.select());
+    }
+
+    RemoteEndpointBalancer.release(session);
+    Assert.assertEquals("Released session is still counted!", 0, busy.getOutstandingSessions());
+  }
+
+  @Test
+  public void test_latencySpreadsUnmeasuredEndpoints()
+      throws MalformedURLException
+  {
+    RemoteEndpointBalancer balancer = newBalancer(RemoteEndpointBalancer.Policy.LATENCY);
+
+    Assert.assertNotSame("Unmeasured endpoints should be used in turn!", balancer.select(), balancer.select());
+  }
+
+  @Test
+  public void test_zeroCooldownKeepsEndpointHealthy()
+      throws MalformedURLException
+  {
+    RemoteEndpointBalancer balancer = new RemoteEndpointBalancer(Arrays.asList(new URL("http://hub-1:4444/wd/hub")), RemoteEndpointBalancer.Policy.ROUND_ROBIN, 1, 0);
+    RemoteEndpoint endpoint = balancer.getEndpoints().get(0);
+
+    balancer.failed(endpoint);
+    Assert.assertTrue("Endpoint should be back once the cooldown is over!", endpoint.isHealthy());
+
+    balancer.succeeded(endpoint, new FakeSession("session-2"), 10);
+    Assert.assertTrue(endpoint.isHealthy());
+  }
+
+  private RemoteEndpointBalancer newBalancer(RemoteEndpointBalancer.Policy policy)
+      throws MalformedURLException
+  {
+    return new RemoteEndpointBalancer(Arrays.asList(new URL("http://hub-1:4444/wd/hub"), new URL("http://hub-2:4444/wd/hub")), policy, 2, 60000);
+  }
+
+  private static class FakeSession
+      extends RemoteWebDriver
+  {
+
+    public FakeSession(String sessionId)
+    {
+      setSessionId(sessionId);
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.selenium.remote;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRemoteSessionCircuitBreaker
+{
+
+  @Test
+  public void test_opensAfterThreshold()
+  {
+    RemoteSessionCircuitBreaker breaker = new RemoteSessionCircuitBreaker(2, 60000);
+
+    breaker.beforeRequest();
+    breaker.failed();
+    Assert.assertEquals(RemoteSessionCircuitBreaker.State.CLOSED, breaker.getState());
+
+    breaker.failed();
+    Assert.assertEquals(RemoteSessionCircuitBreaker.State.OPEN, breaker.getState());
+
+    try {
+      breaker.beforeRequest();
+      Assert.fail("Open breaker let a request through!");
+    }
+    catch (CircuitOpenException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void test_probeClosesBreaker()
+  {
+    RemoteSessionCircuitBreaker breaker = new RemoteSessionCircuitBreaker(1, 0);
+
+    breaker.failed();
+    breaker.beforeRequest();
+    Assert.assertEquals(RemoteSessionCircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+    breaker.succeeded();
+    Assert.assertEquals(RemoteSessionCircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  public void test_failedProbeOpensBreaker()
+  {
+    RemoteSessionCircuitBreaker breaker = new RemoteSessionCircuitBreaker(1, 0);
+
+    breaker.failed();
+    breaker.beforeRequest();
+
+    try {
+      breaker.beforeRequest();
+      Assert.fail("Only one probe should be let through!");
+    }
+    catch (CircuitOpenException e) {
+      // expected
+    }
+
+    breaker.failed();
+    Assert.assertEquals(RemoteSessionCircuitBreaker.State.OPEN, breaker.getState());
+  }
+}
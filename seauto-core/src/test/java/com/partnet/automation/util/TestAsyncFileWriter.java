@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestAsyncFileWriter
+{
+
+  private Path dir;
+
+  @Before
+  public void setUp()
+      throws IOException
+  {
+    dir = Files.createTempDirectory("seauto-test-writer");
+  }
+
+  @After
+  public void tearDown()
+  {
+    FileUtils.deleteQuietly(dir.toFile());
+  }
+
+  @Test
+  public void test_flushWaitsForQueuedWrites()
+      throws IOException
+  {
+    AsyncFileWriter writer = AsyncFileWriter.getInstance();
+
+    for (int i = 0; i < 50; i++) {
+      writer.write(dir.resolve("nested").resolve(i + ".png"), new byte[] { (byte) i, 1, 2, 3 });
+    }
+    writer.flush();
+
+    for (int i = 0; i < 50; i++) {
+      byte[] written = Files.readAllBytes(dir.resolve("nested").resolve(i + ".png"));
+      Assert.assertArrayEquals(new byte[] { (byte) i, 1, 2, 3 }, written);
+    }
+  }
+
+  @Test
+  public void test_existingFileIsReplaced()
+      throws IOException
+  {
+    Path file = dir.resolve("screenshot.png");
+    Files.write(file, new byte[] { 9, 9, 9, 9, 9, 9 });
+
+    AsyncFileWriter.getInstance().write(file, new byte[] { 1 });
+    AsyncFileWriter.getInstance().flush();
+
+    Assert.assertArrayEquals(new byte[] { 1 }, Files.readAllBytes(file));
+  }
+}
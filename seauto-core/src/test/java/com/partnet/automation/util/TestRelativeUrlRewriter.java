@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.util;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRelativeUrlRewriter
+{
+
+  @Test
+  public void test_relativeUrlsRewritten()
+      throws IOException
+  {
+    StringWriter out = new StringWriter();
+    RelativeUrlRewriter.write("<link href=\"/css/a.css\"><img src= \"/a.png\"><a href=\"b.html\">", "http://example.com", out);
+
+    Assert.assertEquals("<link href=\"http://example.com/css/a.css\"><img src=\"http://example.com/a.png\"><a href=\"b.html\">", out.toString());
+  }
+
+  @Test
+  public void test_blankBaseUrlKeepsSource()
+      throws IOException
+  {
+    String source = "<p>\u65e5\u672c\u8a9e <a href=\"/x\">x</a></p>";
+    StringWriter out = new StringWriter();
+    RelativeUrlRewriter.write(source, " ", out);
+
+    Assert.assertEquals(source, out.toString());
+  }
+
+  @Test
+  public void test_baseUrlDollarSignIsLiteral()
+      throws IOException
+  {
+    StringWriter out = new StringWriter();
+    RelativeUrlRewriter.write("<a href=\"/x\">", "http://example.com/$1/", out);
+
+    Assert.assertEquals("<a href=\"http://example.com/$1/x\">", out.toString());
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.wait;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openqa.selenium.By;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+import com.gargoylesoftware.htmlunit.BrowserVersion;
+import com.google.common.io.Files;
+
+public class TestCompositeCondition
+{
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private HtmlUnitDriver driver;
+
+  @Before
+  public void setUp() throws IOException
+  {
+    File page = folder.newFile("page.html");
+    Files.write("<html><body><div id='total' class='price'>$42</div><a href='#'>Details</a>"
+        + "<ul><li>one</li><li>two</li></ul></body></html>", page, StandardCharsets.UTF_8);
+
+    driver = new HtmlUnitDriver(BrowserVersion.FIREFOX_38);
+    driver.setJavascriptEnabled(true);
+    driver.get(page.toURI().toString());
+  }
+
+  @After
+  public void tearDown()
+  {
+    driver.quit();
+  }
+
+  @Test
+  public void test_allOfMet()
+  {
+    CompositeCondition condition = CompositeCondition.allOf(
+        CompositeCondition.text(By.id("total"), "^\\$\\d+$"),
+        CompositeCondition.attribute(By.id("total"), "class", "price"),
+        CompositeCondition.count(By.tagName("li"), 2, 2),
+        CompositeCondition.not(CompositeCondition.present(By.className("blockUI"))));
+    CompositeCondition.Check check = condition.newCheck();
+
+    Assert.assertTrue(check.apply(driver));
+    Assert.assertNull(check.getFailed());
+  }
+
+  @Test
+  public void test_failedSubCondition()
+  {
+    CompositeCondition tooMany = CompositeCondition.count(By.tagName("li"), 3, 5);
+    CompositeCondition.Check check = CompositeCondition.allOf(CompositeCondition.present(By.id("total")), tooMany).newCheck();
+
+    Assert.assertFalse(check.apply(driver));
+    Assert.assertSame(tooMany, check.getFailed());
+    Assert.assertTrue(check.toString(), check.toString().endsWith("(failed: 3 to 5 elements located by By.tagName: li)"));
+  }
+
+  @Test
+  public void test_anyOfAndNot()
+  {
+    CompositeCondition any = CompositeCondition.anyOf(CompositeCondition.present(By.id("missing")), CompositeCondition.present(By.id("gone")));
+    CompositeCondition.Check anyCheck = any.newCheck();
+    Assert.assertFalse(anyCheck.apply(driver));
+    Assert.assertSame(any, anyCheck.getFailed());
+
+    CompositeCondition not = CompositeCondition.not(CompositeCondition.present(By.id("total")));
+    CompositeCondition.Check notCheck = not.newCheck();
+    Assert.assertFalse(notCheck.apply(driver));
+    Assert.assertSame(not, notCheck.getFailed());
+  }
+
+  @Test
+  public void test_unscriptableLocatorCheckedByDriver()
+  {
+    CompositeCondition missing = CompositeCondition.present(By.linkText("Missing"));
+    CompositeCondition condition = CompositeCondition.anyOf(
+        CompositeCondition.allOf(CompositeCondition.present(By.linkText("Details")), missing),
+        CompositeCondition.count(By.tagName("li"), 2, 2));
+
+    Assert.assertTrue(condition.newCheck().apply(driver));
+    Assert.assertFalse(CompositeCondition.allOf(CompositeCondition.visible(By.linkText("Details")), missing).newCheck().apply(driver));
+  }
+
+  @Test
+  public void test_checksAreIndependent()
+  {
+    CompositeCondition total = CompositeCondition.present(By.id("total"));
+    CompositeCondition.Check failing = CompositeCondition.not(total).newCheck();
+    CompositeCondition.Check passing = CompositeCondition.allOf(total, total).newCheck();
+
+    Assert.assertFalse(failing.apply(driver));
+    Assert.assertTrue(passing.apply(driver));
+    Assert.assertNotNull("A check of a shared condition lost its failure!", failing.getFailed());
+    Assert.assertEquals("presence of element located by By.id: total", total.toString());
+  }
+
+  @Test
+  public void test_displayedIgnoresHiddenAncestors()
+  {
+    driver.executeScript("var hidden = document.createElement('div'); hidden.style.display = 'none';"
+        + "hidden.innerHTML = '<span id=\"inner\">Hidden</span>'; document.body.appendChild(hidden);");
+
+    Assert.assertTrue(CompositeCondition.present(By.id("inner")).newCheck().apply(driver));
+    Assert.assertFalse(CompositeCondition.visible(By.id("inner")).newCheck().apply(driver));
+  }
+}
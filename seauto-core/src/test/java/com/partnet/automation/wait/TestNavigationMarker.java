@@ -0,0 +1,148 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.wait;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openqa.selenium.By;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+import com.gargoylesoftware.htmlunit.BrowserVersion;
+import com.google.common.io.Files;
+
+public class TestNavigationMarker
+{
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private HtmlUnitDriver driver;
+
+  private int scripts = 0;
+
+  @Before
+  public void setUp() throws IOException
+  {
+    File next = folder.newFile("next.html");
+    Files.write("<html><body>Next</body></html>", next, StandardCharsets.UTF_8);
+
+    File start = folder.newFile("start.html");
+    Files.write("<html><body><a id='next' href='next.html'>Next</a><button id='stay'>Stay</button></body></html>", start, StandardCharsets.UTF_8);
+
+    // counts the script round trips
+    driver = new HtmlUnitDriver(BrowserVersion.FIREFOX_38) {
+
+      @Override
+      public Object executeScript(String script, Object... args)
+      {
+        scripts++;
+        return super.executeScript(script, args);
+      }
+    };
+    driver.setJavascriptEnabled(true);
+    driver.get(start.toURI().toString());
+  }
+
+  @After
+  public void tearDown()
+  {
+    System.clearProperty(NavigationMarker.NAVIGATION_DETECT);
+    System.clearProperty(NavigationMarker.UNLOAD_TIMEOUT_SECONDS);
+    driver.quit();
+  }
+
+  @Test
+  public void test_sameDocument()
+  {
+    NavigationMarker marker = NavigationMarker.plant(driver);
+    driver.findElement(By.id("stay")).click();
+
+    Assert.assertEquals(NavigationMarker.State.SAME, marker.getState());
+    Assert.assertTrue(marker.untilReady(PageReadyCondition.getConfigured()).apply(driver));
+  }
+
+  @Test
+  public void test_replacedDocument()
+  {
+    NavigationMarker marker = NavigationMarker.plant(driver);
+    driver.findElement(By.id("next")).click();
+
+    Assert.assertEquals(NavigationMarker.State.REPLACED, marker.getState());
+  }
+
+  @Test
+  public void test_sameDocumentSinglePoll()
+  {
+    NavigationMarker marker = NavigationMarker.plant(driver);
+    driver.findElement(By.id("stay")).click();
+    scripts = 0;
+
+    Assert.assertTrue(marker.untilReady(PageReadyCondition.getConfigured()).apply(driver));
+    Assert.assertEquals("Probe and ready check should run in one script!", 1, scripts);
+  }
+
+  @Test
+  public void test_replacedDocumentReady()
+  {
+    NavigationMarker marker = NavigationMarker.plant(driver);
+    driver.findElement(By.id("next")).click();
+
+    Assert.assertTrue(marker.untilReady(PageReadyCondition.getConfigured()).apply(driver));
+  }
+
+  @Test
+  public void test_unloadingWithoutNavigation()
+  {
+    System.setProperty(NavigationMarker.UNLOAD_TIMEOUT_SECONDS, "0");
+    NavigationMarker marker = NavigationMarker.plant(driver);
+
+    // like a download link, the document starts to unload but stays
+    driver.executeScript("var e = document.createEvent('Event'); e.initEvent('beforeunload', false, true); window.dispatchEvent(e);");
+
+    Assert.assertEquals(NavigationMarker.State.UNLOADING, marker.getState());
+    Assert.assertTrue("Document that never unloads should be treated as not navigated!", marker.untilReady(PageReadyCondition.getConfigured()).apply(driver));
+  }
+
+  @Test
+  public void test_plantRemovesPreviousListener()
+  {
+    NavigationMarker.plant(driver);
+    driver.executeScript("window.firstMarker = document.__seautoNavigation;");
+    NavigationMarker marker = NavigationMarker.plant(driver);
+
+    driver.executeScript("var e = document.createEvent('Event'); e.initEvent('beforeunload', false, true); window.dispatchEvent(e);");
+
+    Assert.assertEquals("Listener of the replaced marker was not removed!", Boolean.FALSE, driver.executeScript("return window.firstMarker.unloading;"));
+    Assert.assertEquals(NavigationMarker.State.UNLOADING, marker.getState());
+  }
+
+  @Test
+  public void test_detectionTurnedOff()
+  {
+    System.setProperty(NavigationMarker.NAVIGATION_DETECT, "false");
+
+    Assert.assertNull(NavigationMarker.plant(driver));
+  }
+}
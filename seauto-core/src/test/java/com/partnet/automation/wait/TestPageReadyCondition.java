@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.wait;
+
+import java.util.EnumSet;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.partnet.automation.wait.PageReadyCondition.Check;
+
+public class TestPageReadyCondition
+{
+
+  @After
+  public void tearDown()
+  {
+    System.clearProperty(PageReadyCondition.PAGE_READY_CHECKS);
+  }
+
+  @Test
+  public void test_defaultChecks()
+  {
+    Assert.assertEquals(EnumSet.of(Check.DOCUMENT), PageReadyCondition.getConfigured().getChecks());
+  }
+
+  @Test
+  public void test_configuredChecks()
+  {
+    System.setProperty(PageReadyCondition.PAGE_READY_CHECKS, " document , block-ui,Animations");
+
+    Assert.assertEquals(EnumSet.of(Check.DOCUMENT, Check.BLOCKUI, Check.ANIMATIONS), PageReadyCondition.getConfigured().getChecks());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_unknownCheck()
+  {
+    System.setProperty(PageReadyCondition.PAGE_READY_CHECKS, "document,spinners");
+    PageReadyCondition.getConfigured();
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.wait;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.partnet.automation.Browser;
+
+public class TestPollingStrategy
+{
+
+  @After
+  public void tearDown()
+  {
+    System.clearProperty(PollingStrategy.POLLING_STRATEGY);
+    System.clearProperty(PollingStrategy.POLLING_STRATEGY + ".firefox");
+  }
+
+  @Test
+  public void test_backoffDoublesUpToCap()
+  {
+    PollingStrategy strategy = PollingStrategy.backoff(10, 100);
+
+    Assert.assertEquals(10, strategy.getPauseMillis(0));
+    Assert.assertEquals(20, strategy.getPauseMillis(1));
+    Assert.assertEquals(80, strategy.getPauseMillis(3));
+    Assert.assertEquals(100, strategy.getPauseMillis(4));
+    Assert.assertEquals(100, strategy.getPauseMillis(Integer.MAX_VALUE));
+  }
+
+  @Test
+  public void test_parse()
+  {
+    Assert.assertEquals("fixed(500)", PollingStrategy.parse(" Fixed( 500 ) ").toString());
+    Assert.assertEquals("backoff(5,200)", PollingStrategy.parse("backoff(5, 200)").toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_parseUnknown()
+  {
+    PollingStrategy.parse("sometimes");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_parseZeroFixedPause()
+  {
+    PollingStrategy.parse("fixed(0)");
+  }
+
+  @Test
+  public void test_perBrowserOverride()
+  {
+    System.setProperty(PollingStrategy.POLLING_STRATEGY, "fixed(100)");
+    System.setProperty(PollingStrategy.POLLING_STRATEGY + ".firefox", "backoff(1,2)");
+
+    Assert.assertEquals("backoff(1,2)", PollingStrategy.forBrowser(Browser.FIREFOX).toString());
+    Assert.assertEquals("fixed(100)", PollingStrategy.forBrowser(Browser.CHROME).toString());
+  }
+
+  @Test
+  public void test_defaultPerBrowser()
+  {
+    Assert.assertEquals("backoff(10,100)", PollingStrategy.forBrowser(Browser.HTMLUNIT).toString());
+    Assert.assertEquals("backoff(10,250)", PollingStrategy.forBrowser(null).toString());
+  }
+}
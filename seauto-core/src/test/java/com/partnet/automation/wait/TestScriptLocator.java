@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015 Partnet, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.partnet.automation.wait;
+
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.support.ByIdOrName;
+
+public class TestScriptLocator
+{
+
+  @Test
+  public void test_cssLocators()
+  {
+    Assert.assertEquals(Collections.singletonMap("css", "[id=\"a\\\"b\"]"), ScriptLocator.toScript(By.id("a\"b")));
+    Assert.assertEquals(Collections.singletonMap("css", "[name=\"q\"]"), ScriptLocator.toScript(By.name("q")));
+    Assert.assertEquals(Collections.singletonMap("css", "[class~=\"blockUI\"]"), ScriptLocator.toScript(By.className("blockUI")));
+    Assert.assertEquals(Collections.singletonMap("css", "div > span"), ScriptLocator.toScript(By.cssSelector("div > span")));
+    Assert.assertEquals(Collections.singletonMap("css", "[id=\"x\"],[name=\"x\"]"), ScriptLocator.toScript(new ByIdOrName("x")));
+  }
+
+  @Test
+  public void test_xpathLocator()
+  {
+    Assert.assertEquals(Collections.singletonMap("xpath", "//div[@id='a']"), ScriptLocator.toScript(By.xpath("//div[@id='a']")));
+  }
+
+  @Test
+  public void test_untranslatableLocators()
+  {
+    Assert.assertNull(ScriptLocator.toScript(By.linkText("Home")));
+    Assert.assertNull(ScriptLocator.toScript(By.className("two classes")));
+  }
+}
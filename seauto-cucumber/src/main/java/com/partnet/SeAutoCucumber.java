@@ -18,9 +18,12 @@ package com.partnet;
 
 import java.io.IOException;
 
+import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.model.InitializationError;
 import org.slf4j.MDC;
 
+import com.partnet.automation.util.AsyncFileWriter;
+
 import cucumber.api.junit.Cucumber;
 
 /**
@@ -41,4 +44,16 @@ public class SeAutoCucumber
     MDC.put(MDC_RUNNER, clazz.getSimpleName());
   }
 
+  @Override
+  public void run(RunNotifier notifier)
+  {
+    try {
+      super.run(notifier);
+    }
+    finally {
+      // screenshots are written in the background, make sure they are on disk
+      AsyncFileWriter.getInstance().flush();
+    }
+  }
+
 }
@@ -25,7 +25,10 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
 import com.partnet.automation.Browser;
+import com.partnet.automation.capture.ArtifactCapture;
+import com.partnet.automation.capture.CapturePolicy;
 import com.partnet.automation.selenium.DriverProvider;
+import com.partnet.automation.selenium.LifecycleDriverProvider;
 
 import cucumber.api.Scenario;
 
@@ -90,6 +93,25 @@ public abstract class AbstractDriverLifecycleListener
     MDC.put("scenario", scenario.getName());
   }
 
+  /**
+   * Records the current state of the browser as a step of the running
+   * scenario, for the <code>rolling(N)</code> {@link CapturePolicy}.
+   * 
+   * @param name short description of the step
+   */
+  public void captureStep(String name)
+  {
+    getArtifactCapture().step(name);
+  }
+
+  /**
+   * @return the {@link ArtifactCapture} used to save scenario artifacts
+   */
+  protected ArtifactCapture getArtifactCapture()
+  {
+    return new ArtifactCapture(driverProvider);
+  }
+
   public void after(Scenario scenario)
   {
     if (driverProvider.get() == null) {
@@ -97,15 +119,15 @@ public abstract class AbstractDriverLifecycleListener
       return;
     }
 
-    if (scenario.isFailed()) {
-      StringBuilder sbPath = new StringBuilder();
-      sbPath.append(System.getProperty("user.dir")).append(File.separator).append("target").append(File.separator).append("seauto").append(File.separator).append("screenshots").append(File.separator).append(String.format("%s.png", scenario.getId().replaceAll(";", "__")));
-      LOG.debug("Save screenshot to {}", sbPath.toString());
+    File screenshotDir = new File(System.getProperty("user.dir"), "target" + File.separator + "seauto" + File.separator + "screenshots");
+    getArtifactCapture().finish(scenario.getId().replaceAll(";", "__"), scenario.isFailed(), screenshotDir);
 
-      driverProvider.saveScreenshotAs(sbPath.toString());
+    if (driverProvider instanceof LifecycleDriverProvider) {
+      ((LifecycleDriverProvider) driverProvider).end(scenario.isFailed());
+    }
+    else {
+      driverProvider.end();
     }
-
-    driverProvider.end();
 
   }
 }
@@ -16,13 +16,19 @@
 
 package com.partnet.junit;
 
+import java.io.File;
 import java.lang.annotation.Annotation;
 
 import com.partnet.automation.RuntimeConfiguration;
+import com.partnet.automation.capture.ArtifactCapture;
+import com.partnet.automation.capture.CapturePolicy;
 import com.partnet.automation.util.Dialog;
 import com.partnet.junit.annotations.browser.Android;
 import org.jboss.weld.environment.se.Weld;
 import org.jboss.weld.environment.se.WeldContainer;
+import org.junit.runner.Description;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
 import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.BlockJUnit4ClassRunner;
 import org.junit.runners.model.FrameworkMethod;
@@ -32,6 +38,8 @@ import org.slf4j.LoggerFactory;
 
 import com.partnet.automation.Browser;
 import com.partnet.automation.selenium.DriverProvider;
+import com.partnet.automation.selenium.LifecycleDriverProvider;
+import com.partnet.automation.util.AsyncFileWriter;
 import com.partnet.automation.util.PathUtils;
 import com.partnet.junit.annotations.browser.Chrome;
 import com.partnet.junit.annotations.browser.Firefox;
@@ -68,6 +76,17 @@ public class SeAuto
     return weld.instance().select(klass).get();
   }
 
+  @Override
+  public void run(RunNotifier notifier)
+  {
+    try {
+      super.run(notifier);
+    } finally {
+      // screenshots are written in the background, make sure they are on disk
+      AsyncFileWriter.getInstance().flush();
+    }
+  }
+
   @Override
   protected void runChild(FrameworkMethod method, RunNotifier notifier)
   {
@@ -78,43 +97,49 @@ public class SeAuto
       return;
     }
 
-    // prefer annotations of methods over class, but use class as a fallback.
-    Browser browser = getBrowser(method.getAnnotations());
-
-    if (browser == null) {
-      browser = getBrowser(klass.getAnnotations());
-    }
-
     try {
-      driverProvider.launch(browser);
+      driverProvider.launch(getBrowser(method));
     } catch (Throwable e) {
       //shut down driver if it is running
-      finalizeTest(method, driverProvider);
+      finalizeTest(method, driverProvider, true);
       throw e;
     }
 
+    // start the browser for the next test while this one runs
+    FrameworkMethod nextMethod = getNextTest(method);
+    if (nextMethod != null && driverProvider instanceof LifecycleDriverProvider) {
+      ((LifecycleDriverProvider) driverProvider).prelaunch(getBrowser(nextMethod));
+    }
+
+
+    FailureListener failureListener = new FailureListener(describeChild(method));
+    notifier.addListener(failureListener);
 
     try {
       super.runChild(method, notifier);
     } finally {
+      notifier.removeListener(failureListener);
       //make sure the browser is killed
-      finalizeTest(method, driverProvider);
+      finalizeTest(method, driverProvider, failureListener.failed);
     }
   }
 
 
   /**
-   * Finalizes the test by taking a screenshot, then killing the browser
+   * Finalizes the test by capturing the artifacts the {@link CapturePolicy}
+   * asks for, then killing the browser
    * @param method {@link FrameworkMethod} for the running test
    * @param driverProvider Web driver provider
+   * @param failed true if the test failed
    */
-  private void finalizeTest(FrameworkMethod method, DriverProvider driverProvider)
+  private void finalizeTest(FrameworkMethod method, DriverProvider driverProvider, boolean failed)
   {
     if (super.isIgnored(method)) {
       return;
     }
 
-    takeScreenshot(method, driverProvider);
+    File screenshotDir = new File(PathUtils.getProjectPath().appendFolders("target", "screenshot").toString());
+    new ArtifactCapture(driverProvider).finish(getTestName(method), failed, screenshotDir);
 
     if(Boolean.getBoolean(DEBUG_SYS_PROP)) {
       log.info("Debug mode turned on. Test halted until debug dialog accepted");
@@ -122,20 +147,99 @@ public class SeAuto
     }
 
     log.debug("Ending browser for test " + getTestName(method));
-    driverProvider.end();
+    if (driverProvider instanceof LifecycleDriverProvider) {
+      ((LifecycleDriverProvider) driverProvider).end(failed);
+    }
+    else {
+      driverProvider.end();
+    }
   }
 
-  private void takeScreenshot(FrameworkMethod method, DriverProvider driverProvider)
+  private String getTestName(FrameworkMethod method)
   {
-    String screenshotPath = PathUtils.getProjectPath().appendFolders("target", "screenshot")
-        .appendFile(getTestName(method) + ".png").toString();
-    log.debug("Screenshot saved to: {}", screenshotPath);
-    driverProvider.saveScreenshotAs(screenshotPath);
+    return klass.getName() + "-" + method.getName();
   }
 
-  private String getTestName(FrameworkMethod method)
+  /**
+   * Determine what browser to launch for the given test method. Annotations of
+   * the method are preferred over the class, but the class is used as a
+   * fallback.
+   *
+   * @param method {@link FrameworkMethod} of the test
+   * @return the {@link Browser} enum, or null to use the default browser
+   */
+  private Browser getBrowser(FrameworkMethod method)
   {
-    return klass.getName() + "-" + method.getName();
+    Browser browser = getBrowser(method.getAnnotations());
+
+    if (browser == null) {
+      browser = getBrowser(klass.getAnnotations());
+    }
+    return browser;
+  }
+
+  /**
+   * Finds the test that will run after the given test, skipping ignored tests.
+   *
+   * @param method {@link FrameworkMethod} for the running test
+   * @return the next test, or null if the given test is the last one
+   */
+  private FrameworkMethod getNextTest(FrameworkMethod method)
+  {
+    // the description lists the tests in the order they run, after any
+    // filter and sort was applied to the runner
+    Description current = describeChild(method);
+    boolean found = false;
+
+    for (Description child : getDescription().getChildren()) {
+      if (!found) {
+        found = child.equals(current);
+        continue;
+      }
+
+      FrameworkMethod next = getTest(child);
+      if (next != null && !isIgnored(next)) {
+        return next;
+      }
+    }
+    return null;
+  }
+
+  private FrameworkMethod getTest(Description description)
+  {
+    for (FrameworkMethod child : getChildren()) {
+      if (describeChild(child).equals(description)) {
+        return child;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Records if the given test fails, so the driver provider knows whether the
+   * browser is safe to keep for the next test.
+   */
+  private static class FailureListener
+      extends RunListener
+  {
+
+    private final Description test;
+
+    private volatile boolean failed = false;
+
+    public FailureListener(Description test)
+    {
+      this.test = test;
+    }
+
+    @Override
+    public void testFailure(Failure failure)
+        throws Exception
+    {
+      if (test.equals(failure.getDescription())) {
+        failed = true;
+      }
+    }
   }
 
   /**
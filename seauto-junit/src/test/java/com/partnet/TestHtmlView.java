@@ -16,6 +16,12 @@
 
 package com.partnet;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 import javax.inject.Inject;
 
 import org.json.JSONObject;
@@ -23,8 +29,19 @@ import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.openqa.selenium.By;
+import org.openqa.selenium.ElementNotVisibleException;
+import org.openqa.selenium.InvalidElementStateException;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.TimeoutException;
 
+import com.partnet.automation.extract.ElementData;
+import com.partnet.automation.extract.TableData;
+import com.partnet.automation.form.FormFiller;
+import com.partnet.automation.form.OptionSelector;
 import com.partnet.automation.page.PageProvider;
+import com.partnet.automation.wait.ElementWait;
+import com.partnet.automation.wait.PageReadyCondition;
 import com.partnet.junit.SeAuto;
 import com.partnet.junit.annotations.browser.HTMLUnit;
 import com.partnet.junit.annotations.browser.PhantomJs;
@@ -42,6 +59,10 @@ public class TestHtmlView
   public void teardown()
   {
     System.clearProperty(WAIT_FOR_PAGE_PROP);
+    System.clearProperty(ElementWait.WAIT_MODE);
+    System.clearProperty(ElementWait.SCRIPT_TIMEOUT_MILLIS);
+    System.clearProperty(OptionSelector.SELECT_MODE);
+    System.clearProperty(PageReadyCondition.PAGE_READY_CHECKS);
   }
 
   @Inject
@@ -65,6 +86,35 @@ public class TestHtmlView
     }
   }
 
+  @Test
+  public void test_fillFormByScript()
+  {
+    List<String> owner = pageProvider.get(HtmlTestPage.class, true).fillOwner("Jane", "123456789", "New notes", FormFiller.Strategy.SCRIPT).getOwner();
+
+    Assert.assertEquals("Jane", owner.get(0));
+    Assert.assertEquals("Value past maxlength should be typed and cut off!", "12345", owner.get(1));
+    Assert.assertEquals("New notes", owner.get(2));
+    Assert.assertEquals("Input event was not fired!", "Jane", owner.get(3));
+  }
+
+  @Test
+  public void test_fillFormReportsUnfilledFields()
+  {
+    HtmlTestPage page = pageProvider.get(HtmlTestPage.class, true);
+    Map<By, String> unfilled = page.fillCarForm("Audi", "123456789");
+
+    Assert.assertEquals("Only the zip past maxlength should be unfilled!", Collections.singletonMap(By.id("ownerZip"), "12345"), unfilled);
+    Assert.assertEquals("Audi", page.getManufactSelectedOption());
+  }
+
+  @Test
+  public void test_fillFormNative()
+  {
+    List<String> owner = pageProvider.get(HtmlTestPage.class, true).fillOwner("Jane", "12345", null, FormFiller.Strategy.NATIVE).getOwner();
+
+    Assert.assertEquals(Arrays.asList("Jane", "12345", ""), owner.subList(0, 3));
+  }
+
   @Test
   public void test_selectByVisibleTextDefaultOption()
   {
@@ -93,6 +143,75 @@ public class TestHtmlView
     Assert.assertEquals("Option was not selected correctly!", expectedOption, actualOption);
   }
 
+  @Test
+  public void test_selectDisabledOptionFails()
+  {
+    HtmlTestPage page = pageProvider.get(HtmlTestPage.class, true);
+
+    try {
+      page.selectCarColors("Black");
+      Assert.fail("Disabled option was selected!");
+    }
+    catch (InvalidElementStateException e) {
+      Assert.assertEquals(Arrays.asList("Green"), page.getCarColors());
+    }
+  }
+
+  @Test(expected = InvalidElementStateException.class)
+  public void test_selectInDisabledSelectFails()
+  {
+    System.setProperty(OptionSelector.SELECT_MODE, "script");
+    pageProvider.get(HtmlTestPage.class, true).selectRetiredModel("Pinto");
+  }
+
+  @Test
+  public void test_selectByVisibleTextScript()
+  {
+    System.setProperty(OptionSelector.SELECT_MODE, "script");
+    String actualOption = pageProvider.get(HtmlTestPage.class, true).selectManufactOptionByVisibleText("Audi").getManufactSelectedOption();
+
+    Assert.assertEquals("Option was not selected correctly!", "Audi", actualOption);
+  }
+
+  @Test(expected = ElementNotVisibleException.class)
+  public void test_selectInHiddenSelectFails()
+  {
+    System.setProperty(OptionSelector.SELECT_MODE, "script");
+    pageProvider.get(HtmlTestPage.class, true).selectHiddenModel("Pinto");
+  }
+
+  @Test
+  public void test_selectAllByVisibleText()
+  {
+    HtmlTestPage page = pageProvider.get(HtmlTestPage.class, true).selectCarColors("Red", "Blue");
+
+    Assert.assertEquals(Arrays.asList("Red", "Blue"), page.getCarColors());
+    Assert.assertTrue("Change event was not fired!", page.isCarColorsChanged());
+  }
+
+  @Test
+  public void test_selectAllByValueUnchanged()
+  {
+    HtmlTestPage page = pageProvider.get(HtmlTestPage.class, true).selectCarColorValues("green");
+
+    Assert.assertEquals(Arrays.asList("Green"), page.getCarColors());
+    Assert.assertFalse("Change event fired without a change!", page.isCarColorsChanged());
+  }
+
+  @Test
+  public void test_selectAllMissingOption()
+  {
+    HtmlTestPage page = pageProvider.get(HtmlTestPage.class, true);
+
+    try {
+      page.selectCarColors("Red", "Purple");
+      Assert.fail("Missing option was not reported!");
+    }
+    catch (NoSuchElementException e) {
+      Assert.assertEquals("Selection changed although an option was missing!", Arrays.asList("Green"), page.getCarColors());
+    }
+  }
+
   @Test
   public void test_ajaxListener()
   {
@@ -103,10 +222,224 @@ public class TestHtmlView
 
   }
 
-  // These tests can't be run by HTMLUnit by default because
-  // the file needs to be hosted in a web container or the protocol needs to be
-  // http to allow cookies to work. They can run with PhantomJs, but
-  // we want to keep the tests as slim as possible.
+  @Test
+  public void test_clickAndWaitForPageReady()
+  {
+    // ajax requests are only waited for when the checks are opted in to
+    System.setProperty(PageReadyCondition.PAGE_READY_CHECKS, "document,jquery,requests,blockui");
+    String actualTitle = pageProvider.get(HtmlTestPage.class, true).clickLoadAjaxResultAndWait();
+
+    Assert.assertEquals("clickAndWait did not wait for the page to be ready!", "example glossary", actualTitle);
+  }
+
+  @Test
+  public void test_clickAndWaitNavigates()
+  {
+    HtmlTestPage page = pageProvider.get(HtmlTestPage.class, true).setInfoBox("Before reload");
+    page.clickReloadBtnAndWait();
+
+    Assert.assertEquals("clickAndWait did not wait for the reloaded page!", "Default Text", page.getInfoBoxMsg());
+  }
+
+  @Test
+  public void test_switchToNewWindow()
+  {
+    HtmlTestPage page = pageProvider.get(HtmlTestPage.class, true);
+    String url = page.openPopupAndSwitchToIt();
+
+    Assert.assertTrue("Did not switch to the new window: " + url, url.endsWith("?popup"));
+
+    url = page.closePopupAndSwitchBack();
+    Assert.assertFalse("Did not switch back to the first window: " + url, url.endsWith("?popup"));
+  }
+
+  @Test
+  public void test_switchToReopenedNamedWindow()
+  {
+    HtmlTestPage page = pageProvider.get(HtmlTestPage.class, true);
+    Assert.assertTrue(page.openNamedPopupAndSwitchToIt().endsWith("?help"));
+    Assert.assertFalse(page.switchBackToPrimaryWindow().endsWith("?help"));
+
+    // the named window is opened again, with the handle that is already known
+    String url = page.openNamedPopupAndSwitchToIt();
+    Assert.assertTrue("Did not switch to the reopened window: " + url, url.endsWith("?help"));
+    page.closePopupAndSwitchBack();
+  }
+
+  @Test
+  public void test_waitForElementToAppear()
+  {
+    String actualText = pageProvider.get(HtmlTestPage.class, true).clickAndWaitForDelayedElement();
+
+    Assert.assertEquals("Delayed element was not found!", "Delayed Element", actualText);
+  }
+
+  @Test
+  public void test_waitForElementToAppearPolling()
+  {
+    System.setProperty(ElementWait.WAIT_MODE, "poll");
+    String actualText = pageProvider.get(HtmlTestPage.class, true).clickAndWaitForDelayedElement();
+
+    Assert.assertEquals("Delayed element was not found!", "Delayed Element", actualText);
+  }
+
+  @Test
+  public void test_waitForElementRestoresScriptTimeout()
+  {
+    System.setProperty(ElementWait.SCRIPT_TIMEOUT_MILLIS, "200");
+    HtmlTestPage page = pageProvider.get(HtmlTestPage.class, true);
+    page.clickAndWaitForDelayedElement();
+
+    long start = System.currentTimeMillis();
+    try {
+      page.runAsyncScriptWithoutCallback();
+      Assert.fail("Async script without a callback should have timed out!");
+    }
+    catch (TimeoutException e) {
+      Assert.assertTrue("The wait's script timeout leaked into the test!", System.currentTimeMillis() - start < 5000);
+    }
+  }
+
+  @Test
+  public void test_waitForDialogToAppear()
+  {
+    String actualText = pageProvider.get(HtmlTestPage.class, true).clickAndWaitForDelayedDialog();
+
+    Assert.assertEquals("Dialog did not finish loading!", "Dialog Content", actualText);
+  }
+
+  @Test(expected = TimeoutException.class)
+  public void test_waitForPresenceOfElementTimesOut()
+  {
+    pageProvider.get(HtmlTestPage.class, true).waitForMissingElement(1);
+  }
+
+  @Test
+  public void test_waitForCompositeCondition()
+  {
+    String actualTitle = pageProvider.get(HtmlTestPage.class, true).clickLoadAjaxResultAndWaitForResult();
+
+    Assert.assertEquals("Composite condition did not wait for the result!", "example glossary", actualTitle);
+  }
+
+  @Test
+  public void test_waitForCompositeConditionNamesFailure()
+  {
+    try {
+      pageProvider.get(HtmlTestPage.class, true).waitForBlockedAjaxResult(1);
+      Assert.fail("Composite condition should have timed out!");
+    }
+    catch (TimeoutException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains("(failed: 1 element(s) located by By.className: blockUI)"));
+    }
+  }
+
+  @Test
+  public void test_ajaxResponsesTakenOnce()
+  {
+    List<JSONObject> responses = pageProvider.get(HtmlTestPage.class, true).clickTwiceAndWaitForAjaxResponses();
+
+    // each click gives its own response, the second wait must not time out
+    for (JSONObject response : responses) {
+      Assert.assertEquals("JSON response title was not what was expected!", "example glossary", response.getJSONObject("glossary").get("title"));
+    }
+  }
+
+  @Test
+  public void test_ajaxEvictionDropsIndexedIds()
+  {
+    Assert.assertEquals("Evicted responses were left in the ajax capture!", Arrays.asList(1L, 1L), pageProvider.get(HtmlTestPage.class, true).recordAjaxResponsesOverLimit(5));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void test_ajaxResponseWithoutListener()
+  {
+    pageProvider.get(HtmlTestPage.class, true).waitForAjaxResponseWithoutListener();
+  }
+
+  @Test
+  public void test_getAllDropdownVisibleTextEntries()
+  {
+    List<String> expectedOptions = Arrays.asList("Ford", "Volvo", "Chevy", "Saab", "Dodge", "Audi", "Geo");
+
+    Assert.assertEquals("Dropdown options were not read correctly!", expectedOptions, pageProvider.get(HtmlTestPage.class, true).getManufactOptions());
+  }
+
+  @Test
+  public void test_parseDescriptionList()
+  {
+    Map<String, String> carInfo = pageProvider.get(HtmlTestPage.class, true).getCarInfo();
+
+    Assert.assertEquals("Ford", carInfo.get("Make"));
+    Assert.assertEquals("Description text was not trimmed!", "Focus", carInfo.get("Model"));
+    Assert.assertEquals("Hidden description should have no text, like getText()!", "", carInfo.get("Trim"));
+  }
+
+  @Test
+  public void test_readElements()
+  {
+    HtmlTestPage page = pageProvider.get(HtmlTestPage.class, true);
+    List<ElementData> options = page.readManufactOptions();
+
+    Assert.assertEquals(7, options.size());
+    Assert.assertEquals("ford", options.get(0).getValue());
+    Assert.assertTrue("Option of a visible select should be displayed!", options.get(0).isDisplayed());
+    Assert.assertNull("Unselected option has no selected attribute!", options.get(0).getAttribute("selected"));
+    Assert.assertEquals("selected", options.get(6).getAttribute("selected"));
+    Assert.assertNull("Text was not asked for!", options.get(0).getText());
+
+    ElementData hidden = page.readHiddenInfo();
+    Assert.assertEquals("span", hidden.getTagName());
+    Assert.assertFalse("Hidden element should not be displayed!", hidden.isDisplayed());
+    Assert.assertEquals("Text of a hidden element should be read!", "Hidden", hidden.getText());
+  }
+
+  @Test
+  public void test_extractTable()
+  {
+    TableData cars = pageProvider.get(HtmlTestPage.class, true).getCarTable();
+
+    Assert.assertEquals(Arrays.asList("Make", "Model", "Price", "Make@href", "Model@href", "Price@href"), cars.getHeaders());
+    Assert.assertEquals(4, cars.size());
+    Assert.assertEquals("$35,000", cars.asMaps().get(1).get("Price"));
+    Assert.assertEquals("#audi", cars.get(2, "Make@href"));
+    Assert.assertEquals("Column spans were not expanded!", Arrays.asList("Geo", "Geo", "Discontinued"), Arrays.asList(cars.get(3, 0), cars.get(3, 1), cars.get(3, 2)));
+  }
+
+  @Test
+  public void test_extractTablePages()
+  {
+    List<String> makes = new ArrayList<>();
+    int pages = 0;
+
+    for (TableData page : pageProvider.get(HtmlTestPage.class, true).getCarTablePages(3)) {
+      Assert.assertEquals(4, page.getTotalRows());
+      Assert.assertEquals("Every page should have the same headers!", Arrays.asList("Make", "Model", "Price"), page.getHeaders());
+      makes.addAll(page.getColumn("Make"));
+      pages++;
+    }
+
+    Assert.assertEquals(2, pages);
+    Assert.assertEquals(Arrays.asList("Ford", "Volvo", "Audi", "Geo"), makes);
+  }
+
+  @Test
+  public void test_extractListAndCards()
+  {
+    HtmlTestPage page = pageProvider.get(HtmlTestPage.class, true);
+
+    TableData features = page.getCarFeatures();
+    Assert.assertEquals("Nested list items should not be rows!", 2, features.size());
+    Assert.assertEquals("Air bags", features.get(0, "text"));
+
+    TableData cards = page.getCarCards();
+    Assert.assertEquals(Arrays.asList("Saab", "Dodge"), cards.getColumn("make"));
+    Assert.assertNull("Missing field should be null!", cards.get(1, "price"));
+    Assert.assertEquals("#dodge", cards.get(1, "make@href"));
+  }
+
+  // Dialogs are captured in the page by script for both PhantomJs and
+  // HtmlUnit, so the same tests run against each of them.
   @Test
   @PhantomJs
   public void test_HeadlessAlert()
@@ -138,6 +471,83 @@ public class TestHtmlView
     
   }
   
+  @Test
+  @HTMLUnit
+  public void test_HeadlessAlertHtmlUnit()
+  {
+    String expectedMessage = "Test Alert Message";
+
+    String actualMessage = pageProvider.get(HtmlTestPage.class, true).clickAlertBtnAndAcceptAlert();
+
+    Assert.assertEquals("The expected message from the alert was not what was expected!", expectedMessage, actualMessage);
+    
+    //ensure the driver is still working
+    ensureDriverStillResponding();
+  }
+
+  @Test
+  @HTMLUnit
+  public void test_HeadlessConfirmHtmlUnit()
+  {
+    String expectedMessage = "Test Confirm Message";
+
+    String actualMessage = pageProvider.get(HtmlTestPage.class, true).clickConfirmBtnAndAcceptAlert();
+
+    actualMessage = pageProvider.get(HtmlTestPage.class, true).clickConfirmBtnAndAcceptAlert();
+
+    Assert.assertEquals("The expected message from the alert was not what was expected!", expectedMessage, actualMessage);
+    
+    //ensure the driver is still working
+    ensureDriverStillResponding();
+    
+  }
+  
+  @Test
+  @HTMLUnit
+  public void test_HeadlessConfirmThenNavigate()
+  {
+    HtmlTestPage page = pageProvider.get(HtmlTestPage.class, true);
+
+    Assert.assertEquals("Confirm was lost when the page navigated!", "Leave this page?", page.clickConfirmLinkAndAcceptAlert());
+    Assert.assertTrue("Accepted confirm should follow the link!", page.getCurrentUrl().endsWith("?confirmed"));
+  }
+
+  @Test
+  @HTMLUnit
+  public void test_HeadlessConfirmDismissed()
+  {
+    HtmlTestPage page = pageProvider.get(HtmlTestPage.class, true);
+
+    Assert.assertEquals("Test Confirm Message", page.clickConfirmBtnAndDismissAlert());
+    Assert.assertEquals("Dismissed confirm should return false!", "false", page.getConfirmResult());
+  }
+
+  @Test
+  @HTMLUnit
+  public void test_HeadlessMultilineAlert()
+  {
+    String actualMessage = pageProvider.get(HtmlTestPage.class, true).clickMultilineAlertBtnAndAcceptAlert();
+
+    Assert.assertEquals("New lines of the alert were not kept!", "First line\nSecond line", actualMessage);
+  }
+
+  @Test
+  @HTMLUnit
+  public void test_HeadlessPrompt()
+  {
+    HtmlTestPage page = pageProvider.get(HtmlTestPage.class, true);
+
+    Assert.assertEquals("Your name?", page.clickPromptBtnAndAnswer("Jane"));
+    Assert.assertEquals("Prompt was not answered with the response!", "Jane", page.getPromptResult());
+  }
+
+  @Test
+  @HTMLUnit
+  public void test_HeadlessNoAlert()
+  {
+    Assert.assertNull(pageProvider.get(HtmlTestPage.class, true).clickButtonAndAcceptAlertIfPresent());
+  }
+
   @Test
   @PhantomJs
   public void test_pageReload()
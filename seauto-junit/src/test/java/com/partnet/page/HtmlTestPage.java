@@ -17,14 +17,28 @@
 package com.partnet.page;
 
 import java.net.URL;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.json.JSONObject;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
 
 import com.partnet.TestHtmlView;
 import com.partnet.automation.DependencyContainer;
+import com.partnet.automation.extract.ElementData;
+import com.partnet.automation.extract.ElementProperty;
+import com.partnet.automation.extract.ElementRead;
+import com.partnet.automation.extract.Structure;
+import com.partnet.automation.extract.TableData;
+import com.partnet.automation.form.FormFiller;
 import com.partnet.automation.page.Page;
+import com.partnet.automation.selenium.WindowRegistry;
+import com.partnet.automation.wait.CompositeCondition;
 
 /**
  * @author <a href="mailto:bbarker@part.net">bbarker</a>
@@ -45,12 +59,39 @@ public class HtmlTestPage
   @FindBy(id = "manufact")
   private WebElement manufactDropdown;
 
+  @FindBy(id = "carColors")
+  private WebElement carColorsSelect;
+
   @FindBy(id = "jsonAjaxButton")
   private WebElement jsonAjaxBtn;
   
   @FindBy(id = "reloadPageBtn")
   private WebElement reloadPageBtn;
 
+  @FindBy(id = "loadAjaxResultButton")
+  private WebElement loadAjaxResultBtn;
+
+  @FindBy(id = "ajaxResult")
+  private WebElement ajaxResult;
+
+  @FindBy(css = "#carInfo dt, #carInfo dd")
+  private List<WebElement> carInfo;
+
+  @FindBy(id = "carTable")
+  private WebElement carTable;
+
+  @FindBy(id = "carFeatures")
+  private WebElement carFeatures;
+
+  @FindBy(id = "carCards")
+  private WebElement carCards;
+
+  @FindBy(id = "delayedElementButton")
+  private WebElement delayedElementBtn;
+
+  @FindBy(id = "delayedDialogButton")
+  private WebElement delayedDialogBtn;
+
   public HtmlTestPage(DependencyContainer depContainer)
   {
     super(depContainer);
@@ -66,6 +107,46 @@ public class HtmlTestPage
     return super.clickAndAcceptAlert(confirmBtn);
   }
 
+  public String clickConfirmLinkAndAcceptAlert()
+  {
+    return super.clickAndAcceptAlert(webDriver.findElement(By.id("confirmAndLeave")));
+  }
+
+  public String getCurrentUrl()
+  {
+    return webDriver.getCurrentUrl();
+  }
+
+  public String clickConfirmBtnAndDismissAlert()
+  {
+    return super.clickAndDismissAlert(confirmBtn);
+  }
+
+  public String getConfirmResult()
+  {
+    return webDriver.findElement(By.id("resultOfConfirm")).getText();
+  }
+
+  public String clickMultilineAlertBtnAndAcceptAlert()
+  {
+    return super.clickAndAcceptAlert(webDriver.findElement(By.id("testMultilineAlert")));
+  }
+
+  public String clickPromptBtnAndAnswer(String response)
+  {
+    return super.clickAndAnswerPrompt(webDriver.findElement(By.id("testPrompt")), response);
+  }
+
+  public String getPromptResult()
+  {
+    return webDriver.findElement(By.id("resultOfPrompt")).getText();
+  }
+
+  public String clickButtonAndAcceptAlertIfPresent()
+  {
+    return super.clickAndAcceptAlertIfPresent(webDriver.findElement(By.id("justAButton")));
+  }
+
   @Override
   public void verify()
       throws IllegalStateException
@@ -90,6 +171,30 @@ public class HtmlTestPage
     return this;
   }
 
+  public HtmlTestPage fillOwner(String name, String zip, String notes, FormFiller.Strategy strategy)
+  {
+    Map<By, String> values = new LinkedHashMap<>();
+    values.put(By.id("ownerName"), name);
+    values.put(By.id("ownerZip"), zip);
+    values.put(By.cssSelector("textarea#ownerNotes"), notes);
+    fillForm(values, strategy);
+    return this;
+  }
+
+  public Map<By, String> fillCarForm(String manufacturer, String zip)
+  {
+    Map<By, String> values = new LinkedHashMap<>();
+    values.put(By.id("manufact"), manufacturer);
+    values.put(By.id("ownerZip"), zip);
+    return fillForm(values, FormFiller.Strategy.SCRIPT);
+  }
+
+  public List<String> getOwner()
+  {
+    return Arrays.asList(getValue(webDriver.findElement(By.id("ownerName"))), getValue(webDriver.findElement(By.id("ownerZip"))),
+        getValue(webDriver.findElement(By.id("ownerNotes"))), webDriver.findElement(By.id("ownerEcho")).getText());
+  }
+
   public String getInfoBoxMsg()
   {
     return infoTextBox.getAttribute("value");
@@ -107,6 +212,40 @@ public class HtmlTestPage
     return this;
   }
 
+  public HtmlTestPage selectCarColors(String... visibleTexts)
+  {
+    selectAllByVisibleText(carColorsSelect, Arrays.asList(visibleTexts));
+    return this;
+  }
+
+  public HtmlTestPage selectCarColorValues(String... values)
+  {
+    selectAllByValue(carColorsSelect, Arrays.asList(values));
+    return this;
+  }
+
+  public HtmlTestPage selectHiddenModel(String visibleText)
+  {
+    selectByVisibleText(webDriver.findElement(By.id("hiddenModels")), visibleText);
+    return this;
+  }
+
+  public HtmlTestPage selectRetiredModel(String visibleText)
+  {
+    selectByVisibleText(webDriver.findElement(By.id("retiredModels")), visibleText);
+    return this;
+  }
+
+  public List<String> getCarColors()
+  {
+    return getAllSelectedVisibleText(carColorsSelect);
+  }
+
+  public boolean isCarColorsChanged()
+  {
+    return "changed".equals(webDriver.findElement(By.id("carColorsChanged")).getText());
+  }
+
   public String getManufactSelectedOption()
   {
     return getSelectedVisibleText(manufactDropdown);
@@ -122,4 +261,143 @@ public class HtmlTestPage
   public void clickReloadBtnAndWait() {
     super.clickAndWait(reloadPageBtn);
   }
+
+  public String openPopupAndSwitchToIt()
+  {
+    webDriver.findElement(By.id("popupLink")).click();
+    switchToNewWindow(By.id("popupLink"), "Test Basic HTML features");
+    return webDriver.getCurrentUrl();
+  }
+
+  public String openNamedPopupAndSwitchToIt()
+  {
+    webDriver.findElement(By.id("namedPopupLink")).click();
+    switchToNewWindow(By.id("namedPopupLink"), "Test Basic HTML features");
+    return webDriver.getCurrentUrl();
+  }
+
+  public String switchBackToPrimaryWindow()
+  {
+    webDriver.switchTo().window(WindowRegistry.get(webDriver).getPrimaryHandle());
+    return webDriver.getCurrentUrl();
+  }
+
+  public String closePopupAndSwitchBack()
+  {
+    webDriver.close();
+    switchToOpenWindow(By.id("popupLink"), null);
+    return webDriver.getCurrentUrl();
+  }
+
+  public String clickLoadAjaxResultAndWait()
+  {
+    super.clickAndWait(loadAjaxResultBtn);
+    return ajaxResult.getText();
+  }
+
+  public String clickLoadAjaxResultAndWaitForResult()
+  {
+    loadAjaxResultBtn.click();
+    waitFor(CompositeCondition.allOf(
+        CompositeCondition.text(By.id("ajaxResult"), "glossary"),
+        CompositeCondition.not(CompositeCondition.present(By.className("blockUI")))), 10);
+    return ajaxResult.getText();
+  }
+
+  public void waitForBlockedAjaxResult(int maxWaitInSeconds)
+  {
+    waitFor(CompositeCondition.allOf(
+        CompositeCondition.present(By.id("ajaxResult")),
+        CompositeCondition.count(By.className("blockUI"), 1, 1)), maxWaitInSeconds);
+  }
+
+  public String clickAndWaitForDelayedElement()
+  {
+    delayedElementBtn.click();
+    return waitForElementToAppear(By.id("delayedElement")).getText();
+  }
+
+  public void runAsyncScriptWithoutCallback()
+  {
+    ((JavascriptExecutor) webDriver).executeAsyncScript("");
+  }
+
+  public String clickAndWaitForDelayedDialog()
+  {
+    delayedDialogBtn.click();
+    return waitForDialogToAppear(By.id("dialogContent")).getText();
+  }
+
+  public void waitForMissingElement(int seconds)
+  {
+    waitForPresenceOfElement(By.id("missingElement"), seconds);
+  }
+
+  public List<JSONObject> clickTwiceAndWaitForAjaxResponses()
+  {
+    super.injectAjaxListener();
+    jsonAjaxBtn.click();
+    jsonAjaxBtn.click();
+    return Arrays.asList(super.waitForAjaxResponse("glossary"), super.waitForAjaxResponse("glossary"));
+  }
+
+  /**
+   * Records responses straight into the ajax capture, with room for only one.
+   *
+   * @return the number of ids left in the order and in the index of the key
+   */
+  public List<Long> recordAjaxResponsesOverLimit(int count)
+  {
+    super.injectAjaxListener();
+    @SuppressWarnings("unchecked")
+    List<Long> sizes = (List<Long>) executeScript("var c = window.__seautoAjax; c.maxBytes = 1;"
+        + " for (var i = 0; i < arguments[0]; i++) { c.record('{\"counter\":' + i + '}'); }"
+        + " return [c.order.length, c.index.counter.length];", count);
+    return sizes;
+  }
+
+  public JSONObject waitForAjaxResponseWithoutListener()
+  {
+    return super.waitForAjaxResponse("glossary");
+  }
+
+  public List<String> getManufactOptions()
+  {
+    return getAllDropdownVisibleTextEntries(manufactDropdown);
+  }
+
+  public Map<String, String> getCarInfo()
+  {
+    return parseDescriptionList(carInfo);
+  }
+
+  public List<ElementData> readManufactOptions()
+  {
+    return readElements(By.cssSelector("#manufact option"), ElementRead.of(ElementProperty.VALUE, ElementProperty.DISPLAYED).withAttributes("selected"));
+  }
+
+  public ElementData readHiddenInfo()
+  {
+    return readElements(By.id("hiddenInfo"), ElementRead.of(ElementProperty.TAG, ElementProperty.TEXT, ElementProperty.DISPLAYED)).get(0);
+  }
+
+  public TableData getCarTable()
+  {
+    return extract(Structure.table(carTable).withAttributes("href"));
+  }
+
+  public Iterable<TableData> getCarTablePages(int pageSize)
+  {
+    return extractPages(Structure.table(carTable), pageSize);
+  }
+
+  public TableData getCarFeatures()
+  {
+    return extract(Structure.list(carFeatures));
+  }
+
+  public TableData getCarCards()
+  {
+    return extract(Structure.cards(carCards, ".card").field("make", "h4").field("price", ".price").withAttributes("href"));
+  }
 }